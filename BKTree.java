@@ -0,0 +1,182 @@
+package lost_and_found_system;
+
+import java.util.*;
+
+// Burkhard-Keller tree over the combined descriptions of one category.
+// Every child hangs off its parent under the edit distance between the two keys, so by the
+// triangle inequality a query at distance d from a node only has to visit children whose edge
+// is within [d - r, d + r]. That pays off for small radii (a few typos); past about
+// CategoryIndex.TREE_RADIUS most of the tree is visited and the trigram count filter is cheaper.
+// Items with identical descriptions share one node.
+final class BKTree {
+    private static final Comparator<Map.Entry<Item, Integer>> NEAREST_FIRST =
+        Comparator.comparing((Map.Entry<Item, Integer> e) -> e.getValue()).thenComparingInt(e -> e.getKey().id);
+
+    private final DistanceStrategy metric;
+    private Node root;
+    private int size;           // live items
+    private int removed;        // nodes without items still in the tree
+
+    BKTree(DistanceStrategy metric) {
+        this.metric = metric;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(Item item) {
+        Description key = item.combinedDescription;
+        if (root == null) {
+            root = new Node(key, item);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int d = distance(key, node.key, Integer.MAX_VALUE);
+            if (d == 0) {
+                if (node.items.isEmpty()) removed--;
+                node.items.add(item);
+                size++;
+                return;
+            }
+            Node child = node.child(d);
+            if (child == null) {
+                node.addChild(d, new Node(key, item));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    // Takes the item off its node; the tree is rebuilt once half of the nodes are empty
+    boolean remove(Item item) {
+        Description key = item.combinedDescription;
+        Node node = root;
+        while (node != null) {
+            int d = distance(key, node.key, Integer.MAX_VALUE);
+            if (d == 0) {
+                if (!node.items.remove(item)) return false;
+                size--;
+                if (node.items.isEmpty()) removed++;
+                if (removed > size) rebuild();
+                return true;
+            }
+            node = node.child(d);
+        }
+        return false;
+    }
+
+    // All items within edit distance maxDistance of the query, nearest first (ties on the lower id)
+    List<Item> withinDistance(String query, int maxDistance) {
+        Description q = new Description(query);
+        List<Map.Entry<Item, Integer>> found = new ArrayList<>();
+        if (root != null) {
+            ArrayDeque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int d = distance(q, node.key, maxDistance + node.maxEdge);
+                if (d <= maxDistance) {
+                    for (Item item : node.items) found.add(Map.entry(item, d));
+                }
+                for (int c = 0; c < node.childCount; c++) {
+                    if (Math.abs(d - node.edges[c]) <= maxDistance) stack.push(node.children[c]);
+                }
+            }
+        }
+        found.sort(NEAREST_FIRST);
+        return items(found);
+    }
+
+    // The k items with the smallest edit distance to the query, nearest first (ties on the lower id)
+    List<Item> nearest(String query, int k) {
+        if (root == null || k <= 0) return new ArrayList<>();
+        Description q = new Description(query);
+        // reversed, so the current k-th best sits on top and sets the radius
+        PriorityQueue<Map.Entry<Item, Integer>> best = new PriorityQueue<>(NEAREST_FIRST.reversed());
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            int radius = best.size() < k ? Integer.MAX_VALUE - node.maxEdge : best.peek().getValue();
+            int d = distance(q, node.key, radius + node.maxEdge);
+            if (d <= radius) {
+                for (Item item : node.items) {
+                    best.offer(Map.entry(item, d));
+                    if (best.size() > k) best.poll();
+                }
+                if (best.size() == k) radius = best.peek().getValue();
+            }
+            for (int c = 0; c < node.childCount; c++) {
+                if (Math.abs(d - node.edges[c]) <= radius) stack.push(node.children[c]);
+            }
+        }
+        List<Map.Entry<Item, Integer>> found = new ArrayList<>(best);
+        found.sort(NEAREST_FIRST);
+        return items(found);
+    }
+
+    // Byte kernel when both fit in Latin-1, as in a search
+    private int distance(Description a, Description b, int maxDistance) {
+        byte[] x = a.bytes(), y = b.bytes();
+        if (x == null || y == null) return metric.distance(a, b, maxDistance);
+        return metric.distance(x, 0, x.length, y, 0, y.length, maxDistance);
+    }
+
+    private static List<Item> items(List<Map.Entry<Item, Integer>> found) {
+        List<Item> items = new ArrayList<>(found.size());
+        for (Map.Entry<Item, Integer> e : found) items.add(e.getKey());
+        return items;
+    }
+
+    private void rebuild() {
+        List<Item> live = new ArrayList<>(size);
+        if (root != null) {
+            ArrayDeque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                live.addAll(node.items);
+                for (int c = 0; c < node.childCount; c++) stack.push(node.children[c]);
+            }
+        }
+        root = null;
+        size = 0;
+        removed = 0;
+        for (Item item : live) add(item);
+    }
+
+    private static final class Node {
+        final Description key;
+        final List<Item> items = new ArrayList<>(1);    // empty once all of them are claimed
+        int maxEdge;            // largest edge distance to a child
+        int[] edges = new int[2];
+        Node[] children = new Node[2];
+        int childCount;
+
+        Node(Description key, Item item) {
+            this.key = key;
+            this.items.add(item);
+        }
+
+        Node child(int edge) {
+            for (int c = 0; c < childCount; c++) {
+                if (edges[c] == edge) return children[c];
+            }
+            return null;
+        }
+
+        void addChild(int edge, Node child) {
+            if (childCount == edges.length) {
+                edges = Arrays.copyOf(edges, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            edges[childCount] = edge;
+            children[childCount++] = child;
+            maxEdge = Math.max(maxEdge, edge);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package lost_and_found_system;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+// Nightly reconciliation: every lost report in a file is matched against the whole registry and
+// its best found-item candidates are written out as a CSV report, one row per candidate.
+// Reports come as CSV with a header row or as JSON lines, read like BulkImporter reads them:
+// an optional "report" id (the line number otherwise), an optional category (blank, "all" or
+// "not sure" = every category) and the description fields registerFound asks for in that
+// category, or just "description". A report for one category is matched field by field with the
+// category's weights (ItemFields); one for every category, or with free text the category has no
+// field for, is matched as the desk's query: the non-empty fields in registerFound's order, scored
+// with similarityScore (1 - edit distance / longer length). Either way above 0.3, computed through
+// the live category indexes, which every worker shares - nothing is copied or rebuilt.
+// Reports are matched on a pool of workers. A window of reports in flight keeps the report in
+// input order and memory bounded; rows are written as soon as the report's turn comes.
+final class BatchMatcher {
+    static final String HEADER = "report,rank,item_id,category,score,name";
+    private static final int WINDOW_PER_THREAD = 64;
+    private static final int MAX_REPORTED = 100;        // rejected reports listed one by one, the rest are only counted
+
+    // Best candidates for one query into `best`; category null = every category
+    interface Searcher {
+        void search(String category, String query, TopK best);
+
+        // Field by field, values normalized and in ItemFields.order(category)
+        void searchFields(String category, String[] fields, TopK best);
+    }
+
+    static final class Result {
+        long reports;
+        long matched;           // reports with at least one candidate
+        long rejected;
+        long nanos;
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format("%d reports matched (%d with candidates), %d rejected in %.2f s (%.0f reports/s)",
+                reports, matched, rejected, seconds, seconds > 0 ? reports / seconds : 0.0);
+        }
+    }
+
+    private final Searcher searcher;
+    private final int k;
+    private final int threads;
+    private final PrintStream rejects;          // one line per rejected report, up to MAX_REPORTED
+    private final Map<String, String> categoryNames = new HashMap<>();
+
+    BatchMatcher(Searcher searcher, int k, int threads, PrintStream rejects) {
+        this.searcher = searcher;
+        this.k = k;
+        this.threads = Math.max(1, threads);
+        this.rejects = rejects;
+        for (String c : BulkImporter.CATEGORIES) categoryNames.put(BulkImporter.key(c), c);
+    }
+
+    // Format by extension, as for imports: .csv is CSV, anything else is read as JSON lines
+    Result matchFile(Path reports, Path report) throws IOException {
+        boolean csv = reports.getFileName().toString().toLowerCase().endsWith(".csv");
+        try (Reader in = new InputStreamReader(Files.newInputStream(reports), StandardCharsets.UTF_8);
+             Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            return csv ? matchCsv(in, out) : matchJsonLines(in, out);
+        }
+    }
+
+    Result matchCsv(Reader in, Writer out) throws IOException {
+        try (Run run = new Run(out)) {
+            BulkImporter.CsvReader csv = new BulkImporter.CsvReader(in);
+            List<String> header = csv.next();
+            if (header == null) return run.finish();
+            String[] keys = new String[header.size()];
+            for (int i = 0; i < keys.length; i++) keys[i] = BulkImporter.key(header.get(i));
+
+            HashMap<String, String> fields = new HashMap<>();
+            for (List<String> record; (record = csv.next()) != null; ) {
+                if (record.size() == 1 && record.get(0).isEmpty()) continue;      // blank line
+                fields.clear();
+                for (int i = 0; i < keys.length && i < record.size(); i++) fields.put(keys[i], record.get(i));
+                accept(run, fields, csv.recordLine);
+            }
+            return run.finish();
+        }
+    }
+
+    Result matchJsonLines(Reader in, Writer out) throws IOException {
+        try (Run run = new Run(out)) {
+            BufferedReader lines = new BufferedReader(in, 1 << 16);
+            HashMap<String, String> fields = new HashMap<>();
+            long lineNo = 0;
+            for (String line; (line = lines.readLine()) != null; ) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                fields.clear();
+                try {
+                    BulkImporter.parseJsonObject(line, fields);
+                } catch (IllegalArgumentException e) {
+                    run.reject(lineNo, e.getMessage());
+                    continue;
+                }
+                accept(run, fields, lineNo);
+            }
+            return run.finish();
+        }
+    }
+
+    private void accept(Run run, Map<String, String> fields, long line) throws IOException {
+        String given = BulkImporter.field(fields, "category");
+        String key = BulkImporter.key(given);
+        String category = null;
+        if (!key.isEmpty() && !key.equals("all") && !key.equals("allcategories") && !key.equals("notsure")) {
+            category = categoryNames.get(key);
+            if (category == null) {
+                run.reject(line, "unknown category '" + given + "'");
+                return;
+            }
+        }
+        String id = BulkImporter.field(fields, "report");
+        if (id.isEmpty()) id = String.valueOf(line);
+        String in = category;
+        String[] values = in == null ? null : values(in, fields);
+        if (values != null) {
+            run.submit(id, () -> match(best -> searcher.searchFields(in, values, best)));
+            return;
+        }
+        String query = query(in, fields);
+        if (query.isEmpty()) {
+            run.reject(line, "nothing to match on");
+            return;
+        }
+        run.submit(id, () -> match(best -> searcher.search(in, query, best)));
+    }
+
+    // The report's fields in the category's order, or null where it has to be matched as free text:
+    // nothing filled in, or a description the category has no field for
+    static String[] values(String category, Map<String, String> fields) {
+        String[] order = ItemFields.order(category);
+        if (!Arrays.asList(order).contains("description") && !BulkImporter.field(fields, "description").isEmpty()) return null;
+        String[] values = new String[order.length];
+        boolean any = false;
+        for (int i = 0; i < order.length; i++) {
+            values[i] = TextNormalizer.normalize(BulkImporter.field(fields, order[i]));
+            any |= !values[i].isEmpty();
+        }
+        return any ? values : null;
+    }
+
+    // The report's non-empty description fields, in the category's order, normalized like the
+    // desk's query (TextNormalizer); a free-text "description" is used even where registerFound doesn't ask for one
+    static String query(String category, Map<String, String> fields) {
+        String[] order = ItemFields.order(category == null ? "" : category);
+        StringBuilder sb = new StringBuilder(128);
+        boolean description = false;
+        for (String field : order) {
+            append(sb, BulkImporter.field(fields, field));
+            description |= field.equals("description");
+        }
+        if (!description) append(sb, BulkImporter.field(fields, "description"));
+        return TextNormalizer.normalize(sb.toString());
+    }
+
+    private static void append(StringBuilder sb, String value) {
+        if (value.isEmpty()) return;
+        if (sb.length() > 0) sb.append(' ');
+        sb.append(value);
+    }
+
+    private List<Map.Entry<Item, Double>> match(Consumer<TopK> search) {
+        TopK best = new TopK(k);
+        search.accept(best);
+        return best.drain();
+    }
+
+    // One pass over a file: the workers, the reports in flight and the output
+    private final class Run implements AutoCloseable {
+        private final Writer out;
+        private final Result result = new Result();
+        private final long start = System.nanoTime();
+        private final ExecutorService pool;
+        private final ArrayDeque<Pending> window = new ArrayDeque<>();
+        private final StringBuilder rows = new StringBuilder(1024);
+
+        Run(Writer out) throws IOException {
+            this.out = out;
+            out.write(HEADER);
+            out.write('\n');
+            pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "batch-match");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        void submit(String id, Callable<List<Map.Entry<Item, Double>>> match) throws IOException {
+            if (window.size() == threads * WINDOW_PER_THREAD) writeOldest();
+            window.add(new Pending(id, pool.submit(match)));
+        }
+
+        void reject(long line, String reason) {
+            result.rejected++;
+            if (rejects == null || result.rejected > MAX_REPORTED) return;
+            rejects.println("line " + line + ": " + reason);
+            if (result.rejected == MAX_REPORTED) rejects.println("(further rejected reports are only counted)");
+        }
+
+        Result finish() throws IOException {
+            while (!window.isEmpty()) writeOldest();
+            out.flush();
+            result.nanos = System.nanoTime() - start;
+            return result;
+        }
+
+        // A report with no candidate still gets a row (rank 0), so every report shows up
+        private void writeOldest() throws IOException {
+            Pending next = window.poll();
+            List<Map.Entry<Item, Double>> matches = next.get();
+            rows.setLength(0);
+            if (matches.isEmpty()) {
+                csv(rows, next.id).append(",0,,,,\n");
+            }
+            int rank = 0;
+            for (Map.Entry<Item, Double> e : matches) {
+                Item item = e.getKey();
+                csv(rows, next.id).append(',').append(++rank).append(',').append(item.id).append(',');
+                csv(rows, item.category).append(',').append(String.format("%.4f", e.getValue())).append(',');
+                csv(rows, item.name).append('\n');
+            }
+            out.append(rows);
+            result.reports++;
+            if (!matches.isEmpty()) result.matched++;
+        }
+
+        @Override
+        public void close() {
+            pool.shutdownNow();         // only has work left if the pass failed
+        }
+    }
+
+    private static final class Pending {
+        final String id;
+        final Future<List<Map.Entry<Item, Double>>> matches;
+
+        Pending(String id, Future<List<Map.Entry<Item, Double>>> matches) {
+            this.id = id;
+            this.matches = matches;
+        }
+
+        List<Map.Entry<Item, Double>> get() {
+            try {
+                return matches.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Batch match interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    // Quoted only when it has to be
+    private static StringBuilder csv(StringBuilder sb, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return sb.append(value);
+        }
+        return sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
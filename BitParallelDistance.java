@@ -0,0 +1,227 @@
+package lost_and_found_system;
+
+// Bit-vector Levenshtein distance (Myers 1999, Hyyro's global-distance variant).
+// The shorter string is the pattern; each 64-bit word holds the vertical deltas of 64 DP rows,
+// so one text character advances 64 cells at once. Patterns longer than 64 chars are split into
+// blocks of 64 and the horizontal delta is carried from block to block.
+final class BitParallelDistance {
+    private static final int ALPHABET = 256;    // Latin-1 fits the table, anything else goes to the DP kernel
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private BitParallelDistance() {}
+
+    static int distance(CharSequence a, CharSequence b) {
+        return distance(a, b, Integer.MAX_VALUE);
+    }
+
+    // Exact distance when it is <= maxDistance, otherwise maxDistance + 1
+    static int distance(CharSequence a, CharSequence b, int maxDistance) {
+        CharSequence text = a, pattern = b;
+        if (pattern.length() > text.length()) {
+            text = b;
+            pattern = a;
+        }
+        int n = text.length(), m = pattern.length();
+        int k = Math.min(maxDistance, n);
+        if (n - m > k) return k + 1;
+        if (m == 0) return n;
+        if (!isLatin1(pattern) || !isLatin1(text)) return EditDistance.distance(a, b, maxDistance);
+
+        int blocks = (m + 63) >>> 6;
+        Buffers buf = BUFFERS.get();
+        buf.ensure(blocks);
+        long[] peq = buf.peq;
+        for (int i = 0; i < m; i++) {
+            peq[pattern.charAt(i) * blocks + (i >>> 6)] |= 1L << (i & 63);
+        }
+
+        int d = blocks == 1
+            ? singleBlock(peq, text, m, k)
+            : multiBlock(peq, buf.pv, buf.mv, blocks, text, m, k);
+
+        for (int i = 0; i < m; i++) {           // clear only the rows we touched
+            peq[pattern.charAt(i) * blocks + (i >>> 6)] = 0;
+        }
+        return d;
+    }
+
+    // Same over byte ranges (Latin-1 text, e.g. a Description's bytes): every byte is in the table
+    static int distance(byte[] a, int aFrom, int aLength, byte[] b, int bFrom, int bLength, int maxDistance) {
+        byte[] text = a, pattern = b;
+        int textFrom = aFrom, patternFrom = bFrom, n = aLength, m = bLength;
+        if (m > n) {
+            text = b;
+            pattern = a;
+            textFrom = bFrom;
+            patternFrom = aFrom;
+            n = bLength;
+            m = aLength;
+        }
+        int k = Math.min(maxDistance, n);
+        if (n - m > k) return k + 1;
+        if (m == 0) return n;
+
+        int blocks = (m + 63) >>> 6;
+        Buffers buf = BUFFERS.get();
+        buf.ensure(blocks);
+        long[] peq = buf.peq;
+        for (int i = 0; i < m; i++) {
+            peq[(pattern[patternFrom + i] & 0xFF) * blocks + (i >>> 6)] |= 1L << (i & 63);
+        }
+
+        int d = blocks == 1
+            ? singleBlock(peq, text, textFrom, n, m, k)
+            : multiBlock(peq, buf.pv, buf.mv, blocks, text, textFrom, n, m, k);
+
+        for (int i = 0; i < m; i++) {
+            peq[(pattern[patternFrom + i] & 0xFF) * blocks + (i >>> 6)] = 0;
+        }
+        return d;
+    }
+
+    private static int singleBlock(long[] peq, CharSequence text, int m, int k) {
+        int n = text.length();
+        long last = 1L << (m - 1);
+        long pv = -1L, mv = 0L;
+        int score = m;
+
+        for (int j = 0; j < n; j++) {
+            long eq = peq[text.charAt(j)];
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) score++;
+            else if ((mh & last) != 0) score--;
+            ph = (ph << 1) | 1L;                // top row D[0][j] = j, so it always steps by +1
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+
+            if (score - (n - j - 1) > k) return k + 1;   // even all remaining matches can't bring it back
+        }
+        return score > k ? k + 1 : score;
+    }
+
+    private static int multiBlock(long[] peq, long[] pvs, long[] mvs, int blocks, CharSequence text, int m, int k) {
+        int n = text.length();
+        long last = 1L << ((m - 1) & 63);
+        for (int b = 0; b < blocks; b++) {
+            pvs[b] = -1L;
+            mvs[b] = 0L;
+        }
+        int score = m;
+
+        for (int j = 0; j < n; j++) {
+            int row = text.charAt(j) * blocks;
+            int hin = 1;
+            for (int b = 0; b < blocks; b++) {
+                long pv = pvs[b], mv = mvs[b];
+                long eq = peq[row + b];
+                long xv = eq | mv;
+                if (hin < 0) eq |= 1L;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+
+                long high = b == blocks - 1 ? last : Long.MIN_VALUE;
+                int hout = (ph & high) != 0 ? 1 : (mh & high) != 0 ? -1 : 0;
+
+                ph <<= 1;
+                mh <<= 1;
+                if (hin < 0) mh |= 1L;
+                else if (hin > 0) ph |= 1L;
+                pvs[b] = mh | ~(xv | ph);
+                mvs[b] = ph & xv;
+                hin = hout;
+            }
+            score += hin;
+
+            if (score - (n - j - 1) > k) return k + 1;
+        }
+        return score > k ? k + 1 : score;
+    }
+
+    private static int singleBlock(long[] peq, byte[] text, int from, int n, int m, int k) {
+        long last = 1L << (m - 1);
+        long pv = -1L, mv = 0L;
+        int score = m;
+
+        for (int j = 0; j < n; j++) {
+            long eq = peq[text[from + j] & 0xFF];
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) score++;
+            else if ((mh & last) != 0) score--;
+            ph = (ph << 1) | 1L;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+
+            if (score - (n - j - 1) > k) return k + 1;
+        }
+        return score > k ? k + 1 : score;
+    }
+
+    private static int multiBlock(long[] peq, long[] pvs, long[] mvs, int blocks, byte[] text, int from, int n, int m, int k) {
+        long last = 1L << ((m - 1) & 63);
+        for (int b = 0; b < blocks; b++) {
+            pvs[b] = -1L;
+            mvs[b] = 0L;
+        }
+        int score = m;
+
+        for (int j = 0; j < n; j++) {
+            int row = (text[from + j] & 0xFF) * blocks;
+            int hin = 1;
+            for (int b = 0; b < blocks; b++) {
+                long pv = pvs[b], mv = mvs[b];
+                long eq = peq[row + b];
+                long xv = eq | mv;
+                if (hin < 0) eq |= 1L;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+
+                long high = b == blocks - 1 ? last : Long.MIN_VALUE;
+                int hout = (ph & high) != 0 ? 1 : (mh & high) != 0 ? -1 : 0;
+
+                ph <<= 1;
+                mh <<= 1;
+                if (hin < 0) mh |= 1L;
+                else if (hin > 0) ph |= 1L;
+                pvs[b] = mh | ~(xv | ph);
+                mvs[b] = ph & xv;
+                hin = hout;
+            }
+            score += hin;
+
+            if (score - (n - j - 1) > k) return k + 1;
+        }
+        return score > k ? k + 1 : score;
+    }
+
+    private static boolean isLatin1(CharSequence s) {
+        for (int i = 0, len = s.length(); i < len; i++) {
+            if (s.charAt(i) >= ALPHABET) return false;
+        }
+        return true;
+    }
+
+    private static final class Buffers {
+        long[] peq = new long[ALPHABET];
+        long[] pv = new long[1];
+        long[] mv = new long[1];
+
+        void ensure(int blocks) {
+            if (peq.length < ALPHABET * blocks) peq = new long[ALPHABET * blocks];
+            if (pv.length < blocks) {
+                pv = new long[blocks];
+                mv = new long[blocks];
+            }
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package lost_and_found_system;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Streams found items from a CSV or JSON-lines dump into the registry, BATCH rows at a time.
+// CSV: a header row names the columns; quoted fields ("" for a quote) may span lines.
+// JSON lines: one flat object per line; string, number, true/false and null values.
+// Column / key names are matched ignoring case and anything but letters and digits, so "U-Number",
+// "u_number" and "unumber" are the same field. Fields a category doesn't use are ignored.
+// Every row is checked like the desk checks it: a known category, a name, and a date found in
+// dd-MM-yyyy that is not in the future (the rules of validateDate). combinedDescription is put
+// together per category in the order registerFound asks for the fields, each one normalized
+// (TextNormalizer), and kept field by field (ItemFields). A bad row is counted and reported with its
+// line number; it never stops the import.
+// Parsing and registering overlap: a batch is registered on a second thread while the next one is
+// read. Memory stays bounded at two batches of rows plus the reader's buffer, whatever the file size.
+final class BulkImporter {
+    static final int BATCH = 8192;
+    static final List<String> CATEGORIES = Arrays.asList("Electronics", "Daily Use", "Stationary", "Accessories", "Miscellaneous", "ID Card");
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-uuuu")
+        .withResolverStyle(ResolverStyle.STRICT);      // 31-02 is an error, not the last day of February
+    private static final int MAX_CACHED_DATES = 4096;
+    private static final int MAX_REPORTED = 100;        // rejected rows listed one by one, the rest are only counted
+
+    // One checked row, ready to register
+    static final class Row {
+        final String category;
+        final String name;
+        final String combined;      // the fields, ItemFields.encode'd (TextNormalizer makes it plain text)
+
+        Row(String category, String name, String combined) {
+            this.category = category;
+            this.name = name;
+            this.combined = combined;
+        }
+    }
+
+    // Takes one batch, on the importer's own thread; an exception stops the import
+    interface Sink {
+        void register(List<Row> batch);
+    }
+
+    static final class Result {
+        long imported;
+        long rejected;
+        long nanos;
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format("%d imported, %d rejected in %.2f s (%.0f rows/s)",
+                imported, rejected, seconds, seconds > 0 ? (imported + rejected) / seconds : 0.0);
+        }
+    }
+
+    private final Sink sink;
+    private final PrintStream rejects;          // one line per rejected row, up to MAX_REPORTED
+    private final LocalDate today;              // "not in the future" is judged against the day the import started
+    private final HashMap<String, String> dateChecks = new HashMap<>();     // date string -> null if fine, else the reason
+    private final Map<String, String> categoryNames = new HashMap<>();
+    private ExecutorService registrar;          // one thread, at most one batch in flight
+    private Future<?> inFlight;
+    private int inFlightRows;
+
+    BulkImporter(Sink sink, PrintStream rejects) {
+        this.sink = sink;
+        this.rejects = rejects;
+        this.today = LocalDate.now();
+        for (String c : CATEGORIES) categoryNames.put(key(c), c);
+    }
+
+    // Format by extension: .csv is CSV, anything else is read as JSON lines
+    Result importFile(Path file) throws IOException {
+        boolean csv = file.getFileName().toString().toLowerCase().endsWith(".csv");
+        try (Reader in = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            return csv ? importCsv(in) : importJsonLines(in);
+        }
+    }
+
+    Result importCsv(Reader in) throws IOException {
+        start();
+        try {
+            return readCsv(in);
+        } finally {
+            stop();
+        }
+    }
+
+    Result importJsonLines(Reader in) throws IOException {
+        start();
+        try {
+            return readJsonLines(in);
+        } finally {
+            stop();
+        }
+    }
+
+    private Result readCsv(Reader in) throws IOException {
+        long start = System.nanoTime();
+        Result result = new Result();
+        CsvReader csv = new CsvReader(in);
+        List<String> header = csv.next();
+        if (header == null) return result;
+        String[] keys = new String[header.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = key(header.get(i));
+
+        List<Row> batch = new ArrayList<>(BATCH);
+        HashMap<String, String> fields = new HashMap<>();
+        for (List<String> record; (record = csv.next()) != null; ) {
+            if (record.size() == 1 && record.get(0).isEmpty()) continue;      // blank line
+            fields.clear();
+            for (int i = 0; i < keys.length && i < record.size(); i++) fields.put(keys[i], record.get(i));
+            accept(fields, csv.recordLine, batch, result);
+        }
+        flush(batch, result);
+        await(result);
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private Result readJsonLines(Reader in) throws IOException {
+        long start = System.nanoTime();
+        Result result = new Result();
+        BufferedReader lines = new BufferedReader(in, 1 << 16);
+        List<Row> batch = new ArrayList<>(BATCH);
+        HashMap<String, String> fields = new HashMap<>();
+        long lineNo = 0;
+        for (String line; (line = lines.readLine()) != null; ) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            fields.clear();
+            try {
+                parseJsonObject(line, fields);
+            } catch (IllegalArgumentException e) {
+                reject(result, lineNo, e.getMessage());
+                continue;
+            }
+            accept(fields, lineNo, batch, result);
+        }
+        flush(batch, result);
+        await(result);
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private void accept(Map<String, String> fields, long line, List<Row> batch, Result result) {
+        String category = categoryNames.get(key(field(fields, "category")));
+        if (category == null) {
+            reject(result, line, "unknown category '" + field(fields, "category") + "'");
+            return;
+        }
+        String name = field(fields, "name");
+        if (name.isEmpty()) {
+            reject(result, line, "no name");
+            return;
+        }
+        String date = field(fields, "date");
+        String problem = checkDate(date);
+        if (problem != null) {
+            reject(result, line, problem);
+            return;
+        }
+        batch.add(new Row(category, name, combine(category, fields)));
+        if (batch.size() == BATCH) flush(batch, result);
+    }
+
+    // Hands the batch to the registrar thread, after the one before it is done
+    private void flush(List<Row> batch, Result result) {
+        if (batch.isEmpty()) return;
+        await(result);
+        List<Row> rows = new ArrayList<>(batch);
+        inFlight = registrar.submit(() -> sink.register(rows));
+        inFlightRows = rows.size();
+        batch.clear();
+    }
+
+    private void await(Result result) {
+        if (inFlight == null) return;
+        try {
+            inFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            inFlight = null;
+        }
+        result.imported += inFlightRows;
+    }
+
+    private void start() {
+        registrar = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "bulk-import");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // After a failure the batch still in flight is left to finish; nothing new is started
+    private void stop() {
+        registrar.shutdown();
+        inFlight = null;
+    }
+
+    private void reject(Result result, long line, String reason) {
+        result.rejected++;
+        if (rejects == null || result.rejected > MAX_REPORTED) return;
+        rejects.println("line " + line + ": " + reason);
+        if (result.rejected == MAX_REPORTED) rejects.println("(further rejected rows are only counted)");
+    }
+
+    // Same fields, same order as registerFound asks for them, normalized and encoded for Item
+    static String combine(String category, Map<String, String> fields) {
+        String[] order = ItemFields.order(category);
+        String[] values = new String[order.length];
+        for (int i = 0; i < order.length; i++) values[i] = field(fields, order[i]);
+        return ItemFields.encode(ItemFields.normalize(values, order.length));
+    }
+
+    // null if the date is fine, otherwise why not. Dumps repeat the same few dates over and over,
+    // so the answers are cached
+    private String checkDate(String date) {
+        if (dateChecks.containsKey(date)) return dateChecks.get(date);
+        String problem;
+        try {
+            problem = LocalDate.parse(date, DATE_FORMAT).isAfter(today)
+                ? "date " + date + " is in the future"
+                : null;
+        } catch (DateTimeParseException e) {
+            problem = "invalid date '" + date + "', use dd-MM-yyyy";
+        }
+        if (dateChecks.size() == MAX_CACHED_DATES) dateChecks.clear();
+        dateChecks.put(date, problem);
+        return problem;
+    }
+
+    static String field(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        return value == null ? "" : value.trim();
+    }
+
+    // Lower case letters and digits only
+    static String key(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    // Flat JSON object: string keys, values string / number / true / false / null (null = missing)
+    static void parseJsonObject(String line, Map<String, String> out) {
+        int[] pos = {skipSpace(line, 0)};
+        expect(line, pos, '{');
+        if (peek(line, pos) == '}') {
+            pos[0]++;
+        } else {
+            while (true) {
+                String key = jsonString(line, pos);
+                expect(line, pos, ':');
+                String value = jsonValue(line, pos);
+                if (value != null) out.put(key(key), value);
+                char c = next(line, pos);
+                if (c == '}') break;
+                if (c != ',') throw new IllegalArgumentException("expected ',' or '}' at column " + pos[0]);
+            }
+        }
+        if (skipSpace(line, pos[0]) != line.length()) throw new IllegalArgumentException("text after the object");
+    }
+
+    private static String jsonValue(String s, int[] pos) {
+        char c = peek(s, pos);
+        if (c == '"') return jsonString(s, pos);
+        int start = pos[0];
+        while (pos[0] < s.length() && ",} \t".indexOf(s.charAt(pos[0])) < 0) pos[0]++;
+        String word = s.substring(start, pos[0]);
+        if (word.equals("null")) return null;
+        if (word.equals("true") || word.equals("false")) return word;
+        if (!word.isEmpty() && (word.charAt(0) == '-' || Character.isDigit(word.charAt(0)))) return word;
+        throw new IllegalArgumentException("unsupported value at column " + (start + 1) + " (nested objects and arrays are not)");
+    }
+
+    private static String jsonString(String s, int[] pos) {
+        expect(s, pos, '"');
+        StringBuilder sb = null;
+        int start = pos[0];
+        while (true) {
+            if (pos[0] >= s.length()) throw new IllegalArgumentException("unterminated string");
+            char c = s.charAt(pos[0]++);
+            if (c == '"') break;
+            if (c != '\\') {
+                if (sb != null) sb.append(c);
+                continue;
+            }
+            if (sb == null) sb = new StringBuilder(s.substring(start, pos[0] - 1));
+            if (pos[0] >= s.length()) throw new IllegalArgumentException("unterminated string");
+            char e = s.charAt(pos[0]++);
+            switch (e) {
+                case 'n' -> sb.append('\n');
+                case 't' -> sb.append('\t');
+                case 'r' -> sb.append('\r');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (pos[0] + 4 > s.length()) throw new IllegalArgumentException("bad \\u escape");
+                    try {
+                        sb.append((char) Integer.parseInt(s.substring(pos[0], pos[0] + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException("bad \\u escape");
+                    }
+                    pos[0] += 4;
+                }
+                default -> sb.append(e);        // \" \\ \/
+            }
+        }
+        return sb == null ? s.substring(start, pos[0] - 1) : sb.toString();
+    }
+
+    private static void expect(String s, int[] pos, char c) {
+        if (next(s, pos) != c) throw new IllegalArgumentException("expected '" + c + "' at column " + pos[0]);
+    }
+
+    private static char next(String s, int[] pos) {
+        char c = peek(s, pos);
+        pos[0]++;
+        return c;
+    }
+
+    private static char peek(String s, int[] pos) {
+        pos[0] = skipSpace(s, pos[0]);
+        if (pos[0] >= s.length()) throw new IllegalArgumentException("unexpected end of line");
+        return s.charAt(pos[0]);
+    }
+
+    private static int skipSpace(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    // RFC 4180 records straight off a Reader: quoted fields may hold commas, quotes ("") and line breaks
+    static final class CsvReader {
+        private final Reader in;
+        private final char[] buf = new char[1 << 16];
+        private int pos, len;
+        private long line = 1;
+        long recordLine;                        // line the last record started on
+        private final StringBuilder field = new StringBuilder();
+
+        CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        // Next record, or null at the end of the input
+        List<String> next() throws IOException {
+            int c = read();
+            if (c < 0) return null;
+            recordLine = line;
+            List<String> record = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) throw new IOException("line " + recordLine + ": unterminated quoted field");
+                    if (c == '"') {
+                        int n = read();
+                        if (n == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = n;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r' || c < 0) {
+                    if (c == '\r') {
+                        int n = read();
+                        if (n != '\n' && n >= 0) pos--;         // lone \r, keep the next char
+                    }
+                    if (c >= 0) line++;
+                    record.add(field.toString());
+                    return record;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (pos == len) {
+                len = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++];
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package lost_and_found_system;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// All search structures for one category, kept in step by registerFound and claimItem.
+// Searches are exact through the trigram index (count filter, then edit distance on what is left).
+// Large categories first ask the BM25 word index for the best RERANK_CANDIDATES items and score
+// those. If they fill the top k, that is the answer - the trade-off: an item outside the candidates
+// that would still have scored above the k-th best is not found (a description sharing few of the
+// query's words, e.g. all of them misspelt). If they don't, the trigram search goes over the rest
+// of the category, so a search with fewer than k good candidates is as exact as in a small one.
+// searchFields does the same for a report given field by field, scored per field with the
+// category's weights, scanning every other live slot in place of the trigram search.
+// Safe to share between threads, and a search never makes add / remove wait: updates go into a
+// queue and are applied under the write lock only if it is free right away; otherwise the last
+// search to finish applies them. Searches hold the read lock and treat whatever is still queued
+// as applied (queued removals are filtered out, queued additions are scored directly).
+// withinDistance / nearest answer the plain edit-distance queries (every item within d edits, the k
+// nearest). The BK tree prunes well for a few edits, the trigram count filter for more
+// (SearchBenchmark.MetricQueries), so radii up to TREE_RADIUS and nearest go to the tree and larger
+// radii to the trigram index. The tree is only needed by those queries, so it is built on first use.
+// The word and trigram indexes share the category's ItemColumns: postings hold slots, and the
+// descriptions are scored from its byte columns. A claim only tombstones its slot; once more than half the
+// slots are dead, the live items are copied into fresh columns and indexes on a background thread
+// while searches go on, and the updates made in the meantime are replayed onto them at the swap.
+final class CategoryIndex {
+    static final int RERANK_CANDIDATES = 300;
+    static final int COMPACT_MIN_DEAD = 64;     // fewer dead slots than this are never worth a compaction
+    static final int TREE_RADIUS = 5;           // withinDistance goes to the BK tree up to this many edits
+
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "index-compaction");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final ThreadLocal<Description.View> TEXT = ThreadLocal.withInitial(Description.View::new);
+
+    private final DistanceStrategy metric;
+    private BKTree tree;                // null until withinDistance / nearest first needs it
+    private Slots slots = new Slots();  // swapped for a compacted copy under the write lock
+    private List<Update> sinceCompaction;   // non-null while a compaction runs: what it has to replay
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentLinkedQueue<Update> pending = new ConcurrentLinkedQueue<>();
+    private volatile long version;      // bumped whenever queued updates are applied
+
+    CategoryIndex(DistanceStrategy metric) {
+        this.metric = metric;
+    }
+
+    void add(Item item) {
+        pending.add(new Update(item, true));
+        applyPending();
+    }
+
+    // A whole batch under one write lock (bulk import)
+    void addAll(Collection<Item> items) {
+        for (Item item : items) pending.add(new Update(item, true));
+        applyPending();
+    }
+
+    void remove(Item item) {
+        pending.add(new Update(item, false));
+        applyPending();
+    }
+
+    // Never waits: if a search holds the read lock, it applies the queue itself once it is done
+    private void applyPending() {
+        while (!pending.isEmpty() && lock.writeLock().tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Caller holds the write lock
+    private void drain() {
+        for (Update u; (u = pending.poll()) != null; ) {
+            version++;
+            if (tree != null) {
+                if (u.add) tree.add(u.item);
+                else tree.remove(u.item);
+            }
+            slots.apply(u);
+            if (sinceCompaction != null) sinceCompaction.add(u);
+        }
+        ItemColumns columns = slots.columns;
+        if (sinceCompaction == null && columns.dead() > columns.size() && columns.dead() >= COMPACT_MIN_DEAD) {
+            List<Item> live = columns.liveItems();
+            sinceCompaction = new ArrayList<>();
+            COMPACTOR.execute(() -> compact(live));
+        }
+    }
+
+    // Indexes the live items into fresh slots without holding the lock, catches up with the updates
+    // made meanwhile (still without it, as far as it can), then swaps them in under the write lock
+    private void compact(List<Item> live) {
+        Slots fresh = new Slots();
+        int replayed = 0;
+        try {
+            for (Item item : live) fresh.apply(new Update(item, true));
+            for (int round = 0; round < 3; round++) {
+                List<Update> missed;
+                lock.readLock().lock();
+                try {
+                    missed = new ArrayList<>(sinceCompaction.subList(replayed, sinceCompaction.size()));
+                } finally {
+                    lock.readLock().unlock();
+                }
+                if (missed.isEmpty()) break;
+                for (Update u : missed) fresh.apply(u);
+                replayed += missed.size();
+            }
+        } catch (RuntimeException | Error e) {
+            lock.writeLock().lock();
+            try {
+                sinceCompaction = null;             // keep the old slots, tombstones and all
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            drain();
+            for (Update u : sinceCompaction.subList(replayed, sinceCompaction.size())) fresh.apply(u);
+            slots = fresh;
+            sinceCompaction = null;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Best k items scoring above minScore, best first, with the same score similarityScore gives
+    List<Map.Entry<Item, Double>> search(String query, double minScore, int k) {
+        TopK best = new TopK(k);
+        search(query, minScore, best);
+        return best.drain();
+    }
+
+    // Items of the category that never reach the distance kernel are counted as pruned in `best`
+    void search(String query, double minScore, TopK best) {
+        search(query, null, null, minScore, best);
+    }
+
+    // Same, with `candidates` (IncrementalSearch's, from rerankCandidates) in place of asking the word
+    // index again, those claimed since left out; and the trigram search skipping what `carried`
+    // (IncrementalSearch's too, may be null) proved about the last query
+    void search(String query, List<Item> candidates, TrigramIndex.Bounds carried, double minScore, TopK best) {
+        searchWith(best, (into, items) -> searchIndexed(query, candidates, carried, minScore, into, items),
+            item -> score(query, item, metric, minScore, best));
+    }
+
+    // Best matches of a report given field by field (values normalized, in ItemFields.order of the
+    // category), scored with the category's weights. Items stored without fields are scored on their
+    // whole description against the joined values, as search() would
+    void searchFields(ItemFields profile, String[] query, double minScore, TopK best) {
+        String joined = ItemFields.join(query);
+        searchWith(best, (into, items) -> searchFieldsIndexed(profile, query, joined, minScore, into, items),
+            item -> score(profile, query, joined, item, minScore, best));
+    }
+
+    private interface IndexedSearch {
+        void search(TopK into, int items);      // `items`: the size of the category once the queue is applied
+    }
+
+    // Runs `indexed` over the slots and `queued` on every addition still in the queue; the results of
+    // queued removals are dropped
+    private void searchWith(TopK best, IndexedSearch indexed, Consumer<Item> queued) {
+        long scoredBefore = best.scoredCount();
+        lock.readLock().lock();
+        try {
+            // the queue can only grow while the read lock is held, so this view stays valid
+            HashMap<Item, Boolean> waiting = new HashMap<>();
+            for (Update u : pending) waiting.put(u.item, u.add);
+            int items = slots.columns.size();
+            if (waiting.isEmpty()) {
+                indexed.search(best, items);
+            } else {
+                int removed = 0;
+                for (boolean add : waiting.values()) {
+                    if (!add) removed++;
+                }
+                items += waiting.size() - 2 * removed;
+                TopK fromSlots = best.fork(best.k() + removed);
+                // the size the category will have decides between exact and ranked, not the
+                // removals still waiting to be applied
+                indexed.search(fromSlots, items);
+                best.addCounts(fromSlots);
+                for (Map.Entry<Item, Double> e : fromSlots.drain()) {
+                    if (waiting.getOrDefault(e.getKey(), true)) best.offer(e.getKey(), e.getValue());
+                }
+                for (Map.Entry<Item, Boolean> e : waiting.entrySet()) {
+                    if (e.getValue()) queued.accept(e.getKey());
+                }
+            }
+            best.pruned(Math.max(0, items - (best.scoredCount() - scoredBefore)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        applyPending();
+    }
+
+    private void searchIndexed(String query, List<Item> given, TrigramIndex.Bounds carried, double minScore, TopK best, int items) {
+        int[] candidates = null;
+        if (items > RERANK_CANDIDATES) {
+            candidates = given == null ? slots.tokens.topCandidates(query, RERANK_CANDIDATES) : slotsOf(given);
+            Description.View text = TEXT.get();
+            byte[] bytes = TextNormalizer.latin1(query);
+            for (int slot : candidates) {
+                if (best.isCancelled()) return;
+                score(query, bytes, slots.columns, slot, text, metric, minScore, best);
+            }
+            if (best.isFull()) return;
+            // too few candidates (or none: typos only) make it above minScore, look at the rest
+            Arrays.sort(candidates);
+        }
+        slots.grams.search(query, metric, minScore, best, candidates, carried);
+    }
+
+    // Large categories score the BM25 candidates of the joined values first, like search(); small
+    // ones (or too few good candidates) every other live slot, which the short per-field kernels
+    // keep affordable, split over the pool like a trigram search
+    private void searchFieldsIndexed(ItemFields profile, String[] query, String joined, double minScore, TopK best, int items) {
+        ItemColumns columns = slots.columns;
+        int[] candidates = null;
+        if (items > RERANK_CANDIDATES) {
+            candidates = slots.tokens.topCandidates(joined, RERANK_CANDIDATES);
+            for (int slot : candidates) {
+                if (best.isCancelled()) return;
+                score(profile, query, joined, columns.item(slot), minScore, best);
+            }
+            if (best.isFull()) return;
+            Arrays.sort(candidates);
+        }
+        int[] skip = candidates;
+        TrigramIndex.split(columns.slotCount(), minScore, best, (floor, into, lo, hi) -> {
+            for (int slot = lo; slot < hi; slot++) {
+                if (((slot - lo) & 1023) == 0 && into.isCancelled()) return;
+                if (!columns.isLive(slot) || (skip != null && Arrays.binarySearch(skip, slot) >= 0)) continue;
+                score(profile, query, joined, columns.item(slot), floor, into);
+            }
+        });
+    }
+
+    // Live slots of the given items; caller holds the read lock
+    private int[] slotsOf(List<Item> items) {
+        ItemColumns columns = slots.columns;
+        int[] out = new int[items.size()];
+        int n = 0;
+        for (Item item : items) {
+            int slot = columns.slot(item.id);
+            if (slot >= 0 && columns.isLive(slot)) out[n++] = slot;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // What changes the ranked candidates of a query: the indexed words it contains and the version of
+    // the index. Lets IncrementalSearch keep a candidate list across keystrokes. Null while updates
+    // are still queued (search() scores those separately, a cached list wouldn't have them)
+    List<Object> candidateKey(String query) {
+        lock.readLock().lock();
+        try {
+            if (!pending.isEmpty() || slots.columns.size() <= RERANK_CANDIDATES) return null;
+            List<String> words = slots.tokens.indexedWords(query);
+            return words.isEmpty() ? null : Arrays.asList(version, words);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The BM25 candidates search() would score first for this query, or null where it goes straight
+    // to the trigram search (small category, no word in common, updates still queued)
+    List<Item> rerankCandidates(String query) {
+        lock.readLock().lock();
+        try {
+            if (!pending.isEmpty() || slots.columns.size() <= RERANK_CANDIDATES) return null;
+            int[] candidates = slots.tokens.topCandidates(query, RERANK_CANDIDATES);
+            if (candidates.length == 0) return null;
+            List<Item> items = new ArrayList<>(candidates.length);
+            for (int slot : candidates) items.add(slots.columns.item(slot));
+            return items;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every item within edit distance maxDistance of the query, nearest first (ties on the lower id)
+    List<Item> withinDistance(String query, int maxDistance) {
+        if (maxDistance <= TREE_RADIUS) {
+            lock.writeLock().lock();
+            try {
+                return tree().withinDistance(query, maxDistance);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        List<Map.Entry<Item, Integer>> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            HashMap<Item, Boolean> waiting = new HashMap<>();
+            for (Update u : pending) waiting.put(u.item, u.add);
+            ItemColumns columns = slots.columns;
+            slots.grams.within(query, metric, maxDistance, (slot, d) -> {
+                Item item = columns.item(slot);
+                if (waiting.getOrDefault(item, true)) found.add(Map.entry(item, d));
+            });
+            for (Map.Entry<Item, Boolean> e : waiting.entrySet()) {
+                Item item = e.getKey();
+                if (!e.getValue() || columns.slot(item.id) >= 0) continue;
+                int d = metric.distance(query, item.combinedDescription, maxDistance);
+                if (d <= maxDistance) found.add(Map.entry(item, d));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        applyPending();
+        found.sort(Comparator.comparing((Map.Entry<Item, Integer> e) -> e.getValue()).thenComparingInt(e -> e.getKey().id));
+        List<Item> items = new ArrayList<>(found.size());
+        for (Map.Entry<Item, Integer> e : found) items.add(e.getKey());
+        return items;
+    }
+
+    // The k items nearest to the query by edit distance, nearest first (ties on the lower id)
+    List<Item> nearest(String query, int k) {
+        lock.writeLock().lock();
+        try {
+            return tree().nearest(query, k);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The tree queries bring it up to date first, so they run under the write lock (searches wait
+    // for them, registrations still don't)
+    private BKTree tree() {
+        drain();
+        if (tree == null) {
+            tree = new BKTree(metric);
+            slots.columns.liveItems().forEach(tree::add);
+        }
+        return tree;
+    }
+
+    // Best k items over several categories: every category is searched concurrently on the common
+    // pool into its own TopK, then the partial results are merged by score (ties on Item.id)
+    static List<Map.Entry<Item, Double>> searchAll(Collection<CategoryIndex> indexes, String query, double minScore, int k) {
+        TopK best = new TopK(k);
+        searchAll(indexes, query, minScore, best);
+        return best.drain();
+    }
+
+    static void searchAll(Collection<CategoryIndex> indexes, String query, double minScore, TopK best) {
+        List<CompletableFuture<TopK>> parts = new ArrayList<>(indexes.size());
+        for (CategoryIndex index : indexes) {
+            parts.add(CompletableFuture.supplyAsync(() -> {
+                TopK local = best.fork(best.k());
+                index.search(query, minScore, local);
+                return local;
+            }));
+        }
+        for (CompletableFuture<TopK> part : parts) best.addAll(part.join());
+    }
+
+    // Scores one item and offers it if it beats minScore
+    static void score(String query, Item item, DistanceStrategy metric, double minScore, TopK best) {
+        double score = score(query, item.combinedDescription, metric, minScore, best);
+        if (score >= 0) best.offer(item, score);
+    }
+
+    // Field by field when the item has fields, otherwise on its whole description
+    private void score(ItemFields profile, String[] query, String joined, Item item, double minScore, TopK best) {
+        if (item.fields == null) {
+            score(joined, item, metric, minScore, best);
+            return;
+        }
+        double score = profile.score(item.fields, query, metric, minScore, best);
+        if (score >= 0) best.offer(item, score);
+    }
+
+    // Same for a slot, scored in place from the columns; the Item is only read if it makes the top k.
+    // `bytes` is the query in Latin-1 (TextNormalizer.latin1, null if it doesn't fit): Latin-1 slots
+    // then go through the byte kernel, the rest through the CharSequence one.
+    // Returns what the kernel proved: the distance, or a lower bound on it (cutoff + 1); 0 if it didn't run
+    static int score(String query, byte[] bytes, ItemColumns columns, int slot, Description.View text,
+                     DistanceStrategy metric, double minScore, TopK best) {
+        int length = columns.length(slot);
+        int limit = limit(query.length(), length, minScore, best);
+        if (limit < 0) return 0;
+        int d = bytes != null && columns.isLatin1(slot)
+            ? columns.distance(bytes, slot, metric, limit)
+            : metric.distance(query, columns.description(slot, text), limit);
+        double score = similarity(d, limit, Math.max(query.length(), length), minScore);
+        if (score >= 0 && best.accepts(score, columns.id(slot))) best.offer(columns.item(slot), score);
+        return d;
+    }
+
+    // Score of one description, or -1 if it can't beat minScore. The distance kernel stops as soon as
+    // the item can no longer reach the current k-th best (ties are kept, the lower id may still win)
+    static double score(String query, CharSequence desc, DistanceStrategy metric, double minScore, TopK best) {
+        int limit = limit(query.length(), desc.length(), minScore, best);
+        if (limit < 0) return -1;
+        return similarity(metric.distance(query, desc, limit), limit, Math.max(query.length(), desc.length()), minScore);
+    }
+
+    // The distance cutoff for a pair of lengths (-1: it can't score), counted in `best` as scored
+    private static int limit(int queryLength, int length, double minScore, TopK best) {
+        int maxLength = Math.max(queryLength, length);
+        if (maxLength == 0) return 0;
+        int limit = EditDistance.maxDistance(maxLength, minScore);
+        if (best.isFull()) limit = Math.min(limit, EditDistance.maxDistance(maxLength, best.floor()) + 1);
+        if (limit < 0) return -1;
+        best.scored((long) Math.min(queryLength, length) * Math.min(maxLength, 2 * limit + 1));     // the band the kernel may fill
+        return limit;
+    }
+
+    private static double similarity(int d, int limit, int maxLength, double minScore) {
+        if (maxLength == 0) return 1.0;
+        if (d > limit) return -1;
+        double score = 1.0 - ((double) d / maxLength);
+        return score > minScore ? score : -1;
+    }
+
+    // The columns and the two indexes over their slots, always replaced together
+    private static final class Slots {
+        final ItemColumns columns = new ItemColumns();
+        final TokenIndex tokens = new TokenIndex(columns);
+        final TrigramIndex grams = new TrigramIndex(columns);
+
+        void apply(Update u) {
+            if (u.add) {
+                int slot = columns.add(u.item);
+                if (slot < 0) return;
+                tokens.add(slot, u.item.combinedDescription.toString());
+                grams.add(slot, u.item.combinedDescription);
+            } else {
+                int slot = columns.remove(u.item);
+                if (slot >= 0) tokens.remove(slot);
+            }
+        }
+    }
+
+    private static final class Update {
+        final Item item;
+        final boolean add;          // false = remove
+
+        Update(Item item, boolean add) {
+            this.item = item;
+            this.add = add;
+        }
+    }
+}
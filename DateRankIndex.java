@@ -0,0 +1,111 @@
+package lost_and_found_system;
+
+import java.util.Arrays;
+
+// Live items ordered by the day they were found, then by id: how many come before a given item or
+// day, and which item is the r-th, both in O(log n). The same queries IdRankIndex answers for id
+// order, so the "View All" table can sort and filter by date without copying items out either.
+// Each day that has had an item keeps its ids sorted (ids are handed out in increasing order, so an
+// id is nearly always appended), and a Fenwick tree over the days counts the items up to each day.
+// Undated items (no date field, or one that doesn't parse) are kept under NO_DATE, after every date.
+final class DateRankIndex {
+    static final int NO_DATE = Integer.MAX_VALUE;
+
+    private int[] days = new int[0];            // every day that has had an item, ascending
+    private int[][] ids = new int[0][];         // ids found on days[i], ascending, in ids[i][0 .. counts[i])
+    private int[] counts = new int[0];
+    private int[] tree = new int[1];            // 1-based Fenwick tree over counts
+    private int size;
+
+    synchronized int size() {
+        return size;
+    }
+
+    // The caller makes sure the id is not in the set yet
+    synchronized void add(int day, int id) {
+        int d = Arrays.binarySearch(days, day);
+        if (d < 0) d = addDay(-d - 1, day);
+        int n = counts[d];
+        int[] list = ids[d];
+        if (n == list.length) list = ids[d] = Arrays.copyOf(list, Math.max(4, n * 2));
+        int at = n == 0 || list[n - 1] < id ? n : -Arrays.binarySearch(list, 0, n, id) - 1;
+        System.arraycopy(list, at, list, at + 1, n - at);
+        list[at] = id;
+        counts[d]++;
+        for (int i = d + 1; i < tree.length; i += i & -i) tree[i]++;
+        size++;
+    }
+
+    // The caller makes sure the id is in the set, under this day
+    synchronized void remove(int day, int id) {
+        int d = Arrays.binarySearch(days, day);
+        int[] list = ids[d];
+        int at = Arrays.binarySearch(list, 0, counts[d], id);
+        System.arraycopy(list, at + 1, list, at, counts[d] - at - 1);
+        counts[d]--;
+        for (int i = d + 1; i < tree.length; i += i & -i) tree[i]--;
+        size--;
+    }
+
+    // Number of live items found before `day`
+    synchronized int countBefore(int day) {
+        int d = Arrays.binarySearch(days, day);
+        return prefix(d < 0 ? -d - 1 : d);
+    }
+
+    // Number of live items before this one in (day, id) order
+    synchronized int rankOf(int day, int id) {
+        int d = Arrays.binarySearch(days, day);
+        if (d < 0) return prefix(-d - 1);
+        int at = Arrays.binarySearch(ids[d], 0, counts[d], id);
+        return prefix(d) + (at < 0 ? -at - 1 : at);
+    }
+
+    // The id with `rank` live items before it in (day, id) order, or -1 if there are not that many
+    synchronized int select(int rank) {
+        if (rank < 0 || rank >= size) return -1;
+        int pos = 0, remaining = rank + 1;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>>= 1) {
+            if (pos + step < tree.length && tree[pos + step] < remaining) {
+                pos += step;
+                remaining -= tree[pos];
+            }
+        }
+        return ids[pos][remaining - 1];         // Fenwick index pos + 1, i.e. days[pos]
+    }
+
+    // Items on the first d days
+    private int prefix(int d) {
+        int sum = 0;
+        for (int i = d; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    // A day seen for the first time goes in at `at`; the tree is rebuilt around it. New days are
+    // rare next to new items (one a day at the desk, a few thousand in a whole import)
+    private int addDay(int at, int day) {
+        int n = days.length;
+        days = insert(days, at, day);
+        counts = insert(counts, at, 0);
+        int[][] more = new int[n + 1][];
+        System.arraycopy(ids, 0, more, 0, at);
+        System.arraycopy(ids, at, more, at + 1, n - at);
+        more[at] = new int[4];
+        ids = more;
+        tree = new int[n + 2];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent < tree.length) tree[parent] += tree[i];
+        }
+        return at;
+    }
+
+    private static int[] insert(int[] array, int at, int value) {
+        int[] out = new int[array.length + 1];
+        System.arraycopy(array, 0, out, 0, at);
+        out[at] = value;
+        System.arraycopy(array, at, out, at + 1, array.length - at);
+        return out;
+    }
+}
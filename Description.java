@@ -0,0 +1,99 @@
+package lost_and_found_system;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// An item's combined description, normalized once (TextNormalizer) and kept once: as Latin-1 bytes,
+// one per char. ItemColumns hands those bytes to the byte kernels in place; everything else reads
+// the description as a CharSequence and only a display or the log decodes it (toString).
+// With accents folded nearly every description fits; one with a char above Latin-1 keeps its
+// String instead (`wide`). Equal by content, so it keys the description index like a String.
+final class Description implements CharSequence {
+    private static final ThreadLocal<View[]> VIEWS = ThreadLocal.withInitial(() -> new View[] {new View(), new View()});
+
+    private final byte[] bytes;         // null for a wide description
+    private final String wide;
+    private int hash;
+
+    Description(String normalized) {
+        this.bytes = TextNormalizer.latin1(normalized);
+        this.wide = bytes == null ? normalized : null;
+    }
+
+    // The Latin-1 bytes, read in place and never changed; null if the text doesn't fit
+    byte[] bytes() {
+        return bytes;
+    }
+
+    @Override
+    public int length() {
+        return bytes != null ? bytes.length : wide.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return bytes != null ? (char) (bytes[index] & 0xFF) : wide.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return toString().substring(from, to);
+    }
+
+    @Override
+    public String toString() {
+        return bytes != null ? new String(bytes, StandardCharsets.ISO_8859_1) : wide;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Description)) return false;
+        Description other = (Description) o;
+        return bytes != null ? Arrays.equals(bytes, other.bytes) : wide.equals(other.wide);
+    }
+
+    @Override
+    public int hashCode() {
+        if (hash == 0) hash = bytes != null ? Arrays.hashCode(bytes) : wide.hashCode();
+        return hash;
+    }
+
+    // Two views per thread over Latin-1 byte ranges, for kernels that only take CharSequences
+    // (DistanceStrategy's byte overload); re-pointed on every call, so nothing is allocated
+    static View[] views() {
+        return VIEWS.get();
+    }
+
+    // A byte range read in place as chars
+    static final class View implements CharSequence {
+        private byte[] bytes;
+        private int start, length;
+
+        View at(byte[] bytes, int start, int length) {
+            this.bytes = bytes;
+            this.start = start;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[start + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
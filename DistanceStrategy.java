@@ -0,0 +1,51 @@
+package lost_and_found_system;
+
+// Pluggable Levenshtein kernel behind similarityScore.
+// Every implementation must return the exact distance when it is <= maxDistance and
+// maxDistance + 1 otherwise, so scores never depend on which kernel is plugged in.
+// The byte overload scores Latin-1 text in place (a Description's bytes against the query's);
+// both built-in kernels have a byte loop of their own, anything else gets the thread's two
+// Description.Views over the bytes.
+@FunctionalInterface
+interface DistanceStrategy {
+    DistanceStrategy DP = new DistanceStrategy() {
+        @Override
+        public int distance(CharSequence a, CharSequence b, int maxDistance) {
+            return EditDistance.distance(a, b, maxDistance);
+        }
+
+        @Override
+        public int distance(byte[] a, int aFrom, int aLength, byte[] b, int bFrom, int bLength, int maxDistance) {
+            return EditDistance.distance(a, aFrom, aLength, b, bFrom, bLength, maxDistance);
+        }
+    };
+    DistanceStrategy BIT_PARALLEL = new DistanceStrategy() {
+        @Override
+        public int distance(CharSequence a, CharSequence b, int maxDistance) {
+            return BitParallelDistance.distance(a, b, maxDistance);
+        }
+
+        @Override
+        public int distance(byte[] a, int aFrom, int aLength, byte[] b, int bFrom, int bLength, int maxDistance) {
+            return BitParallelDistance.distance(a, aFrom, aLength, b, bFrom, bLength, maxDistance);
+        }
+    };
+
+    int distance(CharSequence a, CharSequence b, int maxDistance);
+
+    default int distance(byte[] a, int aFrom, int aLength, byte[] b, int bFrom, int bLength, int maxDistance) {
+        Description.View[] views = Description.views();
+        return distance(views[0].at(a, aFrom, aLength), views[1].at(b, bFrom, bLength), maxDistance);
+    }
+
+    // 1 - distance / longer length, as in similarityScore; 0 once it can no longer beat minScore
+    default double similarity(CharSequence a, CharSequence b, double minScore) {
+        int maxLength = Math.max(a.length(), b.length());
+        if (maxLength == 0) return 1.0;
+        int limit = EditDistance.maxDistance(maxLength, minScore);
+        if (limit < 0) return 0.0;
+        int distance = distance(a, b, limit);
+        if (distance > limit) return 0.0;
+        return 1.0 - ((double) distance / maxLength);
+    }
+}
@@ -0,0 +1,131 @@
+package lost_and_found_system;
+
+// Levenshtein distance kernel shared by both front ends.
+// Keeps only two DP rows, reused per thread, so scoring a whole category allocates nothing per item.
+// With a cutoff only the diagonal band |i - j| <= maxDistance is filled (Ukkonen) and the
+// kernel gives up as soon as a full row is over the cutoff.
+final class EditDistance {
+    private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(() -> new int[2][128]);
+
+    private EditDistance() {}
+
+    static int distance(CharSequence a, CharSequence b) {
+        return distance(a, b, Integer.MAX_VALUE);
+    }
+
+    // Exact distance when it is <= maxDistance, otherwise maxDistance + 1
+    static int distance(CharSequence a, CharSequence b, int maxDistance) {
+        if (a.length() < b.length()) {          // columns run over the shorter string
+            CharSequence t = a;
+            a = b;
+            b = t;
+        }
+        int n = a.length(), m = b.length();
+        int k = Math.min(maxDistance, n);       // distance never exceeds the longer length
+        int over = k + 1;
+        if (n - m > k) return over;
+        if (m == 0) return n;
+
+        int[][] rows = rows(m + 1);
+        int[] prev = rows[0], cur = rows[1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j <= k ? j : over;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int lo = Math.max(1, i - k), hi = Math.min(m, i + k);
+            cur[lo - 1] = (lo == 1 && i <= k) ? i : over;
+            int rowMin = cur[lo - 1];
+            char ca = a.charAt(i - 1);
+
+            for (int j = lo; j <= hi; j++) {
+                int v = prev[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                int del = prev[j] + 1;
+                int ins = cur[j - 1] + 1;
+                if (del < v) v = del;
+                if (ins < v) v = ins;
+                if (v > over) v = over;
+                cur[j] = v;
+                if (v < rowMin) rowMin = v;
+            }
+            if (hi < m) cur[hi + 1] = over;     // next row reads one cell past this band
+
+            if (rowMin > k) return over;        // row minimum never decreases, no way back under k
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m] > k ? over : prev[m];
+    }
+
+    // Same over byte ranges (Latin-1 text, e.g. a Description's bytes), without a CharSequence call per cell
+    static int distance(byte[] a, int aFrom, int aLength, byte[] b, int bFrom, int bLength, int maxDistance) {
+        if (aLength < bLength) {
+            byte[] t = a;
+            a = b;
+            b = t;
+            int f = aFrom;
+            aFrom = bFrom;
+            bFrom = f;
+            int l = aLength;
+            aLength = bLength;
+            bLength = l;
+        }
+        int n = aLength, m = bLength;
+        int k = Math.min(maxDistance, n);
+        int over = k + 1;
+        if (n - m > k) return over;
+        if (m == 0) return n;
+
+        int[][] rows = rows(m + 1);
+        int[] prev = rows[0], cur = rows[1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j <= k ? j : over;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int lo = Math.max(1, i - k), hi = Math.min(m, i + k);
+            cur[lo - 1] = (lo == 1 && i <= k) ? i : over;
+            int rowMin = cur[lo - 1];
+            byte ca = a[aFrom + i - 1];
+
+            for (int j = lo; j <= hi; j++) {
+                int v = prev[j - 1] + (ca == b[bFrom + j - 1] ? 0 : 1);
+                int del = prev[j] + 1;
+                int ins = cur[j - 1] + 1;
+                if (del < v) v = del;
+                if (ins < v) v = ins;
+                if (v > over) v = over;
+                cur[j] = v;
+                if (v < rowMin) rowMin = v;
+            }
+            if (hi < m) cur[hi + 1] = over;
+
+            if (rowMin > k) return over;
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m] > k ? over : prev[m];
+    }
+
+    // Largest distance whose similarity 1 - d / maxLength is still above minScore, -1 if none is
+    static int maxDistance(int maxLength, double minScore) {
+        if (maxLength == 0) return minScore < 1.0 ? 0 : -1;
+        int d = Math.min(maxLength, (int) ((1.0 - minScore) * maxLength));
+        // Nudge with the exact same expression similarityScore uses, so rounding can never disagree
+        while (d >= 0 && !(1.0 - ((double) d / maxLength) > minScore)) d--;
+        while (d < maxLength && 1.0 - ((double) (d + 1) / maxLength) > minScore) d++;
+        return d;
+    }
+
+    private static int[][] rows(int size) {
+        int[][] rows = ROWS.get();
+        if (rows[0].length < size) {
+            int cap = Math.max(size, rows[0].length * 2);
+            rows[0] = new int[cap];
+            rows[1] = new int[cap];
+        }
+        return rows;
+    }
+}
@@ -1,21 +1,54 @@
 package lost_and_found_system;
 
+import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 class Item 
 {
     int id;
     String category;
     String name;
-    String combinedDescription;
+    Description combinedDescription;    // normalized, held once as Latin-1 bytes...decoded only for the log and the snapshot
+    String[] fields;            // the same text field by field, in ItemFields.order(category)...null for an item stored before fields were kept
     String date;
 
+    // combinedDescription is either plain text or the fields as ItemFields.encode joins them (what the log and the snapshot keep)
     Item(int id, String category, String name, String combinedDescription) 
     {
         this.id = id;
         this.category = category;
         this.name = name;
-        this.combinedDescription = combinedDescription.toLowerCase();
+        String[] values = ItemFields.decode(combinedDescription);
+        if (values != null) 
+        {
+            ItemFields profile = ItemFields.of(category);
+            this.fields = profile.share(ItemFields.normalize(values, profile.size()));
+            this.combinedDescription = new Description(ItemFields.join(fields));
+        }
+        else 
+        {
+            this.combinedDescription = new Description(TextNormalizer.normalize(combinedDescription));      // lower case, accents folded, punctuation and extra spaces gone...queries get the same treatment
+        }
+    }
+
+    // Text already normalized (read back from the mapped store)...kept as it is, nothing is normalized again
+    Item(int id, String category, String name, String normalized, String[] fields) 
+    {
+        this.id = id;
+        this.category = category;
+        this.name = name;
+        this.fields = fields;
+        this.combinedDescription = new Description(normalized);
+    }
+
+    // What goes into the log and the snapshot...the fields survive a restart
+    String stored() 
+    {
+        return fields != null ? ItemFields.encode(fields) : combinedDescription.toString();
     }
 
     void displayFull() 
@@ -25,18 +58,83 @@ class Item
     }
 }
 
+// Items are stored by id, with a description index per category next to it...so two items with the same description stay two items
+// Safe to share between several desks...ids come from an atomic counter, registering / claiming only locks the category involved, and searches never wait for a registration
 class LostFoundDatabase 
 {
-    private HashMap<String, HashMap<String, Item>> registry; // 2 level hashMap ....category + (HashMap()→ combined string → item)
+    static final int DESK_RESULTS = 10;                      // how many of the best matches are shown at the desk
+    static final String ALL_CATEGORIES = "All Categories";
+    private ConcurrentHashMap<Integer, Item> registry;       // id → item...O(1) lookup / claim by id, concurrent so desks can read it while another desk registers
+    private ConcurrentHashMap<String, ConcurrentHashMap<Description, Item[]>> descriptions;   // 2 level hashMap ....category + (combined description → items with that description, usually just one)
+    private ConcurrentHashMap<String, CategoryIndex> indexes;   // category → search structures (trigram and word indexes) over the same items, so a search doesn't have to score every item
+    private final IdCardIndex idCards = new IdCardIndex();    // U-Number / cardholder → ID cards...a claim that knows either is one hash lookup, no fuzzy scan
+    private ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();    // shared by every logged change, exclusive while the log is rotated for a snapshot...so everything in the rotated log is in the registry before it is copied
+    private RegistryStore store;                             // snapshot + log, every register / claim is appended to the log first, so a restart doesn't lose the registry (null = in-memory only)
+    private MappedItemStore mapped;                          // off-heap backend (items kept in memory-mapped files)...when set, registry / descriptions / indexes / store are not used
     private Scanner sc;
-    private int nextId = 1;
+    private AtomicInteger nextId = new AtomicInteger(1);    // atomic, two desks registering at once never get the same id
+    DistanceStrategy distanceStrategy = DistanceStrategy.BIT_PARALLEL;      // Levenshtein kernel used for scoring, DistanceStrategy.DP is the plain row-by-row version
+    final Metrics metrics = new Metrics();                   // latency histograms of search / register / claim and the search work counters...menu option 6 and JMX
 
     LostFoundDatabase() 
     {
-        registry = new HashMap<>();
+        registry = new ConcurrentHashMap<>();
+        descriptions = new ConcurrentHashMap<>();
+        indexes = new ConcurrentHashMap<>();
         sc = new Scanner(System.in);
     }
 
+    // Durable database...loads the latest snapshot and replays the log behind it, then keeps appending to the log
+    LostFoundDatabase(Path logFile) throws IOException 
+    {
+        this(logFile, WriteAheadLog.SyncPolicy.configured());
+    }
+
+    // The same, with the log fsync'ed as `sync` says...how much a crash can take back (see SyncPolicy)
+    LostFoundDatabase(Path logFile, WriteAheadLog.SyncPolicy sync) throws IOException 
+    {
+        this();
+        store = new RegistryStore(logFile, sync, new WriteAheadLog.Listener() 
+        {
+            public void registered(int id, String category, String name, String combined) 
+            {
+                if (registry.containsKey(id)) return;           // already came in with the snapshot
+                insert(new Item(id, category, name, combined));
+                nextId.accumulateAndGet(id + 1, Math::max);
+            }
+
+            public void claimed(int id, String category) 
+            {
+                Item item = registry.remove(id);                // claims in the log refer to items by id
+                if (item != null) unindex(item);
+            }
+        });
+        nextId.accumulateAndGet(store.recoveredNextId(), Math::max);      // ids of items claimed before the snapshot are not handed out again
+    }
+
+    // Off-heap database...items live in memory-mapped files, searches read the descriptions straight from there
+    LostFoundDatabase(MappedItemStore mapped) 
+    {
+        this();
+        this.mapped = mapped;                                   // the store keeps its own nextId in the file header
+        for (Item card : mapped.items(IdCardIndex.CATEGORY)) idCards.add(card);     // the ID cards stay indexed on the heap...a U-Number or a holder is still one lookup
+    }
+
+    // Waits for a running snapshot, then flushes and fsyncs the log (or the mapped files) before exit
+    void close() 
+    {
+        Closeable backend = mapped != null ? mapped : store;
+        if (backend == null) return;
+        try 
+        {
+            backend.close();
+        } 
+        catch (IOException e) 
+        {
+            e.printStackTrace();
+        }
+    }
+
     private String getInput(String prompt) 
     {
         System.out.print(prompt);
@@ -56,7 +154,8 @@ class LostFoundDatabase
         System.out.print("Enter category number: ");
         String choice = sc.nextLine().trim();
 
-        String category, name, combined;
+        String category, name;
+        String[] fields;                // in ItemFields.order(category)
         switch (choice) 
         {
             case "1" -> {
@@ -67,7 +166,7 @@ class LostFoundDatabase
                 String loc = getInput("Enter location found: ");
                 String date = getInput("Enter date found: ");
                 String desc = getInput("Enter extra description: ");
-                combined = (name + " " + brand + " " + color + " " + loc + " " + date + " " + desc).toLowerCase();
+                fields = new String[] {name, brand, color, loc, date, desc};
             }
             case "2" -> {
                 category = "Daily Use";
@@ -76,7 +175,7 @@ class LostFoundDatabase
                 String loc = getInput("Enter location found: ");
                 String date = getInput("Enter date found: ");
                 String desc = getInput("Enter description: ");
-                combined = (name + " " + color + " " + loc + " " + date + " " + desc).toLowerCase();
+                fields = new String[] {name, color, loc, date, desc};
             }
             case "3" -> {
                 category = "Stationary";
@@ -85,7 +184,7 @@ class LostFoundDatabase
                 String loc = getInput("Enter location found: ");
                 String date = getInput("Enter date found: ");
                 String desc = getInput("Enter any description: ");
-                combined = (name + " " + color + " " + loc + " " + date + " " + desc).toLowerCase();
+                fields = new String[] {name, color, loc, date, desc};
             }
             case "4" -> {
                 category = "Accessories";
@@ -94,7 +193,7 @@ class LostFoundDatabase
                 String loc = getInput("Enter location found: ");
                 String date = getInput("Enter date found: ");
                 String desc = getInput("Enter any description: ");
-                combined = (name + " " + color + " " + loc + " " + date + " " + desc).toLowerCase();
+                fields = new String[] {name, color, loc, date, desc};
             }
             case "5" -> {
                 category = "Miscellaneous";
@@ -102,7 +201,7 @@ class LostFoundDatabase
                 String loc = getInput("Enter location found: ");
                 String date = getInput("Enter date found: ");
                 String desc = getInput("Enter description: ");
-                combined = (name + " " + loc + " " + date + " " + desc).toLowerCase();
+                fields = new String[] {name, loc, date, desc};
             }
             case "6" -> {
                 category = "ID Card";
@@ -112,7 +211,7 @@ class LostFoundDatabase
                 String year = getInput("Enter year: ");
                 String loc = getInput("Enter location found: ");
                 String date = getInput("Enter date found: ");
-                combined = (name + " " + dept + " " + uNo + " " + year + " " + loc + " " + date).toLowerCase();     //stored as a combined key of all these parameters for the comparison
+                fields = new String[] {name, dept, uNo, year, loc, date};     //kept field by field, so a claim can be scored field by field (U-Number exact, date by days apart...)
             }
             default -> {
                 System.out.println("Invalid choice.");
@@ -120,13 +219,339 @@ class LostFoundDatabase
             }
         }
 
-        Item item = new Item(nextId++, category, name, combined);       // New object of key - value pair to be hashed
-        registry.putIfAbsent(category, new HashMap<>());                // To ensure the category exists in the outer map, if not then creates a new inner map of that category
-        registry.get(category).put(combined, item);                     // Adds the item to the inner map using the combined attribute string as the 'key' and Actual item as 'Value'
+        try 
+        {
+            registerFound(category, fields);
+        } 
+        catch (UncheckedIOException e) 
+        {
+            System.out.println("\nCould not save the item: " + e.getCause().getMessage());
+            return;
+        }
 
         System.out.println("\nFound item registered successfully!");
     }
 
+    // Registers an item given field by field (in ItemFields.order(category), the name first) and returns its id
+    int registerFound(String category, String[] fields) 
+    {
+        String[] values = ItemFields.normalize(fields, ItemFields.of(category).size());
+        return registerFound(category, fields[0].trim(), ItemFields.encode(values));       // the Item takes the fields apart again
+    }
+
+    // Registers an already described item and returns its id...safe to call from several desks at once
+    int registerFound(String category, String name, String combined) 
+    {
+        long start = System.nanoTime();
+        int id = register(category, name, combined);
+        metrics.record("register", category, System.nanoTime() - start);
+        return id;
+    }
+
+    private int register(String category, String name, String combined) 
+    {
+        if (mapped != null) return addMapped(new Item(0, category, name, combined));      // normalized once by the Item, the store hands out the id
+
+        Item item = new Item(nextId.getAndIncrement(), category, name, combined);       // New object of key - value pair to be hashed
+        snapshotLock.readLock().lock();
+        try 
+        {
+            synchronized (categoryLock(category))                       // per-category lock...the log sees the changes of a category in the same order as the registry
+            {
+                if (store != null) 
+                {
+                    try 
+                    {
+                        store.logRegister(item.id, category, name, item.stored());   // written to the log before it goes into the registry
+                    } 
+                    catch (IOException e) 
+                    {
+                        throw new UncheckedIOException("Could not save the item", e);
+                    }
+                }
+                insert(item);
+            }
+        } 
+        finally 
+        {
+            snapshotLock.readLock().unlock();
+        }
+        snapshotIfDue();
+        return item.id;
+    }
+
+    // Registers one batch from the bulk importer...log and registry take the rows one by one, but each category's search indexes get its rows in one go at the end of the batch
+    void registerBatch(List<BulkImporter.Row> rows) 
+    {
+        long start = System.nanoTime();
+        if (mapped != null)                                             // no in-heap indexes to hold back
+        {
+            for (BulkImporter.Row row : rows) addMapped(new Item(0, row.category, row.name, row.combined));
+            metrics.record("import batch", null, System.nanoTime() - start);
+            return;
+        }
+
+        HashMap<String, List<Item>> byCategory = new HashMap<>();       // ids still handed out in file order
+        for (BulkImporter.Row row : rows) 
+        {
+            byCategory.computeIfAbsent(row.category, c -> new ArrayList<>()).add(new Item(nextId.getAndIncrement(), row.category, row.name, row.combined));
+        }
+        snapshotLock.readLock().lock();
+        try 
+        {
+            for (List<Item> items : byCategory.values())              // one category after another, on this thread...no pool task ever waits on a category lock, and the log takes one record at a time anyway
+            {
+                String category = items.get(0).category;
+                synchronized (categoryLock(category))                   // held until the rows are indexed too...a claim of one of them can't come in between
+                {
+                    int done = 0;
+                    try 
+                    {
+                        for (Item item : items) 
+                        {
+                            if (store != null) store.logRegister(item.id, category, item.name, item.stored());
+                            record(item);
+                            done++;
+                        }
+                    } 
+                    catch (IOException e) 
+                    {
+                        throw new UncheckedIOException("Could not save the item", e);
+                    } 
+                    finally 
+                    {
+                        indexes.computeIfAbsent(category, c -> new CategoryIndex(distanceStrategy)).addAll(items.subList(0, done));     // whatever got into the registry is searchable
+                    }
+                }
+            }
+        } 
+        finally 
+        {
+            snapshotLock.readLock().unlock();
+        }
+        snapshotIfDue();
+        metrics.record("import batch", null, System.nanoTime() - start);
+    }
+
+    private void insert(Item item) 
+    {
+        record(item);
+        indexes.computeIfAbsent(item.category, c -> new CategoryIndex(distanceStrategy)).add(item);     // and to the category's search indexes
+    }
+
+    // Registry and description index only, the search indexes are up to the caller
+    private void record(Item item) 
+    {
+        registry.put(item.id, item);                                    // Adds the item under its id ('key') with the Actual item as 'Value'
+        idCards.add(item);                                              // only ID cards go in
+        categoryLock(item.category).merge(item.combinedDescription, new Item[] {item}, (old, one) ->     // same description registered before...both are kept
+        {
+            Item[] more = Arrays.copyOf(old, old.length + 1);
+            more[old.length] = item;
+            return more;
+        });
+    }
+
+    private void unindex(Item item) 
+    {
+        descriptions.get(item.category).computeIfPresent(item.combinedDescription, (d, old) ->        // drop just this item from its description's entry
+        {
+            int at = Arrays.asList(old).indexOf(item);
+            if (at < 0) return old;
+            if (old.length == 1) return null;
+            Item[] rest = new Item[old.length - 1];
+            System.arraycopy(old, 0, rest, 0, at);
+            System.arraycopy(old, at + 1, rest, at, rest.length - at);
+            return rest;
+        });
+        indexes.get(item.category).remove(item);                        // and from its search index
+        idCards.remove(item);
+    }
+
+    // The description map of a category doubles as the lock for changes in that category (created atomically on first use)
+    private ConcurrentHashMap<Description, Item[]> categoryLock(String category) 
+    {
+        return descriptions.computeIfAbsent(category, c -> new ConcurrentHashMap<>());
+    }
+
+    Item getItem(int id) 
+    {
+        return mapped != null ? mapped.item(id) : registry.get(id);
+    }
+
+    // Every item of the category registered with exactly this description
+    List<Item> findByDescription(String category, String description) 
+    {
+        Description key = new Description(TextNormalizer.normalize(description));
+        List<Item> found = new ArrayList<>();
+        if (mapped != null) 
+        {
+            for (Item item : mapped.items()) 
+            {
+                if (item.category.equals(category) && item.combinedDescription.equals(key)) found.add(item);
+            }
+            return found;
+        }
+        Item[] same = descriptions.getOrDefault(category, new ConcurrentHashMap<>()).get(key);
+        if (same != null) found.addAll(Arrays.asList(same));
+        return found;
+    }
+
+    boolean claimItem(Item item) 
+    {
+        return claimItem(item.id);
+    }
+
+    // Claims the item with this id...true if this call claimed it, false if it was already claimed (e.g. at another desk at the same moment)
+    // Checked, logged and removed under the category's lock, so of two claimants exactly one wins...and a claim that can't be logged changes nothing
+    boolean claimItem(int id) 
+    {
+        long start = System.nanoTime();
+        Item item = mapped == null ? registry.get(id) : null;
+        String category = mapped != null ? mapped.categoryOf(id) : item != null ? item.category : null;
+        boolean claimed = claim(id);
+        metrics.record("claim", category, System.nanoTime() - start);
+        return claimed;
+    }
+
+    // Record + text go straight into the mapped files, an ID card into idCards as well...under the same lock as claimMapped, so a card claimed right away can't be left in the index
+    private int addMapped(Item item) 
+    {
+        synchronized (idCards) 
+        {
+            mapped.add(item);
+            idCards.add(item);                                          // only ID cards go in
+        }
+        return item.id;
+    }
+
+    private boolean claimMapped(int id) 
+    {
+        synchronized (idCards) 
+        {
+            Item card = IdCardIndex.CATEGORY.equals(mapped.categoryOf(id)) ? mapped.item(id) : null;
+            if (!mapped.remove(id)) return false;                       // just clears the record's live flag (under the store's lock)
+            if (card != null) idCards.remove(card);                     // a copy read back from the files...the index finds its own by id
+            return true;
+        }
+    }
+
+    private boolean claim(int id) 
+    {
+        if (mapped != null) return claimMapped(id);
+
+        Item item = registry.get(id);
+        if (item == null) return false;
+        snapshotLock.readLock().lock();
+        try 
+        {
+            synchronized (categoryLock(item.category)) 
+            {
+                if (registry.get(id) != item) return false;             // claimed already (unless it is still this item)
+                if (store != null) 
+                {
+                    try 
+                    {
+                        store.logClaim(item.id, item.category);         // logged first...if this fails the item is still there
+                    } 
+                    catch (IOException e) 
+                    {
+                        throw new UncheckedIOException("Could not save the claim", e);
+                    }
+                }
+                registry.remove(id);                                    // removing claimed item from registry
+                unindex(item);
+            }
+        } 
+        finally 
+        {
+            snapshotLock.readLock().unlock();
+        }
+        snapshotIfDue();
+        return true;
+    }
+
+    // Every RegistryStore.SNAPSHOT_EVERY log records the registry is written out in the background and the log starts over...so startup never replays more than that
+    private void snapshotIfDue() 
+    {
+        if (store == null || !store.snapshotDue()) return;
+        boolean rotated;
+        snapshotLock.writeLock().lock();                                // registrations / claims only wait while the log is renamed...no copy, no fsync in here
+        try 
+        {
+            rotated = store.rotate();                                   // false: another desk just took it
+        } 
+        catch (IOException e) 
+        {
+            e.printStackTrace();                                        // keeps appending to the old log, tried again at the next record
+            return;
+        } 
+        finally 
+        {
+            snapshotLock.writeLock().unlock();
+        }
+        if (rotated) store.snapshot(() -> registry.values().toArray(new Item[0]), nextId::get);     // registry copied and written on the snapshot thread
+    }
+
+    // Bulk import of a nightly dump from another office (CSV with a header row, or JSON lines)
+    void bulkImport() 
+    {
+        String path = getInput("Enter path of the CSV / JSON-lines file: ");
+        importFile(Paths.get(path));
+    }
+
+    void importFile(Path file) 
+    {
+        BulkImporter importer = new BulkImporter(this::registerBatch, System.out);     // rejected rows are listed with their line number
+        try 
+        {
+            System.out.println("\nImport finished: " + importer.importFile(file));
+        } 
+        catch (IOException e) 
+        {
+            System.out.println("\nImport stopped: " + e.getMessage());
+        } 
+        catch (UncheckedIOException e) 
+        {
+            System.out.println("\nImport stopped: " + e.getMessage() + ": " + e.getCause().getMessage());     // the batches before this one are in
+        }
+    }
+
+    // Nightly reconciliation of a file of lost reports against the whole registry...nothing is claimed, the candidates go to a report for the desk
+    void batchMatch() 
+    {
+        String reports = getInput("Enter path of the lost reports file (CSV / JSON lines): ");
+        String report = getInput("Enter path to write the match report to: ");
+        matchFile(Paths.get(reports), Paths.get(report));
+    }
+
+    void matchFile(Path reports, Path report) 
+    {
+        BatchMatcher.Searcher searcher = new BatchMatcher.Searcher() 
+        {
+            public void search(String category, String query, TopK best) 
+            {
+                searchInto(category, query, best);
+            }
+
+            public void searchFields(String category, String[] fields, TopK best) 
+            {
+                long start = System.nanoTime();
+                fieldSearch(category, fields, best);
+                metrics.searched("batch field search", category, System.nanoTime() - start, best);
+            }
+        };
+        BatchMatcher matcher = new BatchMatcher(searcher, DESK_RESULTS, Runtime.getRuntime().availableProcessors(), System.out);    // one worker per core, each report on one worker
+        try 
+        {
+            System.out.println("\nMatching finished: " + matcher.matchFile(reports, report));
+        } 
+        catch (IOException e) 
+        {
+            System.out.println("\nMatching stopped: " + e.getMessage());
+        }
+    }
+
     // Search / Register Lost Item
     void registerLost() 
     {
@@ -137,6 +562,7 @@ class LostFoundDatabase
         System.out.println("4. Accessories");
         System.out.println("5. Miscellaneous");
         System.out.println("6. ID Card");
+        System.out.println("7. Not sure (search all categories)");
         System.out.print("Enter category number: ");
         String choice = sc.nextLine().trim();
 
@@ -148,6 +574,7 @@ class LostFoundDatabase
             case "4" -> "Accessories";
             case "5" -> "Miscellaneous";
             case "6" -> "ID Card";
+            case "7" -> ALL_CATEGORIES;
             default -> {
                 System.out.println("Invalid choice.");
                 yield null;
@@ -155,68 +582,93 @@ class LostFoundDatabase
         };
         if (category == null) return;            // Separately mentioned because we want a result from switch to be stored in string category and hence switch can't directly 'return' 
 
-        String query = getInput("Enter description of your lost item (Mention object name, brand, color, any specific description, location where it was lost, etc.): ").toLowerCase();
-        searchAndClaim(category, query);        // Search method  works on string matching based on distance calculation as per the char manipulation score...like BK Tree algo
+        if (category.equals(ALL_CATEGORIES))                  // no category, no fields to go by...one free-text description
+        {
+            String query = getInput("Enter description of your lost item (Mention object name, brand, color, any specific description, location where it was lost, etc.): ");
+            searchAndClaim(category, query);        // Search method  works on string matching based on distance calculation as per the char manipulation score...using the category's index
+            return;
+        }
+        System.out.println("\nDescribe your lost item (press Enter to skip anything you don't know):");
+        String[] fields = askLostFields(category);
+        if (ItemFields.join(ItemFields.normalize(fields, fields.length)).isEmpty()) 
+        {
+            System.out.println("\nNothing to search on.");
+            return;
+        }
+        searchAndClaim(category, null, fields);         // each field scored on its own with the category's weights (ItemFields)
+    }
+
+    // The category's fields, asked in the order registration asks them
+    String[] askLostFields(String category) 
+    {
+        String[] order = ItemFields.order(category);
+        String[] fields = new String[order.length];
+        for (int i = 0; i < order.length; i++) 
+        {
+            String prompt = switch (order[i]) 
+            {
+                case "name" -> category.equals("ID Card") ? "Enter cardholder name: " : "Enter item name: ";
+                case "brand" -> "Enter brand/model: ";
+                case "color" -> "Enter color: ";
+                case "location" -> "Enter location where it was lost: ";
+                case "date" -> "Enter date lost: ";
+                case "department" -> "Enter department: ";
+                case "unumber" -> "Enter U-Number: ";
+                case "year" -> "Enter year: ";
+                default -> "Enter any specific description: ";
+            };
+            fields[i] = getInput(prompt);
+        }
+        return fields;
     }
 
     
     // Search and Claim Method
     void searchAndClaim(String category, String query) 
+    {
+        searchAndClaim(category, query, null);
+    }
+
+    // fields (raw, in ItemFields.order(category)) instead of a query when the claimant described the item field by field
+    void searchAndClaim(String category, String query, String[] fields) 
     {
     	
+        boolean everywhere = category.equals(ALL_CATEGORIES);     // item may have been filed under a different category than the claimant picked
+
         // Check if category exists or is empty
-        if (!registry.containsKey(category) || registry.get(category).isEmpty()) 
+        if (!everywhere && mapped == null && descriptions.getOrDefault(category, new ConcurrentHashMap<>()).isEmpty()) 
         {
             System.out.println("\nNo found items in this category yet.");
             return;
         }
 
-        HashMap<String, Item> items = registry.get(category);          // HashMap to store item registry of a particular category ---> 2nd level of hashMap
-
-        // PriorityQueue to store items with highest similarity first
-        PriorityQueue<Map.Entry<Item, Double>> pq = new PriorityQueue<>
-        (
-            (a, b) -> Double.compare(b.getValue(), a.getValue())
-        );
-        
-        // In above priority queue Map.Entry(x,y) is used to store key-value pairs in pq, where key is of type 'Item' and value is of type 'Double' 
-
-        // Calculate similarity for each item
-        for (Item obj : items.values()) 
-        {
-        	// items.values() will return objects of type 'Item' that means actual items in found registry
-            double score = similarityScore(query, obj.combinedDescription);      // It's a method that returns score of how much the user entered desc matches the combinedStrings in item registry 
-            
-            if (score > 0.3) 
-            { 
-            	// consider only reasonably similar ones
-                pq.offer(Map.entry(obj, score));      // pq.offer() adds custom types of data obj to pq...here data obj is a key-value pair which is generated using Map.entry()
-            }
-        }
+        // Best DESK_RESULTS items scoring above 0.3 (reasonably similar ones), best first...the category index only runs the edit distance on items whose shared trigrams (or words, for large categories) leave them a chance
+        List<Map.Entry<Item, Double>> matches = everywhere ? searchAll(query, DESK_RESULTS)
+            : fields != null ? searchFields(category, fields, DESK_RESULTS)
+            : searchItems(category, query, DESK_RESULTS);      // Map.Entry(x,y) is a key-value pair, where key is of type 'Item' and value is its 'Double' matching score
 
         // If no matching items
-        if (pq.isEmpty()) 
+        if (matches.isEmpty()) 
         {
             System.out.println("\nNo similar items found.");
             return;
         }
 
         System.out.println("\nTop Matching Items:");
-        List<Item> topMatches = new ArrayList<>();              // Maintained to store the top 3 matches ...bcz we want to delete the claimed obj from registry after the claim, as we can't search that again in pq
+        List<Item> topMatches = new ArrayList<>();              // Maintained to store the top matches ...bcz we want to delete the claimed obj from registry after the claim
         int count = 0;
 
-        // Show top 3 most similar items
-        while (!pq.isEmpty() && count < 3) 
+        // Show the most similar items
+        for (Map.Entry<Item, Double> entry : matches) 
         {
-            Map.Entry<Item, Double> entry = pq.poll();         // 'entry' is obj of type key-value pair similar to the ones that are stored in pq 
             count++;
-            System.out.printf("\n[%d] Similarity: %.2f%%\n", count, entry.getValue() * 100);        // For display of top 3 to user who's searching lost item....getValue()  returns 'MatchingScore' of particular item with user entered description
+            System.out.printf("\n[%d] Similarity: %.2f%%\n", count, entry.getValue() * 100);        // For display of top matches to user who's searching lost item....getValue()  returns 'MatchingScore' of particular item with user entered description
             entry.getKey().displayFull();           // display item details
-            topMatches.add(entry.getKey());         // adding top 3 items to topMatches arrayList  
+            topMatches.add(entry.getKey());         // adding top items to topMatches arrayList  
         }
 
         // Let user claim one of them
-        System.out.print("\nEnter number (1-3) of the item you want to claim, or 0 to cancel: ");
+        System.out.print("\nEnter number (1-" + topMatches.size() + ") of the item you want to claim, or 0 to cancel: ");
         String input = sc.nextLine().trim();
 
         try 
@@ -225,7 +677,21 @@ class LostFoundDatabase
             if (choice >= 1 && choice <= topMatches.size()) 
             {
                 Item selected = topMatches.get(choice - 1);
-                registry.get(selected.category).remove(selected.combinedDescription);          // removing claimed item from registry of particular category
+                boolean claimed;
+                try 
+                {
+                    claimed = claimItem(selected);
+                } 
+                catch (UncheckedIOException e) 
+                {
+                    System.out.println("\nCould not save the claim: " + e.getCause().getMessage());
+                    return;
+                }
+                if (!claimed) 
+                {
+                    System.out.println("\nSorry, this item has just been claimed by someone else.");
+                    return;
+                }
                 System.out.println("\nItem with ID " + selected.id + " has been successfully claimed!");
                 System.out.println("You can collect it from 'Lost and Found Department, IT Building, 3rd Floor'.");
             } 
@@ -240,78 +706,184 @@ class LostFoundDatabase
         }
     }
 
-    // Calculates similarity score (0 to 1) based on edit distance
-    double similarityScore(String str1, String str2) 
+    // Best k items of a category scoring above 0.3, best first (fixed-size top-k heap, so O(k) allocation per search)
+    List<Map.Entry<Item, Double>> searchItems(String category, String query, int k) 
     {
-        int distance = editDistance(str1, str2);
-        int maxLength = Math.max(str1.length(), str2.length());      // returns max of lengths of 2 strings passed 
-        if (maxLength == 0) return 1.0;
-        return 1.0 - ((double) distance / maxLength);
+        long start = System.nanoTime();
+        query = TextNormalizer.normalize(query);        // same normalization the descriptions got
+        TopK best = new TopK(k);
+        String operation = "search";
+        if (category.equals(IdCardIndex.CATEGORY) && idCards.lookup(query, best)) operation = "id card lookup";     // a U-Number or holder in the text: just their cards, no fuzzy search...recorded under its own name, not as a search as well
+        else if (mapped != null) mapped.search(category, query, distanceStrategy, 0.3, best);     // off-heap...scans the mapped records, Items are only built for the results
+        else if (indexes.containsKey(category)) indexes.get(category).search(query, 0.3, best);
+        metrics.searched(operation, category, System.nanoTime() - start, best);     // counts the work the search did as well
+        return best.drain();
     }
 
-    // Computes edit distance (Levenshtein distance) between two strings
-    int editDistance(String a, String b) 
+    // Best k items over all categories...each category is searched at the same time on its own thread and the results merged by score
+    List<Map.Entry<Item, Double>> searchAll(String query, int k) 
     {
-        int n = a.length(), m = b.length();
-        int[][] dp = new int[n + 1][m + 1];
+        long start = System.nanoTime();
+        query = TextNormalizer.normalize(query);
+        TopK best = new TopK(k);
+        if (mapped != null) mapped.search(null, query, distanceStrategy, 0.3, best);
+        else CategoryIndex.searchAll(indexes.values(), query, 0.3, best);
+        metrics.searched("search all", null, System.nanoTime() - start, best);
+        return best.drain();
+    }
+
+    // Best k items of a category for a report given field by field (raw values in ItemFields.order(category))...a wrong date costs less than a wrong brand, and each field's edit distance runs on a short string
+    List<Map.Entry<Item, Double>> searchFields(String category, String[] fields, int k) 
+    {
+        long start = System.nanoTime();
+        TopK best = new TopK(k);
+        fieldSearch(category, ItemFields.normalize(fields, ItemFields.of(category).size()), best);
+        metrics.searched("field search", category, System.nanoTime() - start, best);
+        return best.drain();
+    }
 
-        // Base cases   ... to initialize both strings as an empty string first
-        for (int i = 0; i <= n; i++) 
+    // Values already normalized...the mapped files are scanned with the plain search on the joined values
+    private void fieldSearch(String category, String[] values, TopK best) 
+    {
+        if (category.equals(IdCardIndex.CATEGORY) && idCards.lookup(values, distanceStrategy, 0.3, best)) return;      // exact U-Number / cardholder hit...fuzzy only when there is none
+        if (mapped != null) mapped.search(category, ItemFields.join(values), distanceStrategy, 0.3, best);
+        else if (indexes.containsKey(category)) indexes.get(category).searchFields(ItemFields.of(category), values, 0.3, best);
+    }
+
+    // Best matches of one query into the caller's collector (null category = all)...the batch matcher's workers share the indexes through this
+    void searchInto(String category, String query, TopK best) 
+    {
+        long start = System.nanoTime();
+        matchInto(category, TextNormalizer.normalize(query), best);
+        metrics.searched("batch search", category, System.nanoTime() - start, best);
+    }
+
+    private void matchInto(String category, String query, TopK best) 
+    {
+        if (IdCardIndex.CATEGORY.equals(category) && idCards.lookup(query, best)) return;      // a U-Number or holder in the report...their cards, no fuzzy search
+        if (mapped != null) 
         {
-        	dp[i][0] = i;
+            mapped.search(category, query, distanceStrategy, 0.3, best);
         }
-        for (int j = 0; j <= m; j++) 
+        else if (category != null) 
         {
-        	dp[0][j] = j;
+            CategoryIndex index = indexes.get(category);
+            if (index != null) index.search(query, 0.3, best);
         }
-
-        // Fill DP table
-        for (int i = 1; i <= n; i++) 
+        else 
         {
-            for (int j = 1; j <= m; j++) 
+            for (CategoryIndex index : indexes.values())                // one category after the other on this worker, each into its own best k and merged as searchAll does...sharing one collector, a large category would take its word candidates as final once an earlier category had filled it
             {
-            	int cost;
-            	if (a.charAt(i - 1) == b.charAt(j - 1)) 
-            	{
-            	    cost = 0;   // No change needed if characters are same
-            	} 
-            	else 
-            	{
-            	    cost = 1;   // 1 operation (substitution) if characters differ
-            	}
-
-
-                dp[i][j] = Math.min(
-                    Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),  // insertion or deletion
-                    dp[i - 1][j - 1] + cost                         // substitution
-                );
+                TopK one = best.fork(best.k());
+                index.search(query, 0.3, one);
+                best.addAll(one);
             }
         }
+    }
+
+    // Menu option 6...the same figures are on JMX (lost_and_found_system:type=Metrics) for jconsole / monitoring
+    void showMetrics() 
+    {
+        System.out.println("\n--- Search / Register / Claim Metrics ---");
+        System.out.print(metrics.dump());
+    }
+
+    // Calculates similarity score (0 to 1) based on edit distance
+    double similarityScore(String str1, String str2) 
+    {
+        int distance = editDistance(str1, str2);
+        int maxLength = Math.max(str1.length(), str2.length());      // returns max of lengths of 2 strings passed 
+        if (maxLength == 0) return 1.0;
+        return 1.0 - ((double) distance / maxLength);
+    }
+
+    // Same score as above, but stops early once the item can no longer beat minScore (returns 0 then)
+    double similarityScore(String str1, String str2, double minScore) 
+    {
+        return distanceStrategy.similarity(str1, str2, minScore);      // kernel gives up once the distance is over what minScore allows
+    }
 
-        return dp[n][m];
+    // Computes edit distance (Levenshtein distance) between two strings
+    int editDistance(String a, String b) 
+    {
+        return distanceStrategy.distance(a, b, Integer.MAX_VALUE);
     }
 
 
+    // Every live item (a copy...later registrations / claims don't change it)
+    List<Item> getAllItems() 
+    {
+        if (mapped != null) return mapped.items();
+        return new ArrayList<>(registry.values());
+    }
+
     // Method to display all the existing registered items
     void showAllFoundItems() 
     {
         System.out.println("\n--- All Found Items ---");
-        int count = 0;
-        for (Map.Entry<String, HashMap<String, Item>> entry : registry.entrySet()) 
+        List<Item> all = getAllItems();
+        for (Item obj : all) 
         {
-            for (Item obj : entry.getValue().values()) 
-            {
-                obj.displayFull();
-                count++;
-            }
+            obj.displayFull();
         }
-        if (count == 0) System.out.println("No items currently registered.");
+        if (all.isEmpty()) System.out.println("No items currently registered.");
     }
 }
 
 public class LostAndFoundSystem {
     public static void main(String[] args) {
-        LostFoundDatabase db = new LostFoundDatabase();
+        // ... --sync <policy> [other options] sets how often the log is fsync'ed: always, group (the default) or <records>/<millis>...see WriteAheadLog.SyncPolicy for what a crash can lose with each
+        WriteAheadLog.SyncPolicy sync = WriteAheadLog.SyncPolicy.configured();
+        if (args.length > 0 && args[0].equals("--sync")) 
+        {
+            try 
+            {
+                sync = WriteAheadLog.SyncPolicy.parse(args.length > 1 ? args[1] : "");
+            } 
+            catch (IllegalArgumentException e) 
+            {
+                System.out.println(e.getMessage());
+                return;
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        LostFoundDatabase db;
+        try 
+        {
+            // items registered in earlier runs are replayed from here...-Dlostfound.store=mapped keeps them off-heap in lostfound.items / lostfound.text instead
+            db = "mapped".equals(System.getProperty("lostfound.store"))
+                ? new LostFoundDatabase(new MappedItemStore(Paths.get("lostfound")))
+                : new LostFoundDatabase(Paths.get("lostfound.wal"), sync);
+        } 
+        catch (IOException e) 
+        {
+            System.out.println("Could not open the item store, items will not be saved: " + e.getMessage());
+            db = new LostFoundDatabase();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(db::close));
+        db.metrics.register("console");
+
+        // java lost_and_found_system.LostAndFoundSystem --import <file>... imports the files and exits (for the nightly dumps)
+        if (args.length > 0 && args[0].equals("--import")) 
+        {
+            for (int i = 1; i < args.length; i++) 
+            {
+                System.out.println("Importing " + args[i] + "...");
+                db.importFile(Paths.get(args[i]));
+            }
+            return;
+        }
+        // ... --match <reports> <report> matches a file of lost reports against the registry, writes the candidates to <report> and exits
+        if (args.length > 0 && args[0].equals("--match")) 
+        {
+            if (args.length != 3) 
+            {
+                System.out.println("Usage: --match <lost reports file> <report file>");
+                return;
+            }
+            db.matchFile(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
         Scanner sc = new Scanner(System.in);
 
         while (true) 
@@ -320,7 +892,10 @@ public class LostAndFoundSystem {
             System.out.println("1. Register Found Item");
             System.out.println("2. Register Lost Item & Search/Claim");
             System.out.println("3. Show All Found Items");
-            System.out.println("4. Exit");
+            System.out.println("4. Bulk Import Found Items (CSV / JSON lines)");
+            System.out.println("5. Batch Match Lost Reports");
+            System.out.println("6. Show Metrics");
+            System.out.println("7. Exit");
             System.out.print("Enter choice: ");
             String choice = sc.nextLine().trim();
 
@@ -329,7 +904,10 @@ public class LostAndFoundSystem {
                 case "1" -> db.registerFound();
                 case "2" -> db.registerLost();
                 case "3" -> db.showAllFoundItems();
-                case "4" -> {
+                case "4" -> db.bulkImport();
+                case "5" -> db.batchMatch();
+                case "6" -> db.showMetrics();
+                case "7" -> {
                     System.out.println("Exiting... Goodbye!");
                     return;
                 }
@@ -2,75 +2,487 @@ package lost_and_found_system;
 
 import javax.swing.*;
 import javax.swing.border.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.*;
+import java.nio.file.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 class Item {
     int id;
     String category;
     String name;
-    String combinedDescription;
+    Description combinedDescription;       // normalized, held once as Latin-1 bytes
+    String[] fields;        // in ItemFields.order(category); null if stored without them
+    int day;                // found, as an epoch day (ItemFields.day); DateRankIndex.NO_DATE if not known
 
+    // combinedDescription is plain text or the fields joined by ItemFields.encode (log and snapshot)
     Item(int id, String category, String name, String combinedDescription) {
         this.id = id;
         this.category = category;
         this.name = name;
-        this.combinedDescription = combinedDescription.toLowerCase();
+        String[] values = ItemFields.decode(combinedDescription);
+        if (values != null) {
+            ItemFields profile = ItemFields.of(category);
+            this.fields = profile.share(ItemFields.normalize(values, profile.size()));
+            this.combinedDescription = new Description(ItemFields.join(fields));
+        } else {
+            this.combinedDescription = new Description(TextNormalizer.normalize(combinedDescription));
+        }
+        this.day = ItemFields.day(category, fields);
+    }
+
+    // Text already normalized (read back from the mapped store), kept as it is
+    Item(int id, String category, String name, String normalized, String[] fields) {
+        this.id = id;
+        this.category = category;
+        this.name = name;
+        this.fields = fields;
+        this.combinedDescription = new Description(normalized);
+        this.day = ItemFields.day(category, fields);
+    }
+
+    // What the log and the snapshot keep
+    String stored() {
+        return fields != null ? ItemFields.encode(fields) : combinedDescription.toString();
     }
 }
 
+// Can be shared by several desks. Items are stored by id; a per-category secondary index maps
+// descriptions to items, so identical descriptions are separate items. Ids come from an atomic
+// counter; registering and claiming lock only the category involved (its description map), so
+// desks working on different categories never wait for each other. Searches take no registry
+// lock and never hold up a registration.
 class LostFoundDatabase {
-    private HashMap<String, HashMap<String, Item>> registry;
-    int nextId = 1;
+    static final int DESK_RESULTS = 10;
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+    // Told about every registration and claim once it has taken effect, on the thread that made it
+    interface ChangeListener {
+        void registered(Item item);
+
+        void claimed(Item item);
+    }
+
+    private final ConcurrentHashMap<Integer, Item> registry = new ConcurrentHashMap<>();
+    // category -> description -> items with that description (usually one)
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Description, Item[]>> descriptions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CategoryIndex> indexes = new ConcurrentHashMap<>();
+    // U-Number / cardholder -> ID cards, so a claim that knows either is a hash lookup
+    private final IdCardIndex idCards = new IdCardIndex();
+    // shared by every logged change, exclusive while the log is rotated for a snapshot, so every
+    // change in the rotated log is in the registry before it is copied
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    // live ids overall and per category, so the "View All" table can page without copying items
+    // (heap registry only, the mapped store ranks from its records)
+    private final IdRankIndex allIds = new IdRankIndex();
+    private final ConcurrentHashMap<String, IdRankIndex> idsByCategory = new ConcurrentHashMap<>();
+    // the same by found date, for the table's date column
+    private final DateRankIndex allByDate = new DateRankIndex();
+    private final ConcurrentHashMap<String, DateRankIndex> byDateByCategory = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private RegistryStore store;
+    private MappedItemStore mapped;     // off-heap backend; when set, registry / descriptions / indexes / store are unused
+    DistanceStrategy distanceStrategy = DistanceStrategy.BIT_PARALLEL;
+    // latency histograms of search / register / claim and the search work counters, on JMX
+    final Metrics metrics = new Metrics();
 
     LostFoundDatabase() {
-        registry = new HashMap<>();
     }
 
-    void registerFound(String category, String name, String combined) {
-        Item item = new Item(nextId++, category, name, combined.toLowerCase());
-        registry.putIfAbsent(category, new HashMap<>());
-        registry.get(category).put(combined.toLowerCase(), item);
+    // Durable database: loads the latest snapshot and replays the log behind it, then appends to the log
+    LostFoundDatabase(Path logFile) throws IOException {
+        this(logFile, WriteAheadLog.SyncPolicy.configured());
+    }
+
+    // The same, fsync'ing the log as `sync` says (how much a crash may lose, see SyncPolicy)
+    LostFoundDatabase(Path logFile, WriteAheadLog.SyncPolicy sync) throws IOException {
+        store = new RegistryStore(logFile, sync, new WriteAheadLog.Listener() {
+            public void registered(int id, String category, String name, String combined) {
+                if (registry.containsKey(id)) return;      // already in the snapshot
+                insert(new Item(id, category, name, combined));
+                nextId.accumulateAndGet(id + 1, Math::max);
+            }
+
+            public void claimed(int id, String category) {
+                Item item = registry.remove(id);
+                if (item != null) unindex(item);
+            }
+        });
+        nextId.accumulateAndGet(store.recoveredNextId(), Math::max);
+    }
+
+    // Off-heap database: items live in memory-mapped files and searches read them in place
+    LostFoundDatabase(MappedItemStore mapped) {
+        this.mapped = mapped;               // pages the "View All" table from its own id order
+        for (Item card : mapped.items(IdCardIndex.CATEGORY)) idCards.add(card);     // kept on the heap
+    }
+
+    void addChangeListener(ChangeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Field by field, in ItemFields.order(category) (name first); returns the id
+    int registerFound(String category, String[] fields) {
+        return registerFound(category, fields, NOT_CANCELLED);
+    }
+
+    // Returns the id the item was registered under
+    int registerFound(String category, String name, String combined) {
+        return registerFound(category, name, combined, NOT_CANCELLED);
+    }
+
+    // The same, unless `cancelled` is true when the registration is about to take effect (it may have
+    // waited for another desk or a snapshot): then nothing is registered and CancellationException is thrown
+    int registerFound(String category, String[] fields, BooleanSupplier cancelled) {
+        String[] values = ItemFields.normalize(fields, ItemFields.of(category).size());
+        return registerFound(category, fields[0].trim(), ItemFields.encode(values), cancelled);
+    }
+
+    int registerFound(String category, String name, String combined, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        int id = register(category, name, combined, cancelled);
+        metrics.record("register", category, System.nanoTime() - start);
+        return id;
+    }
+
+    private int register(String category, String name, String combined, BooleanSupplier cancelled) {
+        if (mapped != null) {
+            if (cancelled.getAsBoolean()) throw new CancellationException("Registration cancelled");
+            Item item = new Item(0, category, name, combined);       // the store hands out the id
+            synchronized (idCards) {        // with the claim, so a card claimed at once isn't left indexed
+                mapped.add(item);
+                idCards.add(item);
+            }
+            for (ChangeListener l : listeners) l.registered(item);
+            return item.id;
+        }
+        Item item = new Item(nextId.getAndIncrement(), category, name, combined);     // Item normalizes it, once
+        snapshotLock.readLock().lock();
+        try {
+            synchronized (categoryLock(category)) {
+                if (cancelled.getAsBoolean()) throw new CancellationException("Registration cancelled");
+                if (store != null) {
+                    try {
+                        store.logRegister(item.id, category, name, item.stored());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not save the item", e);
+                    }
+                }
+                insert(item);
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+        snapshotIfDue();
+        for (ChangeListener l : listeners) l.registered(item);
+        return item.id;
+    }
+
+    private void insert(Item item) {
+        registry.put(item.id, item);
+        categoryLock(item.category).merge(item.combinedDescription, new Item[] {item}, (old, one) -> {
+            Item[] more = Arrays.copyOf(old, old.length + 1);
+            more[old.length] = item;
+            return more;
+        });
+        indexes.computeIfAbsent(item.category, c -> new CategoryIndex(distanceStrategy)).add(item);
+        idCards.add(item);
+        rank(item, true);
+    }
+
+    private void unindex(Item item) {
+        descriptions.get(item.category).computeIfPresent(item.combinedDescription, (d, old) -> {
+            int at = Arrays.asList(old).indexOf(item);
+            if (at < 0) return old;
+            if (old.length == 1) return null;
+            Item[] rest = new Item[old.length - 1];
+            System.arraycopy(old, 0, rest, 0, at);
+            System.arraycopy(old, at + 1, rest, at, rest.length - at);
+            return rest;
+        });
+        indexes.get(item.category).remove(item);
+        idCards.remove(item);
+        rank(item, false);
+    }
+
+    private void rank(Item item, boolean live) {
+        IdRankIndex ids = idsByCategory.computeIfAbsent(item.category, c -> new IdRankIndex());
+        DateRankIndex byDate = byDateByCategory.computeIfAbsent(item.category, c -> new DateRankIndex());
+        if (live) {
+            allIds.add(item.id);
+            ids.add(item.id);
+            allByDate.add(item.day, item.id);
+            byDate.add(item.day, item.id);
+        } else {
+            allIds.remove(item.id);
+            ids.remove(item.id);
+            allByDate.remove(item.day, item.id);
+            byDate.remove(item.day, item.id);
+        }
+    }
+
+    // The description map of a category doubles as the lock for changes in that category
+    private ConcurrentHashMap<Description, Item[]> categoryLock(String category) {
+        return descriptions.computeIfAbsent(category, c -> new ConcurrentHashMap<>());
+    }
+
+    Item getItem(int id) {
+        return mapped != null ? mapped.item(id) : registry.get(id);
+    }
+
+    // Every item of the category registered with exactly this description
+    List<Item> findByDescription(String category, String description) {
+        Description key = new Description(TextNormalizer.normalize(description));
+        if (mapped != null) {
+            List<Item> out = new ArrayList<>();
+            for (Item item : mapped.items()) {
+                if (item.category.equals(category) && item.combinedDescription.equals(key)) out.add(item);
+            }
+            return out;
+        }
+        ConcurrentHashMap<Description, Item[]> byDescription = descriptions.get(category);
+        Item[] found = byDescription == null ? null : byDescription.get(key);
+        return found == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(found));
     }
 
     List<Map.Entry<Item, Double>> searchItems(String category, String query) {
-        if (!registry.containsKey(category) || registry.get(category).isEmpty()) {
-            return new ArrayList<>();
+        return searchItems(category, query, DESK_RESULTS);
+    }
+
+    List<Map.Entry<Item, Double>> searchItems(String category, String query, int k) {
+        TopK best = new TopK(k);
+        searchItems(category, query, best);
+        return best.drain();
+    }
+
+    // Fills `best`; another thread may cancel() it to stop the scoring part-way
+    void searchItems(String category, String query, TopK best) {
+        long start = System.nanoTime();
+        String operation = "search";
+        if (category.equals(IdCardIndex.CATEGORY) && idCards.lookup(TextNormalizer.normalize(query), best)) {
+            operation = "id card lookup";       // exact U-Number or holder, no fuzzy search...its own histogram, not counted as a search too
+        } else if (mapped != null) {
+            mapped.search(category, TextNormalizer.normalize(query), distanceStrategy, 0.3, best);
+        } else {
+            CategoryIndex index = indexes.get(category);
+            if (index != null) index.search(TextNormalizer.normalize(query), 0.3, best);
         }
+        metrics.searched(operation, category, System.nanoTime() - start, best);
+    }
+
+    // Same as searchItems, but over every category at once
+    List<Map.Entry<Item, Double>> searchAll(String query, int k) {
+        TopK best = new TopK(k);
+        searchAll(query, best);
+        return best.drain();
+    }
 
-        HashMap<String, Item> items = registry.get(category);
-        PriorityQueue<Map.Entry<Item, Double>> pq = new PriorityQueue<>(
-            (a, b) -> Double.compare(b.getValue(), a.getValue())
-        );
+    void searchAll(String query, TopK best) {
+        long start = System.nanoTime();
+        if (mapped != null) {
+            mapped.search(null, TextNormalizer.normalize(query), distanceStrategy, 0.3, best);
+        } else {
+            CategoryIndex.searchAll(indexes.values(), TextNormalizer.normalize(query), 0.3, best);
+        }
+        metrics.searched("search all", null, System.nanoTime() - start, best);
+    }
 
-        for (Item obj : items.values()) {
-            double score = similarityScore(query.toLowerCase(), obj.combinedDescription);
-            if (score > 0.3) {
-                pq.offer(Map.entry(obj, score));
+    // Search-as-you-type: same results as searchItems (category null = searchAll), reusing what
+    // `session` kept from the previous keystroke. The mapped store has no such cache and just searches.
+    void searchIncremental(IncrementalSearch session, String category, String query, TopK best) {
+        long start = System.nanoTime();
+        String q = TextNormalizer.normalize(query);
+        if (mapped != null) {
+            mapped.search(category, q, distanceStrategy, 0.3, best);
+        } else if (category != null) {
+            CategoryIndex index = indexes.get(category);
+            if (index != null) session.search(index, q, 0.3, best);
+        } else {
+            for (CategoryIndex index : indexes.values()) {
+                if (best.isCancelled()) break;
+                session.search(index, q, 0.3, best);
             }
         }
+        metrics.searched("typeahead", category, System.nanoTime() - start, best);
+    }
+
+    boolean claimItem(Item item) {
+        return claimItem(item.id);
+    }
+
+    // True if this call claimed the item, false if it was already claimed (e.g. at another desk).
+    // The item is checked, the claim logged and the item removed under its category's lock, so of
+    // two desks claiming the same item exactly one succeeds, and a claim that can't be logged
+    // leaves the item where it was.
+    boolean claimItem(int id) {
+        return claimItem(id, NOT_CANCELLED);
+    }
 
-        List<Map.Entry<Item, Double>> results = new ArrayList<>();
-        int count = 0;
-        while (!pq.isEmpty() && count < 3) {
-            results.add(pq.poll());
-            count++;
+    // The same, unless `cancelled` is true when the claim is about to take effect: then nothing is
+    // claimed and CancellationException is thrown
+    boolean claimItem(int id, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        Item known = mapped == null ? registry.get(id) : null;
+        String category = mapped != null ? mapped.categoryOf(id) : known != null ? known.category : null;
+        boolean claimed = claim(id, cancelled);
+        metrics.record("claim", category, System.nanoTime() - start);
+        return claimed;
+    }
+
+    private boolean claim(int id, BooleanSupplier cancelled) {
+        if (mapped != null) {
+            Item item = mapped.item(id);
+            if (item == null) return false;
+            synchronized (idCards) {
+                if (cancelled.getAsBoolean()) throw new CancellationException("Claim cancelled");
+                if (!mapped.remove(id)) return false;
+                idCards.remove(item);       // a no-op outside the ID Card category
+            }
+            for (ChangeListener l : listeners) l.claimed(item);
+            return true;
+        }
+        Item item = registry.get(id);
+        if (item == null) return false;
+        snapshotLock.readLock().lock();
+        try {
+            synchronized (categoryLock(item.category)) {
+                if (registry.get(id) != item) return false;
+                if (cancelled.getAsBoolean()) throw new CancellationException("Claim cancelled");
+                if (store != null) {
+                    try {
+                        store.logClaim(item.id, item.category);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not save the claim", e);
+                    }
+                }
+                registry.remove(id);
+                unindex(item);
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
         }
-        return results;
+        snapshotIfDue();
+        for (ChangeListener l : listeners) l.claimed(item);
+        return true;
     }
 
-    void claimItem(Item item) {
-        registry.get(item.category).remove(item.combinedDescription);
+    // Every SNAPSHOT_EVERY log records the registry is written out in the background and the log
+    // restarts, so startup replays at most that many records on top of the snapshot. Writers only
+    // wait while the log is renamed; the registry is copied and written on the snapshot thread
+    private void snapshotIfDue() {
+        if (store == null || !store.snapshotDue()) return;
+        boolean rotated;
+        snapshotLock.writeLock().lock();
+        try {
+            rotated = store.rotate();
+        } catch (IOException e) {
+            e.printStackTrace();        // keeps appending to the old log, retried at the next record
+            return;
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        if (rotated) store.snapshot(() -> getAllItems().toArray(new Item[0]), nextId::get);
     }
 
-    List<Item> getAllItems() {
-        List<Item> allItems = new ArrayList<>();
-        for (HashMap<String, Item> categoryItems : registry.values()) {
-            allItems.addAll(categoryItems.values());
+    // Waits for a running snapshot, then flushes and fsyncs the log (or the mapped files)
+    void close() {
+        Closeable backend = mapped != null ? mapped : store;
+        if (backend == null) return;
+        try {
+            backend.close();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        return allItems;
+    }
+
+    // Paged access for the "View All" table. Ranks count live items in id order within the category
+    // (null = all categories); rows are looked up one by one, nothing is copied. The mapped store
+    // ranks from its own records, so it keeps nothing per item on the heap for this.
+
+    int countItems(String category) {
+        if (mapped != null) return mapped.count(category);
+        IdRankIndex ids = category == null ? allIds : idsByCategory.get(category);
+        return ids == null ? 0 : ids.size();
+    }
+
+    // Live items of the category with a lower id
+    int countBefore(String category, int id) {
+        if (mapped != null) return mapped.countBefore(category, id);
+        IdRankIndex ids = category == null ? allIds : idsByCategory.get(category);
+        return ids == null ? 0 : ids.rankOf(id);
+    }
+
+    // The live item with `rank` lower-id items before it, or null (past the end, or claimed just now)
+    Item itemAt(String category, int rank) {
+        if (mapped != null) {
+            int id = mapped.idAt(category, rank);
+            return id < 0 ? null : mapped.item(id);
+        }
+        IdRankIndex ids = category == null ? allIds : idsByCategory.get(category);
+        int id = ids == null ? -1 : ids.select(rank);
+        return id < 0 ? null : getItem(id);
+    }
+
+    // The same in found-date order, then id; undated items come last (DateRankIndex). The mapped
+    // store keeps no date index, so there every item counts as undated and the order is the id order.
+
+    // Live items of the category found before `day`
+    int countFoundBefore(String category, int day) {
+        if (mapped != null) return 0;
+        DateRankIndex byDate = category == null ? allByDate : byDateByCategory.get(category);
+        return byDate == null ? 0 : byDate.countBefore(day);
+    }
+
+    // Live items of the category before this one in date order
+    int countBeforeByDate(String category, Item item) {
+        if (mapped != null) return mapped.countBefore(category, item.id);
+        DateRankIndex byDate = category == null ? allByDate : byDateByCategory.get(category);
+        return byDate == null ? 0 : byDate.rankOf(item.day, item.id);
+    }
+
+    // The live item with `rank` items before it in date order, or null
+    Item itemAtByDate(String category, int rank) {
+        if (mapped != null) return itemAt(category, rank);
+        DateRankIndex byDate = category == null ? allByDate : byDateByCategory.get(category);
+        int id = byDate == null ? -1 : byDate.select(rank);
+        return id < 0 ? null : getItem(id);
+    }
+
+    // Every category that has had an item, alphabetically
+    List<String> categories() {
+        return new ArrayList<>(new TreeSet<>(mapped != null ? mapped.categories() : idsByCategory.keySet()));
+    }
+
+    List<Item> getAllItems() {
+        if (mapped != null) return mapped.items();
+        return new ArrayList<>(registry.values());
     }
 
     double similarityScore(String str1, String str2) {
@@ -80,30 +492,343 @@ class LostFoundDatabase {
         return 1.0 - ((double) distance / maxLength);
     }
 
+    // Same score as above, but returns 0 as soon as str2 can no longer beat minScore
+    double similarityScore(String str1, String str2, double minScore) {
+        return distanceStrategy.similarity(str1, str2, minScore);
+    }
+
     int editDistance(String a, String b) {
-        int n = a.length(), m = b.length();
-        int[][] dp = new int[n + 1][m + 1];
+        return distanceStrategy.distance(a, b, Integer.MAX_VALUE);
+    }
+}
+
+// Rows of the "View All" table, fetched from the database a page at a time as the table scrolls to
+// them, so opening the view costs the same with 50 or 500k items. The filters (a category, a range
+// of found dates) and the sort (by id, by category then id, or by found date then id, either way
+// round) are answered by the database's id and date ranks instead of sorting here. A date range is
+// only shown in date order: the ranks can count the items in it, but not by id. The row count and
+// the pages are read on the worker pool, and rows stay blank until their page arrives.
+// Registrations and claims come in through ChangeListener and turn into row insert / delete events
+// (a few rank lookups per batch, on the EDT), so the table keeps its scroll position and selection.
+class ItemTableModel extends AbstractTableModel implements LostFoundDatabase.ChangeListener {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"ID", "Category", "Name", "Date Found"};
+    static final int ID = 0, CATEGORY = 1, DATE = 3;       // the sortable columns
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final int PAGE = 128;
+    private static final int MAX_PAGES = 64;
+
+    private final LostFoundDatabase db;
+    private final Executor worker;
+    private final ConcurrentLinkedQueue<Change> changes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean applyQueued = new AtomicBoolean();
+    private final LinkedHashMap<Integer, Item[]> pages = new LinkedHashMap<Integer, Item[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Item[]> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private final HashSet<Integer> loading = new HashSet<>();      // pages being read for this generation
+    private int generation;                 // bumped whenever the pages read so far go stale
+    private View view = new View(null, ID, true, Integer.MIN_VALUE, DateRankIndex.NO_DATE);
+    private int rowCount;
+
+    // Empty until the first setFilter
+    ItemTableModel(LostFoundDatabase db, Executor worker) {
+        this.db = db;
+        this.worker = worker;
+    }
+
+    void setFilter(String category) {
+        view = new View(category, view.sort, view.ascending, view.fromDay, view.toDay);
+        reload();
+    }
+
+    // Found dates shown, inclusive, as epoch days; Integer.MIN_VALUE and NO_DATE for no date filter
+    // (an open end is Integer.MIN_VALUE or NO_DATE - 1). Switches to date order while one is set
+    void setDateRange(int fromDay, int toDay) {
+        boolean dated = fromDay != Integer.MIN_VALUE || toDay != DateRankIndex.NO_DATE;
+        int sort = dated ? DATE : view.sort;
+        view = new View(view.filter, sort, sort != view.sort || view.ascending, fromDay, toDay);
+        reload();
+    }
+
+    // Click on a sortable column: sorts by it, or flips the direction if it already is the sort column
+    boolean toggleSort(int column) {
+        if (column != ID && column != CATEGORY && column != DATE) return false;
+        if (view.dated() && column != DATE) return false;
+        view = new View(view.filter, column, column != view.sort || !view.ascending, view.fromDay, view.toDay);
+        reload();
+        return true;
+    }
+
+    // The rows are counted on the worker pool; the table is empty until the count arrives
+    private void reload() {
+        changes.clear();
+        invalidate();
+        rowCount = 0;
+        fireTableDataChanged();
+        View v = view;
+        int current = generation;
+        worker.execute(() -> {
+            int count = count(v);
+            SwingUtilities.invokeLater(() -> {
+                if (current != generation) return;      // a change batch has counted again since
+                invalidate();                           // pages asked for meanwhile went by the old count
+                rowCount = count;
+                fireTableDataChanged();
+            });
+        });
+    }
+
+    private void invalidate() {
+        generation++;
+        pages.clear();
+        loading.clear();
+    }
 
-        for (int i = 0; i <= n; i++) dp[i][0] = i;
-        for (int j = 0; j <= m; j++) dp[0][j] = j;
+    private int count(View v) {
+        if (!v.dated()) return db.countItems(v.filter);
+        int upTo = v.toDay == DateRankIndex.NO_DATE ? db.countItems(v.filter) : db.countFoundBefore(v.filter, v.toDay + 1);
+        return upTo - db.countFoundBefore(v.filter, v.fromDay);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return column == view.sort ? COLUMNS[column] + (view.ascending ? " ▲" : " ▼") : COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Item item = itemAt(row);
+        if (item == null) return "";        // page still being read, or claimed meanwhile (the delete event is on its way)
+        return switch (column) {
+            case ID -> item.id;
+            case CATEGORY -> item.category;
+            case DATE -> item.day == DateRankIndex.NO_DATE ? "" : LocalDate.ofEpochDay(item.day).format(DATE_FORMAT);
+            default -> item.name;
+        };
+    }
+
+    // The row's item, or null while its page is being read
+    Item itemAt(int row) {
+        int p = row / PAGE;
+        Item[] page = pages.get(p);
+        if (page == null) {
+            requestPage(p);
+            return null;
+        }
+        int i = row - p * PAGE;
+        return i < page.length ? page[i] : null;
+    }
+
+    // Reads the page on the worker pool; it is kept and its rows repainted if nothing changed meanwhile
+    private void requestPage(int p) {
+        if (!loading.add(p)) return;
+        View v = view;
+        int count = rowCount, from = p * PAGE, n = Math.max(0, Math.min(PAGE, count - from)), current = generation;
+        worker.execute(() -> {
+            Item[] page = new Item[n];
+            Ranks ranks = new Ranks(v);
+            for (int i = 0; i < n; i++) page[i] = ranks.itemAt(v.ascending ? from + i : count - 1 - (from + i));
+            SwingUtilities.invokeLater(() -> {
+                if (current != generation) return;
+                loading.remove(p);
+                pages.put(p, page);
+                if (n > 0) fireTableRowsUpdated(from, from + n - 1);
+            });
+        });
+    }
+
+    @Override
+    public void registered(Item item) {
+        queue(new Change(item, true));
+    }
 
-        for (int i = 1; i <= n; i++) {
-            for (int j = 1; j <= m; j++) {
-                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
-                dp[i][j] = Math.min(
-                    Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                    dp[i - 1][j - 1] + cost
-                );
+    @Override
+    public void claimed(Item item) {
+        queue(new Change(item, false));
+    }
+
+    // Changes are batched: one pass on the EDT applies everything that arrived since the last one
+    private void queue(Change change) {
+        changes.add(change);
+        if (applyQueued.compareAndSet(false, true)) SwingUtilities.invokeLater(this::applyChanges);
+    }
+
+    private void applyChanges() {
+        applyQueued.set(false);
+        View v = view;
+        List<Change> batch = new ArrayList<>();
+        boolean added = false, claimed = false;
+        for (Change c; (c = changes.poll()) != null; ) {
+            if (!v.shows(c.item)) continue;
+            batch.add(c);
+            if (c.registered) added = true;
+            else claimed = true;
+        }
+        if (batch.isEmpty()) return;
+        invalidate();
+        int count = count(v);
+        Ranks ranks = new Ranks(v);
+
+        int[] rows = new int[batch.size()];
+        if (added && !claimed && count == rowCount + batch.size()) {
+            // final row of each new item; inserted top to bottom, every row is right when it goes in
+            for (int i = 0; i < rows.length; i++) {
+                int b = ranks.before(batch.get(i).item);
+                rows[i] = v.ascending ? b : count - 1 - b;
+            }
+        } else if (claimed && !added && count == rowCount - batch.size()) {
+            // row each claimed item had: live items before it plus the claimed ones before it
+            batch.sort(Comparator.comparing((Change c) -> c.item, v.order()));
+            for (int i = 0; i < rows.length; i++) {
+                int old = ranks.before(batch.get(i).item) + i;
+                rows[i] = v.ascending ? old : rowCount - 1 - old;
+            }
+        } else {
+            rows = null;
+        }
+        // Another desk may have changed something while the rows were worked out; then the next batch
+        // is on its way already and this one is shown as a plain refresh
+        if (rows == null || count(v) != count) {
+            rowCount = count;
+            fireTableDataChanged();
+            return;
+        }
+        Arrays.sort(rows);
+        if (added) {
+            for (int row : rows) {
+                rowCount++;
+                fireTableRowsInserted(row, row);
             }
+        } else {
+            for (int i = rows.length - 1; i >= 0; i--) {       // bottom up, so earlier rows don't move
+                rowCount--;
+                fireTableRowsDeleted(rows[i], rows[i]);
+            }
+        }
+    }
+
+    // What is shown and in which order; replaced, never changed, so a page read can hold on to it
+    private static final class View {
+        final String filter;                // category shown, null = all
+        final int sort;                     // ID, CATEGORY (then id) or DATE (then id)
+        final boolean ascending;
+        final int fromDay, toDay;           // found dates shown; MIN_VALUE / NO_DATE = no date filter
+
+        View(String filter, int sort, boolean ascending, int fromDay, int toDay) {
+            this.filter = filter;
+            this.sort = sort;
+            this.ascending = ascending;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        boolean dated() {
+            return fromDay != Integer.MIN_VALUE || toDay != DateRankIndex.NO_DATE;
+        }
+
+        boolean shows(Item item) {
+            return (filter == null || filter.equals(item.category)) && item.day >= fromDay && item.day <= toDay;
+        }
+
+        // Ascending row order
+        Comparator<Item> order() {
+            if (sort == DATE) return Comparator.comparingInt((Item item) -> item.day).thenComparingInt(item -> item.id);
+            if (sort == CATEGORY && filter == null) return Comparator.comparing((Item item) -> item.category).thenComparingInt(item -> item.id);
+            return Comparator.comparingInt(item -> item.id);
+        }
+    }
+
+    // Ascending ranks of a view, with what they need from the database worked out once per page read
+    // or change batch: where each category starts in category order, or how many items were found
+    // before the date range
+    private final class Ranks {
+        private final View view;
+        private final List<String> categories;      // category order over all categories, else null
+        private final int[] starts;                 // items in the categories before each one; last = all
+        private final int offset;
+
+        Ranks(View view) {
+            this.view = view;
+            if (view.sort == CATEGORY && view.filter == null) {
+                categories = db.categories();
+                starts = new int[categories.size() + 1];
+                for (int i = 0; i < categories.size(); i++) starts[i + 1] = starts[i] + db.countItems(categories.get(i));
+            } else {
+                categories = null;
+                starts = null;
+            }
+            offset = view.sort == DATE && view.dated() ? db.countFoundBefore(view.filter, view.fromDay) : 0;
+        }
+
+        // The item with `rank` shown items before it, or null
+        Item itemAt(int rank) {
+            if (view.sort == DATE) return db.itemAtByDate(view.filter, offset + rank);
+            if (categories == null) return db.itemAt(view.filter, rank);
+            int lo = 0, hi = categories.size();             // last category starting at or before rank
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (starts[mid] <= rank) lo = mid;
+                else hi = mid - 1;
+            }
+            return lo == categories.size() ? null : db.itemAt(categories.get(lo), rank - starts[lo]);
+        }
+
+        // Shown items that come before this one (itself not counted)
+        int before(Item item) {
+            if (view.sort == DATE) return db.countBeforeByDate(view.filter, item) - offset;
+            if (categories == null) return db.countBefore(view.filter, item.id);
+            int c = Collections.binarySearch(categories, item.category);
+            return starts[c < 0 ? -c - 1 : c] + db.countBefore(item.category, item.id);
+        }
+    }
+
+    private static final class Change {
+        final Item item;
+        final boolean registered;           // false = claimed
+
+        Change(Item item, boolean registered) {
+            this.item = item;
+            this.registered = registered;
         }
-        return dp[n][m];
     }
 }
 
 public class Gui extends JFrame {
+    private static final long serialVersionUID = 1L;
+
     private LostFoundDatabase db;
     private JPanel mainPanel;
     private CardLayout cardLayout;
+    // Database work never runs on the EDT: it goes to this pool and the result comes back
+    // through SwingUtilities.invokeLater, with a busy overlay (and Cancel) on the glass pane meanwhile
+    private final ExecutorService worker = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "gui-worker");
+        t.setDaemon(true);
+        return t;
+    });
+    private JPanel busyPanel;
+    private JLabel busyLabel;
+    private JButton busyCancel;
+    private Runnable cancelAction;
+    // Each card is built the first time it is shown and then kept; showing it again only resets or
+    // rebinds it, so navigating never adds panels to the CardLayout
+    private Runnable resetFoundPanel;
+    private Runnable resetLostPanel;
+    private Consumer<List<Map.Entry<Item, Double>>> bindResults;
+    private Runnable resetAllItems;
     
     private final Color PRIMARY_COLOR = new Color(41, 128, 185);
     private final Color SECONDARY_COLOR = new Color(52, 152, 219);
@@ -113,9 +838,24 @@ public class Gui extends JFrame {
     private final Font TITLE_FONT = new Font("Segoe UI", Font.BOLD, 28);
     private final Font SUBTITLE_FONT = new Font("Segoe UI", Font.BOLD, 18);
     private final Font NORMAL_FONT = new Font("Segoe UI", Font.PLAIN, 14);
+    private static final String ALL_CATEGORIES = "All Categories";
+    private static final int TYPING_DELAY_MS = 150;     // pause in typing before the live matches refresh
 
     public Gui() {
-        db = new LostFoundDatabase();
+        try {
+            // -Dlostfound.store=mapped keeps the items off-heap in lostfound.items / lostfound.text
+            db = "mapped".equals(System.getProperty("lostfound.store"))
+                ? new LostFoundDatabase(new MappedItemStore(Paths.get("lostfound")))
+                : new LostFoundDatabase(Paths.get("lostfound.wal"));
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(null,
+                "Could not open the item store, items will not be saved:\n" + e.getMessage(),
+                "Warning", JOptionPane.WARNING_MESSAGE);
+            db = new LostFoundDatabase();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(db::close));
+        db.metrics.register("gui");
         setupFrame();
         createMainMenu();
     }
@@ -130,6 +870,80 @@ public class Gui extends JFrame {
         mainPanel = new JPanel(cardLayout);
         mainPanel.setBackground(BACKGROUND_COLOR);
         add(mainPanel);
+        setupBusyOverlay();
+    }
+
+    private void setupBusyOverlay() {
+        busyPanel = new JPanel(new GridBagLayout()) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                g.setColor(new Color(0, 0, 0, 60));
+                g.fillRect(0, 0, getWidth(), getHeight());
+            }
+        };
+        busyPanel.setOpaque(false);
+        busyPanel.addMouseListener(new MouseAdapter() {});     // swallow clicks meant for the card underneath
+
+        JPanel box = new JPanel(new BorderLayout(10, 10));
+        box.setBackground(Color.WHITE);
+        box.setBorder(new CompoundBorder(
+            new LineBorder(PRIMARY_COLOR, 2, true),
+            new EmptyBorder(20, 30, 20, 30)
+        ));
+        busyLabel = new JLabel("", SwingConstants.CENTER);
+        busyLabel.setFont(SUBTITLE_FONT);
+        JProgressBar bar = new JProgressBar();
+        bar.setIndeterminate(true);
+        busyCancel = createStyledButton("Cancel", DANGER_COLOR);
+        busyCancel.addActionListener(e -> {
+            if (cancelAction != null) cancelAction.run();
+        });
+        JPanel cancelRow = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        cancelRow.setBackground(Color.WHITE);
+        cancelRow.add(busyCancel);
+
+        box.add(busyLabel, BorderLayout.NORTH);
+        box.add(bar, BorderLayout.CENTER);
+        box.add(cancelRow, BorderLayout.SOUTH);
+        busyPanel.add(box);
+        setGlassPane(busyPanel);
+    }
+
+    // Runs `task` on the worker pool behind the busy overlay and hands its result to `done` on the EDT.
+    // With a non-null `onCancel` the overlay offers Cancel: it runs onCancel, which should make the
+    // task stop early by throwing CancellationException, and the overlay stays up until the task has
+    // ended. A cancelled task shows nothing; one that finished anyway (a registration that was
+    // already saved when Cancel came) is shown as usual, so the desk never misses a change.
+    private <T> void runInBackground(String message, Callable<T> task, Runnable onCancel, Consumer<T> done) {
+        busyLabel.setText(message);
+        busyCancel.setVisible(onCancel != null);
+        cancelAction = onCancel == null ? null : () -> {
+            onCancel.run();
+            busyLabel.setText("Cancelling...");
+            busyCancel.setVisible(false);
+        };
+        busyPanel.setVisible(true);
+
+        worker.submit(() -> {
+            try {
+                T result = task.call();
+                SwingUtilities.invokeLater(() -> {
+                    busyPanel.setVisible(false);
+                    done.accept(result);
+                });
+            } catch (CancellationException ex) {
+                SwingUtilities.invokeLater(() -> busyPanel.setVisible(false));
+            } catch (Exception ex) {
+                SwingUtilities.invokeLater(() -> {
+                    busyPanel.setVisible(false);
+                    String detail = ex instanceof UncheckedIOException
+                        ? ex.getMessage() + ": " + ex.getCause().getMessage()
+                        : ex.toString();
+                    JOptionPane.showMessageDialog(this, detail, "Error", JOptionPane.ERROR_MESSAGE);
+                });
+            }
+            return null;
+        });
     }
 
     private void createMainMenu() {
@@ -202,6 +1016,13 @@ public class Gui extends JFrame {
     }
 
     private void showRegisterFoundPanel() {
+        if (resetFoundPanel == null) resetFoundPanel = buildRegisterFoundPanel();
+        resetFoundPanel.run();
+        cardLayout.show(mainPanel, "REGISTER_FOUND");
+    }
+
+    // Returns what clears the form for the next item
+    private Runnable buildRegisterFoundPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(BACKGROUND_COLOR);
 
@@ -226,6 +1047,7 @@ public class Gui extends JFrame {
         categoryBox.setFont(NORMAL_FONT);
 
         JTextField nameField = new JTextField(20);
+        JTextField uNumberField = new JTextField(20);      // ID cards only: what IdCardIndex keys them on
         JTextField brandField = new JTextField(20);
         JTextField colorField = new JTextField(20);
         JTextField locationField = new JTextField(20);
@@ -235,6 +1057,7 @@ public class Gui extends JFrame {
         JScrollPane descScroll = new JScrollPane(descArea);
 
         styleTextField(nameField);
+        styleTextField(uNumberField);
         styleTextField(brandField);
         styleTextField(colorField);
         styleTextField(locationField);
@@ -251,26 +1074,33 @@ public class Gui extends JFrame {
         formPanel.add(nameField, gbc);
 
         gbc.gridx = 0; gbc.gridy = 2;
+        formPanel.add(createLabel("U-Number:"), gbc);
+        gbc.gridx = 1;
+        formPanel.add(uNumberField, gbc);
+        uNumberField.setEnabled(false);
+        categoryBox.addActionListener(e -> uNumberField.setEnabled(IdCardIndex.CATEGORY.equals(categoryBox.getSelectedItem())));
+
+        gbc.gridx = 0; gbc.gridy = 3;
         formPanel.add(createLabel("Brand/Model:"), gbc);
         gbc.gridx = 1;
         formPanel.add(brandField, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.gridx = 0; gbc.gridy = 4;
         formPanel.add(createLabel("Color:"), gbc);
         gbc.gridx = 1;
         formPanel.add(colorField, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 4;
+        gbc.gridx = 0; gbc.gridy = 5;
         formPanel.add(createLabel("Location Found:"), gbc);
         gbc.gridx = 1;
         formPanel.add(locationField, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 5;
+        gbc.gridx = 0; gbc.gridy = 6;
         formPanel.add(createLabel("Date Found:"), gbc);
         gbc.gridx = 1;
         formPanel.add(dateField, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 6;
+        gbc.gridx = 0; gbc.gridy = 7;
         formPanel.add(createLabel("Description:"), gbc);
         gbc.gridx = 1;
         formPanel.add(descScroll, gbc);
@@ -284,7 +1114,8 @@ public class Gui extends JFrame {
         submitBtn.addActionListener(e -> {
             String category = (String) categoryBox.getSelectedItem();
             String name = nameField.getText().trim();
-            String combined = (name + " " + brandField.getText() + " " + 
+            String uNumber = uNumberField.isEnabled() ? uNumberField.getText().trim() : "";
+            String combined = (name + (uNumber.isEmpty() ? "" : " U-Number " + uNumber) + " " + brandField.getText() + " " + 
                              colorField.getText() + " " + locationField.getText() + 
                              " " + dateField.getText() + " " + descArea.getText()).trim();
             
@@ -294,11 +1125,17 @@ public class Gui extends JFrame {
                 return;
             }
             
-            db.registerFound(category, name, combined);
-            JOptionPane.showMessageDialog(this, 
-                "Item registered successfully!\nID: " + (db.nextId - 1), 
-                "Success", JOptionPane.INFORMATION_MESSAGE);
-            cardLayout.show(mainPanel, "MENU");
+            String[] fields = formFields(category, name, uNumber, brandField.getText(), colorField.getText(),
+                locationField.getText(), dateField.getText(), descArea.getText());
+            AtomicBoolean cancelled = new AtomicBoolean();
+            runInBackground("Registering item...",
+                () -> fields != null ? db.registerFound(category, fields, cancelled::get) : db.registerFound(category, name, combined, cancelled::get),
+                () -> cancelled.set(true), id -> {
+                JOptionPane.showMessageDialog(this, 
+                    "Item registered successfully!\nID: " + id, 
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                cardLayout.show(mainPanel, "MENU");
+            });
         });
 
         JButton backBtn = createStyledButton("← Back", DANGER_COLOR);
@@ -308,7 +1145,7 @@ public class Gui extends JFrame {
         btnPanel.add(submitBtn);
         btnPanel.add(backBtn);
         
-        gbc.gridx = 0; gbc.gridy = 7; gbc.gridwidth = 2;
+        gbc.gridx = 0; gbc.gridy = 8; gbc.gridwidth = 2;
         formPanel.add(btnPanel, gbc);
 
         JPanel wrapper = new JPanel(new GridBagLayout());
@@ -318,10 +1155,23 @@ public class Gui extends JFrame {
         panel.add(wrapper, BorderLayout.CENTER);
         
         mainPanel.add(panel, "REGISTER_FOUND");
-        cardLayout.show(mainPanel, "REGISTER_FOUND");
+        return () -> {
+            categoryBox.setSelectedIndex(0);
+            for (JTextField field : new JTextField[] {nameField, uNumberField, brandField, colorField, locationField, dateField}) {
+                field.setText("");
+            }
+            descArea.setText("");
+        };
     }
 
     private void showRegisterLostPanel() {
+        if (resetLostPanel == null) resetLostPanel = buildRegisterLostPanel();
+        resetLostPanel.run();
+        cardLayout.show(mainPanel, "REGISTER_LOST");
+    }
+
+    // Returns what clears the form (and with it the live matches) for the next search
+    private Runnable buildRegisterLostPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(BACKGROUND_COLOR);
 
@@ -339,7 +1189,7 @@ public class Gui extends JFrame {
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.insets = new Insets(10, 10, 10, 10);
 
-        String[] categories = {"Electronics", "Daily Use", "Stationary", "Accessories", "Miscellaneous", "ID Card"};
+        String[] categories = {ALL_CATEGORIES, "Electronics", "Daily Use", "Stationary", "Accessories", "Miscellaneous", "ID Card"};
         JComboBox<String> categoryBox = new JComboBox<>(categories);
         categoryBox.setFont(NORMAL_FONT);
 
@@ -359,6 +1209,79 @@ public class Gui extends JFrame {
         gbc.gridx = 1; gbc.gridwidth = 1;
         formPanel.add(queryScroll, gbc);
 
+        // Matches as you type: every edit restarts a short timer; when it fires, the search still
+        // running for an older text is cancelled and a new one goes to the worker pool
+        DefaultListModel<String> liveModel = new DefaultListModel<>();
+        JList<String> liveList = new JList<>(liveModel);
+        liveList.setFont(NORMAL_FONT);
+        liveList.setVisibleRowCount(5);
+        JScrollPane liveScroll = new JScrollPane(liveList);
+        List<Map.Entry<Item, Double>> liveResults = new ArrayList<>();     // what liveModel shows
+        IncrementalSearch session = new IncrementalSearch();
+        TopK[] inFlight = {null};               // only touched on the EDT
+
+        javax.swing.Timer typingTimer = new javax.swing.Timer(TYPING_DELAY_MS, e -> {
+            if (inFlight[0] != null) inFlight[0].cancel();
+            inFlight[0] = null;
+            String category = (String) categoryBox.getSelectedItem();
+            String query = queryArea.getText().trim();
+            if (query.isEmpty()) {
+                liveResults.clear();
+                liveModel.clear();
+                return;
+            }
+            TopK best = new TopK(LostFoundDatabase.DESK_RESULTS);
+            inFlight[0] = best;
+            worker.submit(() -> {
+                try {
+                    db.searchIncremental(session, ALL_CATEGORIES.equals(category) ? null : category, query, best);
+                } catch (RuntimeException ex) {
+                    ex.printStackTrace();
+                    return;
+                }
+                List<Map.Entry<Item, Double>> results = best.drain();
+                SwingUtilities.invokeLater(() -> {
+                    if (inFlight[0] != best) return;       // the text changed again meanwhile
+                    inFlight[0] = null;
+                    liveResults.clear();
+                    liveResults.addAll(results);
+                    liveModel.clear();
+                    for (Map.Entry<Item, Double> entry : results) {
+                        Item item = entry.getKey();
+                        liveModel.addElement(String.format("%.1f%%   ID %d   %s (%s)",
+                            entry.getValue() * 100, item.id, item.name, item.category));
+                    }
+                    if (results.isEmpty()) liveModel.addElement("No matches yet");
+                });
+            });
+        });
+        typingTimer.setRepeats(false);
+        queryArea.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+            public void removeUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+            public void changedUpdate(DocumentEvent e) {
+                typingTimer.restart();
+            }
+        });
+        categoryBox.addActionListener(e -> typingTimer.restart());
+        // Double-click opens the full results page for what is listed, where an item can be claimed
+        liveList.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && !liveResults.isEmpty()) {
+                    showSearchResults(new ArrayList<>(liveResults));
+                }
+            }
+        });
+
+        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 1;
+        formPanel.add(createLabel("Matches:"), gbc);
+        gbc.gridx = 1;
+        formPanel.add(liveScroll, gbc);
+
         JPanel btnPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 20));
         btnPanel.setBackground(Color.WHITE);
 
@@ -384,7 +1307,7 @@ public class Gui extends JFrame {
         btnPanel.add(searchBtn);
         btnPanel.add(backBtn);
 
-        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2;
+        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 2;
         formPanel.add(btnPanel, gbc);
 
         JPanel wrapper = new JPanel(new GridBagLayout());
@@ -394,19 +1317,40 @@ public class Gui extends JFrame {
         panel.add(wrapper, BorderLayout.CENTER);
 
         mainPanel.add(panel, "REGISTER_LOST");
-        cardLayout.show(mainPanel, "REGISTER_LOST");
+        return () -> {
+            categoryBox.setSelectedIndex(0);
+            queryArea.setText("");
+        };
     }
 
     private void showSearchResults(String category, String query) {
-        List<Map.Entry<Item, Double>> results = db.searchItems(category, query);
-        
+        TopK best = new TopK(LostFoundDatabase.DESK_RESULTS);
+        runInBackground("Searching...", () -> {
+            if (ALL_CATEGORIES.equals(category)) {
+                db.searchAll(query, best);
+            } else {
+                db.searchItems(category, query, best);
+            }
+            if (best.isCancelled()) throw new CancellationException();
+            return best.drain();
+        }, best::cancel, this::showSearchResults);
+    }
+
+    private void showSearchResults(List<Map.Entry<Item, Double>> results) {
         if (results.isEmpty()) {
             JOptionPane.showMessageDialog(this, 
                 "No matching items found in this category.", 
                 "No Results", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
+        if (bindResults == null) bindResults = buildSearchResults();
+        bindResults.accept(results);
+        cardLayout.show(mainPanel, "RESULTS");
+    }
 
+    // Returns what shows a new set of matches. Result rows are kept and refilled; a longer result
+    // list than any before adds rows, a shorter one hides the rest.
+    private Consumer<List<Map.Entry<Item, Double>>> buildSearchResults() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(BACKGROUND_COLOR);
 
@@ -418,50 +1362,10 @@ public class Gui extends JFrame {
         resultsPanel.setBackground(BACKGROUND_COLOR);
         resultsPanel.setBorder(new EmptyBorder(20, 20, 20, 20));
 
+        List<Map.Entry<Item, Double>> shown = new ArrayList<>();
         ButtonGroup group = new ButtonGroup();
         List<JRadioButton> radioButtons = new ArrayList<>();
-
-        for (int i = 0; i < results.size(); i++) {
-            Map.Entry<Item, Double> entry = results.get(i);
-            Item item = entry.getKey();
-            double score = entry.getValue();
-
-            JPanel itemPanel = new JPanel(new BorderLayout());
-            itemPanel.setBackground(Color.WHITE);
-            itemPanel.setBorder(new CompoundBorder(
-                new EmptyBorder(5, 10, 5, 10),
-                new LineBorder(PRIMARY_COLOR, 1, true)
-            ));
-            itemPanel.setMaximumSize(new Dimension(800, 100));
-
-            JRadioButton radio = new JRadioButton();
-            radio.setBackground(Color.WHITE);
-            group.add(radio);
-            radioButtons.add(radio);
-
-            JPanel infoPanel = new JPanel(new GridLayout(3, 1, 5, 5));
-            infoPanel.setBackground(Color.WHITE);
-            
-            JLabel matchLabel = new JLabel(String.format("Match: %.1f%%", score * 100));
-            matchLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-            matchLabel.setForeground(SUCCESS_COLOR);
-
-            JLabel idLabel = new JLabel("ID: " + item.id + " | Category: " + item.category);
-            idLabel.setFont(NORMAL_FONT);
-
-            JLabel nameLabel = new JLabel("Name: " + item.name);
-            nameLabel.setFont(NORMAL_FONT);
-
-            infoPanel.add(matchLabel);
-            infoPanel.add(idLabel);
-            infoPanel.add(nameLabel);
-
-            itemPanel.add(radio, BorderLayout.WEST);
-            itemPanel.add(infoPanel, BorderLayout.CENTER);
-
-            resultsPanel.add(itemPanel);
-            resultsPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-        }
+        List<JLabel[]> rowLabels = new ArrayList<>();      // match, id, name label of each row
 
         JScrollPane scrollPane = new JScrollPane(resultsPanel);
         scrollPane.setBorder(null);
@@ -474,7 +1378,7 @@ public class Gui extends JFrame {
         claimBtn.setPreferredSize(new Dimension(180, 45));
         claimBtn.addActionListener(e -> {
             int selected = -1;
-            for (int i = 0; i < radioButtons.size(); i++) {
+            for (int i = 0; i < shown.size(); i++) {
                 if (radioButtons.get(i).isSelected()) {
                     selected = i;
                     break;
@@ -487,13 +1391,21 @@ public class Gui extends JFrame {
                 return;
             }
 
-            Item item = results.get(selected).getKey();
-            db.claimItem(item);
-            
-            JOptionPane.showMessageDialog(this, 
-                "Item claimed successfully!\n\nCollect from:\nLost and Found Department\nIT Building, 3rd Floor", 
-                "Success", JOptionPane.INFORMATION_MESSAGE);
-            cardLayout.show(mainPanel, "MENU");
+            Item item = shown.get(selected).getKey();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            runInBackground("Claiming item...", () -> db.claimItem(item.id, cancelled::get), () -> cancelled.set(true), claimed -> {
+                if (!claimed) {
+                    JOptionPane.showMessageDialog(this, "This item has already been claimed.",
+                        "Error", JOptionPane.WARNING_MESSAGE);
+                    cardLayout.show(mainPanel, "MENU");
+                    return;
+                }
+
+                JOptionPane.showMessageDialog(this, 
+                    "Item claimed successfully!\n\nCollect from:\nLost and Found Department\nIT Building, 3rd Floor", 
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                cardLayout.show(mainPanel, "MENU");
+            });
         });
 
         JButton backBtn = createStyledButton("← Back", DANGER_COLOR);
@@ -506,57 +1418,184 @@ public class Gui extends JFrame {
         panel.add(btnPanel, BorderLayout.SOUTH);
 
         mainPanel.add(panel, "RESULTS");
-        cardLayout.show(mainPanel, "RESULTS");
+        return results -> {
+            shown.clear();
+            shown.addAll(results);
+            while (radioButtons.size() < results.size()) {
+                JPanel itemPanel = new JPanel(new BorderLayout());
+                itemPanel.setBackground(Color.WHITE);
+                itemPanel.setBorder(new CompoundBorder(
+                    new EmptyBorder(5, 10, 5, 10),
+                    new LineBorder(PRIMARY_COLOR, 1, true)
+                ));
+                itemPanel.setMaximumSize(new Dimension(800, 100));
+
+                JRadioButton radio = new JRadioButton();
+                radio.setBackground(Color.WHITE);
+                group.add(radio);
+                radioButtons.add(radio);
+
+                JPanel infoPanel = new JPanel(new GridLayout(3, 1, 5, 5));
+                infoPanel.setBackground(Color.WHITE);
+
+                JLabel matchLabel = new JLabel();
+                matchLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+                matchLabel.setForeground(SUCCESS_COLOR);
+
+                JLabel idLabel = new JLabel();
+                idLabel.setFont(NORMAL_FONT);
+
+                JLabel nameLabel = new JLabel();
+                nameLabel.setFont(NORMAL_FONT);
+
+                infoPanel.add(matchLabel);
+                infoPanel.add(idLabel);
+                infoPanel.add(nameLabel);
+                rowLabels.add(new JLabel[] {matchLabel, idLabel, nameLabel});
+
+                itemPanel.add(radio, BorderLayout.WEST);
+                itemPanel.add(infoPanel, BorderLayout.CENTER);
+
+                resultsPanel.add(itemPanel);
+                resultsPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+            }
+
+            group.clearSelection();
+            for (int i = 0; i < radioButtons.size(); i++) {
+                boolean used = i < results.size();
+                resultsPanel.getComponent(2 * i).setVisible(used);
+                resultsPanel.getComponent(2 * i + 1).setVisible(used);
+                if (!used) continue;
+                Item item = results.get(i).getKey();
+                JLabel[] labels = rowLabels.get(i);
+                labels[0].setText(String.format("Match: %.1f%%", results.get(i).getValue() * 100));
+                labels[1].setText("ID: " + item.id + " | Category: " + item.category);
+                labels[2].setText("Name: " + item.name);
+            }
+            resultsPanel.revalidate();
+            resultsPanel.repaint();
+            scrollPane.getVerticalScrollBar().setValue(0);
+        };
     }
 
     private void showAllItems() {
-        List<Item> items = db.getAllItems();
-        
+        if (resetAllItems == null) resetAllItems = buildAllItems();
+        resetAllItems.run();
+        cardLayout.show(mainPanel, "SHOW_ALL");
+    }
+
+    // Returns what brings the table up to date when the view is opened again. The model only
+    // listens for registrations and claims while the view is showing.
+    private Runnable buildAllItems() {
+        ItemTableModel model = new ItemTableModel(db, worker);
+
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(BACKGROUND_COLOR);
 
-        JPanel header = createHeader("All Found Items (" + items.size() + ")");
+        JPanel header = createHeader("All Found Items (" + model.getRowCount() + ")");
+        JLabel headerLabel = (JLabel) header.getComponent(0);
         panel.add(header, BorderLayout.NORTH);
 
-        if (items.isEmpty()) {
-            JLabel emptyLabel = new JLabel("No items currently registered", SwingConstants.CENTER);
-            emptyLabel.setFont(SUBTITLE_FONT);
-            emptyLabel.setForeground(Color.GRAY);
-            panel.add(emptyLabel, BorderLayout.CENTER);
-        } else {
-            String[] columns = {"ID", "Category", "Name"};
-            Object[][] data = new Object[items.size()][3];
-            
-            for (int i = 0; i < items.size(); i++) {
-                Item item = items.get(i);
-                data[i][0] = item.id;
-                data[i][1] = item.category;
-                data[i][2] = item.name;
-            }
-
-            JTable table = new JTable(data, columns);
-            table.setFont(NORMAL_FONT);
-            table.setRowHeight(35);
-            table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
-            table.getTableHeader().setBackground(PRIMARY_COLOR);
-            table.getTableHeader().setForeground(Color.WHITE);
-            table.setSelectionBackground(SECONDARY_COLOR);
-            
-            JScrollPane scrollPane = new JScrollPane(table);
-            scrollPane.setBorder(new EmptyBorder(20, 20, 20, 20));
-            panel.add(scrollPane, BorderLayout.CENTER);
+        JTable table = new JTable(model);
+        table.setFont(NORMAL_FONT);
+        table.setRowHeight(35);
+        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
+        table.getTableHeader().setBackground(PRIMARY_COLOR);
+        table.getTableHeader().setForeground(Color.WHITE);
+        table.setSelectionBackground(SECONDARY_COLOR);
+        model.addTableModelListener(e -> headerLabel.setText("All Found Items (" + model.getRowCount() + ")"));
+
+        Runnable sortShown = () -> {
+            for (int c = 0; c < table.getColumnCount(); c++) {
+                table.getColumnModel().getColumn(c).setHeaderValue(model.getColumnName(table.convertColumnIndexToModel(c)));
+            }
+            table.getTableHeader().repaint();
+        };
+        // Sorting happens in the database, so the header clicks go to the model rather than a RowSorter
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if (column >= 0 && model.toggleSort(column)) sortShown.run();
+            }
+        });
+
+        JComboBox<String> filterBox = new JComboBox<>();
+        filterBox.setFont(NORMAL_FONT);
+        filterBox.addActionListener(e -> {
+            String category = (String) filterBox.getSelectedItem();
+            model.setFilter(ALL_CATEGORIES.equals(category) ? null : category);
+        });
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.setBackground(BACKGROUND_COLOR);
+        filterPanel.setBorder(new EmptyBorder(10, 20, 0, 20));
+        filterPanel.add(createLabel("Category:"));
+        filterPanel.add(filterBox);
+
+        // Found between two dates (dd-MM-yyyy, either end may be left empty), applied with Enter
+        JTextField fromField = new JTextField(8);
+        JTextField toField = new JTextField(8);
+        ActionListener dateFilter = e -> {
+            int from, to;
+            try {
+                from = fromField.getText().isBlank() ? Integer.MIN_VALUE : filterDay(fromField.getText());
+                to = toField.getText().isBlank()
+                    ? (from == Integer.MIN_VALUE ? DateRankIndex.NO_DATE : DateRankIndex.NO_DATE - 1)
+                    : filterDay(toField.getText());
+            } catch (DateTimeException ex) {
+                JOptionPane.showMessageDialog(this, "Please enter dates as dd-MM-yyyy.",
+                    "Error", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            model.setDateRange(from, to);
+            sortShown.run();
+        };
+        for (JTextField field : new JTextField[] {fromField, toField}) {
+            styleTextField(field);
+            field.addActionListener(dateFilter);
         }
+        filterPanel.add(createLabel("  Found from:"));
+        filterPanel.add(fromField);
+        filterPanel.add(createLabel("to:"));
+        filterPanel.add(toField);
+
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(new EmptyBorder(10, 20, 20, 20));
+        JPanel center = new JPanel(new BorderLayout());
+        center.setBackground(BACKGROUND_COLOR);
+        center.add(filterPanel, BorderLayout.NORTH);
+        center.add(scrollPane, BorderLayout.CENTER);
+        panel.add(center, BorderLayout.CENTER);
 
         JPanel btnPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         btnPanel.setBackground(BACKGROUND_COLOR);
         JButton backBtn = createStyledButton("← Back to Menu", DANGER_COLOR);
         backBtn.setPreferredSize(new Dimension(200, 45));
-        backBtn.addActionListener(e -> cardLayout.show(mainPanel, "MENU"));
+        backBtn.addActionListener(e -> {
+            db.removeChangeListener(model);
+            cardLayout.show(mainPanel, "MENU");
+        });
         btnPanel.add(backBtn);
         panel.add(btnPanel, BorderLayout.SOUTH);
 
         mainPanel.add(panel, "SHOW_ALL");
-        cardLayout.show(mainPanel, "SHOW_ALL");
+        return () -> {
+            // categories may have been added since the view was last open
+            Object selected = filterBox.getSelectedItem();
+            List<String> filters = new ArrayList<>();
+            filters.add(ALL_CATEGORIES);
+            filters.addAll(db.categories());
+            filterBox.setModel(new DefaultComboBoxModel<>(filters.toArray(new String[0])));
+            filterBox.setSelectedItem(filters.contains(selected) ? selected : ALL_CATEGORIES);
+            String category = (String) filterBox.getSelectedItem();
+            model.setFilter(ALL_CATEGORIES.equals(category) ? null : category);
+            db.addChangeListener(model);
+        };
+    }
+
+    // A date typed into the "View All" filter, as an epoch day
+    private static int filterDay(String text) {
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("dd-MM-uuuu").withResolverStyle(ResolverStyle.STRICT);
+        return (int) LocalDate.parse(text.trim(), format).toEpochDay();
     }
 
     private JPanel createHeader(String title) {
@@ -576,6 +1615,33 @@ public class Gui extends JFrame {
         return label;
     }
 
+    // The form's values in the category's field order (ItemFields.order). The form is the same for
+    // every category: text in a box the category has no field for goes with the description, and
+    // where there is no description either (ID Card) the item is registered as plain text (null)
+    private static String[] formFields(String category, String name, String uNumber, String brand, String color,
+                                       String location, String date, String description) {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("name", name);
+        form.put("unumber", uNumber);
+        form.put("brand", brand);
+        form.put("color", color);
+        form.put("location", location);
+        form.put("date", date);
+        form.put("description", description);
+        List<String> order = Arrays.asList(ItemFields.order(category));
+        StringBuilder extra = new StringBuilder();
+        for (Map.Entry<String, String> e : form.entrySet()) {
+            if (!order.contains(e.getKey()) && !e.getValue().isBlank()) extra.append(' ').append(e.getValue());
+        }
+        if (extra.length() > 0) {
+            if (!order.contains("description")) return null;
+            form.put("description", form.get("description") + extra);
+        }
+        String[] fields = new String[order.size()];
+        for (int i = 0; i < fields.length; i++) fields[i] = form.getOrDefault(order.get(i), "");
+        return fields;
+    }
+
     private void styleTextField(JTextField field) {
         field.setFont(NORMAL_FONT);
         field.setBorder(BorderFactory.createCompoundBorder(
@@ -0,0 +1,150 @@
+package lost_and_found_system;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Exact-key lookup for the ID Card category: U-Number -> cards and cardholder name -> cards, so a
+// claim that knows either is a hash lookup instead of a fuzzy scan of the category. Only when
+// neither finds a card does the caller fall back to the fuzzy search (a typo'd U-Number, a
+// misspelt name).
+// Keys are ItemFields.uNumberKey of the U-Number and the normalized name. Cards registered as plain
+// text (before fields were kept, or from a Gui form with text the card has no field for) are keyed
+// on the U-Number found in their text, if there is one. In a text only a U-Number written as one
+// counts ("U2023456", "U-2023456", or labelled "U-Number 2023456"); a bare run of digits may as well
+// be a phone or serial number.
+// Entries are copy-on-write arrays in concurrent maps, like the registry's description index:
+// lookups take no lock, add / remove are called under the category's lock (over the mapped store,
+// with the index itself locked).
+final class IdCardIndex {
+    static final String CATEGORY = "ID Card";
+
+    private static final int NAME = Arrays.asList(ItemFields.order(CATEGORY)).indexOf("name");
+    private static final int UNUMBER = Arrays.asList(ItemFields.order(CATEGORY)).indexOf("unumber");
+    private static final int MIN_DIGITS = 5;            // "u 12" in a text is more likely a room or a bus
+    private static final int NAME_WORDS = 4;            // longest holder name looked for in a free text
+
+    private final ConcurrentHashMap<String, Item[]> byUNumber = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Item[]> byHolder = new ConcurrentHashMap<>();
+
+    void add(Item item) {
+        if (!item.category.equals(CATEGORY)) return;
+        put(byUNumber, uNumber(item), item);
+        put(byHolder, holder(item), item);
+    }
+
+    void remove(Item item) {
+        if (!item.category.equals(CATEGORY)) return;
+        drop(byUNumber, uNumber(item), item);
+        drop(byHolder, holder(item), item);
+    }
+
+    // Offers the cards with the report's U-Number, or failing that the cardholder's name, into `best`:
+    // an exact U-Number scores 1, a name hit what ItemFields gives it on all the fields, if that is
+    // above minScore. False if nothing was offered, and the fuzzy search has to run
+    boolean lookup(String[] fields, DistanceStrategy metric, double minScore, TopK best) {
+        String key = fields[UNUMBER].isEmpty() ? "" : ItemFields.uNumberKey(fields[UNUMBER]);
+        Item[] cards = key.isEmpty() ? null : byUNumber.get(key);
+        if (cards != null) {
+            for (Item card : cards) best.offer(card, 1.0);
+            return true;
+        }
+        if (!key.isEmpty()) return false;               // a U-Number nobody has: likely a typo, search
+        cards = fields[NAME].isEmpty() ? null : byHolder.get(fields[NAME]);
+        if (cards == null) return false;
+        ItemFields profile = ItemFields.of(CATEGORY);
+        boolean offered = false;
+        for (Item card : cards) {          // only cards with fields are keyed on the holder
+            double score = profile.score(card.fields, fields, metric, minScore, best);
+            if (score >= 0) offered |= best.offer(card, score);
+        }
+        return offered;
+    }
+
+    // Same for a free-text query (normalized): the cards with a U-Number written in it, or failing
+    // that the cards of every holder whose name is in it (up to NAME_WORDS words in a row). A name
+    // hit scores 1 as well: the text has no fields to weigh the card's other values against
+    boolean lookup(String query, TopK best) {
+        String key = uNumberIn(query);
+        if (key != null) {
+            Item[] cards = byUNumber.get(key);
+            if (cards == null) return false;            // a U-Number nobody has: likely a typo, search
+            for (Item card : cards) best.offer(card, 1.0);
+            return true;
+        }
+        if (byHolder.isEmpty()) return false;
+        String[] words = query.split(" ");
+        Set<String> found = new HashSet<>();
+        boolean offered = false;
+        for (int from = 0; from < words.length; from++) {
+            StringBuilder name = new StringBuilder(words[from]);
+            for (int n = 1; n <= NAME_WORDS && from + n <= words.length; n++) {
+                if (n > 1) name.append(' ').append(words[from + n - 1]);
+                Item[] cards = byHolder.get(name.toString());
+                if (cards == null || !found.add(name.toString())) continue;
+                for (Item card : cards) best.offer(card, 1.0);
+                offered = true;
+            }
+        }
+        return offered;
+    }
+
+    private static String uNumber(Item item) {
+        if (item.fields != null) return item.fields[UNUMBER].isEmpty() ? null : ItemFields.uNumberKey(item.fields[UNUMBER]);
+        return uNumberIn(item.combinedDescription.toString());
+    }
+
+    private static String holder(Item item) {
+        return item.fields == null || item.fields[NAME].isEmpty() ? null : item.fields[NAME];
+    }
+
+    // The U-Number key in a normalized text, null if there is none:
+    //   "u2023456", "u 2023456" (how "U-2023456" normalizes)   u and MIN_DIGITS or more digits
+    //   "unumber 2023456", "u number 2023456"                  the field's label, then the value
+    static String uNumberIn(String text) {
+        String[] words = text.split(" ");
+        for (int i = 0; i < words.length; i++) {
+            String word = words[i];
+            if (word.length() > MIN_DIGITS && word.charAt(0) == 'u' && digits(word, 1)) return word.substring(1);
+            String next = i + 1 < words.length ? words[i + 1] : "";
+            if (word.equals("u") && next.length() >= MIN_DIGITS && digits(next, 0)) return next;
+            int value = word.equals("unumber") ? i + 1 : word.equals("u") && next.equals("number") ? i + 2 : -1;
+            if (value > 0 && value < words.length) {
+                String key = ItemFields.uNumberKey(words[value].equals("u") && value + 1 < words.length
+                    ? words[value + 1] : words[value]);
+                if (!key.isEmpty()) return key;
+            }
+        }
+        return null;
+    }
+
+    private static boolean digits(String word, int from) {
+        for (int i = from; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return from < word.length();
+    }
+
+    private static void put(ConcurrentHashMap<String, Item[]> map, String key, Item item) {
+        if (key == null || key.isEmpty()) return;
+        map.merge(key, new Item[] {item}, (old, one) -> {
+            Item[] more = Arrays.copyOf(old, old.length + 1);
+            more[old.length] = item;
+            return more;
+        });
+    }
+
+    private static void drop(ConcurrentHashMap<String, Item[]> map, String key, Item item) {
+        if (key == null || key.isEmpty()) return;
+        map.computeIfPresent(key, (k, old) -> {
+            int at = 0;         // by id: the mapped store hands out a new copy of the item on every read
+            while (at < old.length && old[at].id != item.id) at++;
+            if (at == old.length) return old;
+            if (old.length == 1) return null;
+            Item[] rest = new Item[old.length - 1];
+            System.arraycopy(old, 0, rest, 0, at);
+            System.arraycopy(old, at + 1, rest, at, rest.length - at);
+            return rest;
+        });
+    }
+}
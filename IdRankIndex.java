@@ -0,0 +1,56 @@
+package lost_and_found_system;
+
+import java.util.Arrays;
+
+// Live item ids as an order-statistic set: how many live ids lie below a given id, and which id is
+// the r-th live one, both in O(log n). A Fenwick tree over the id range (ids are handed out in
+// increasing order and never reused), doubled when an id outgrows it.
+// Lets the paged "View All" table jump to any row without copying the items out of the registry.
+final class IdRankIndex {
+    private int[] tree = new int[1024];         // 1-based Fenwick tree, id i counted at index i + 1; length a power of two
+    private int size;
+
+    synchronized int size() {
+        return size;
+    }
+
+    // The caller makes sure the id is not in the set yet
+    synchronized void add(int id) {
+        while (id + 1 >= tree.length) grow();
+        for (int i = id + 1; i < tree.length; i += i & -i) tree[i]++;
+        size++;
+    }
+
+    // The caller makes sure the id is in the set
+    synchronized void remove(int id) {
+        for (int i = id + 1; i < tree.length; i += i & -i) tree[i]--;
+        size--;
+    }
+
+    // Number of live ids below `id`
+    synchronized int rankOf(int id) {
+        int rank = 0;
+        for (int i = Math.min(id, tree.length - 1); i > 0; i -= i & -i) rank += tree[i];
+        return rank;
+    }
+
+    // The live id with `rank` live ids below it, or -1 if there are not that many
+    synchronized int select(int rank) {
+        if (rank < 0 || rank >= size) return -1;
+        int pos = 0, remaining = rank + 1;
+        for (int step = tree.length >>> 1; step > 0; step >>>= 1) {
+            if (tree[pos + step] < remaining) {
+                pos += step;
+                remaining -= tree[pos];
+            }
+        }
+        return pos;             // Fenwick index pos + 1, i.e. id pos
+    }
+
+    // Indexes below the old length keep their ranges; the first new one covers all of the old ids
+    private void grow() {
+        int old = tree.length;
+        tree = Arrays.copyOf(tree, old * 2);
+        tree[old] = size;
+    }
+}
@@ -0,0 +1,154 @@
+package lost_and_found_system;
+
+import java.util.*;
+
+// One category's items as columns, addressed by slot (the order they were added in), shared by
+// the word and trigram indexes of the category, whose postings hold slots:
+//   ids       item id per slot, 0 once the item is claimed (tombstone)
+//   texts     the Latin-1 bytes of each slot's Description - the Item's own array, not a copy,
+//             so a description is held once; the byte kernels score it in place against the
+//             query's bytes and the Items are not read
+//   items     the Item per slot, only touched to hand a result out
+// An open-addressing int table maps item ids to slots. Claimed slots stay (postings still point
+// at them) until CategoryIndex compacts the category into fresh columns.
+// A description with a char above Latin-1 has no bytes; its slot reads the Item's Description
+// instead (`wide`).
+// Not thread-safe: CategoryIndex guards it with its lock.
+final class ItemColumns {
+    private int[] ids = new int[16];
+    private byte[][] texts = new byte[16][];
+    private Item[] items = new Item[16];
+    private Description[] wide;                 // null until a description doesn't fit in Latin-1
+    private int slotCount;
+    private int live;
+
+    private int[] slotKeys = new int[32];       // id -> slot, open addressing; 0 = empty (ids start at 1)
+    private int[] slotValues = new int[32];
+    private int mapped;                         // entries in the table, claimed ids included
+
+    int size() {
+        return live;
+    }
+
+    int slotCount() {
+        return slotCount;
+    }
+
+    // Claimed slots not compacted away yet
+    int dead() {
+        return slotCount - live;
+    }
+
+    boolean isLive(int slot) {
+        return ids[slot] != 0;
+    }
+
+    int id(int slot) {
+        return ids[slot];
+    }
+
+    Item item(int slot) {
+        return items[slot];
+    }
+
+    int length(int slot) {
+        byte[] text = texts[slot];
+        return text != null ? text.length : wide[slot].length();
+    }
+
+    // False for a description without Latin-1 bytes
+    boolean isLatin1(int slot) {
+        return texts[slot] != null;
+    }
+
+    // Distance from Latin-1 query bytes to a Latin-1 slot's description, read in place
+    int distance(byte[] query, int slot, DistanceStrategy metric, int maxDistance) {
+        byte[] text = texts[slot];
+        return metric.distance(query, 0, query.length, text, 0, text.length, maxDistance);
+    }
+
+    // The slot's description, read in place through `view` (or the wide Description itself)
+    CharSequence description(int slot, Description.View view) {
+        byte[] text = texts[slot];
+        return text != null ? view.at(text, 0, text.length) : wide[slot];
+    }
+
+    // New slot for the item, or -1 if it is in already
+    int add(Item item) {
+        if (slot(item.id) >= 0) return -1;
+        if (slotCount == ids.length) {
+            ids = Arrays.copyOf(ids, slotCount * 2);
+            texts = Arrays.copyOf(texts, slotCount * 2);
+            items = Arrays.copyOf(items, slotCount * 2);
+            if (wide != null) wide = Arrays.copyOf(wide, slotCount * 2);
+        }
+        int slot = slotCount++;
+        Description text = item.combinedDescription;
+        texts[slot] = text.bytes();
+        if (texts[slot] == null) {
+            if (wide == null) wide = new Description[ids.length];
+            wide[slot] = text;
+        }
+        ids[slot] = item.id;
+        items[slot] = item;
+        live++;
+        put(item.id, slot);
+        return slot;
+    }
+
+    // Tombstones the item's slot and returns it, or -1 if it isn't here
+    int remove(Item item) {
+        int slot = slot(item.id);
+        if (slot < 0 || ids[slot] == 0) return -1;
+        ids[slot] = 0;
+        items[slot] = null;
+        live--;
+        return slot;
+    }
+
+    // The live items in slot order (what a compaction carries over)
+    List<Item> liveItems() {
+        List<Item> out = new ArrayList<>(live);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] != 0) out.add(items[slot]);
+        }
+        return out;
+    }
+
+    // Slot the id was given, or -1
+    int slot(int id) {
+        int mask = slotKeys.length - 1;
+        for (int h = mix(id) & mask; slotKeys[h] != 0; h = (h + 1) & mask) {
+            if (slotKeys[h] == id) return slotValues[h];
+        }
+        return -1;
+    }
+
+    private void put(int id, int slot) {
+        if ((mapped + 1) * 2 > slotKeys.length) growTable();
+        int mask = slotKeys.length - 1;
+        int h = mix(id) & mask;
+        while (slotKeys[h] != 0 && slotKeys[h] != id) h = (h + 1) & mask;
+        if (slotKeys[h] == 0) mapped++;
+        slotKeys[h] = id;
+        slotValues[h] = slot;
+    }
+
+    private void growTable() {
+        int[] oldKeys = slotKeys, oldValues = slotValues;
+        slotKeys = new int[oldKeys.length * 2];
+        slotValues = new int[oldKeys.length * 2];
+        int mask = slotKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int h = mix(oldKeys[i]) & mask;
+            while (slotKeys[h] != 0) h = (h + 1) & mask;
+            slotKeys[h] = oldKeys[i];
+            slotValues[h] = oldValues[i];
+        }
+    }
+
+    private static int mix(int id) {
+        return id * 0x9E3779B9;
+    }
+}
@@ -0,0 +1,266 @@
+package lost_and_found_system;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The fields registerFound asks for per category, and how a lost report is scored against them
+// field by field instead of as one flattened string:
+//   text     similarity of the two values (1 - edit distance / longer length), on the short field
+//   color    the same after mapping synonyms onto one word (gray -> grey, navy -> blue)
+//   unumber  exact match after dropping the "u" and punctuation, 0 otherwise
+//   date     1 on the same day, falling linearly to 0 at DATE_WINDOW days apart (a typo'd date
+//            that doesn't parse is compared as text)
+// The score is the weighted mean over the fields both sides filled in, so an empty field costs
+// nothing and a wrong date costs far less than a wrong brand. Weights per category can be changed
+// with -Dlostfound.weights.<category>=field:weight,..., category written as BulkImporter.key
+// spells it, e.g. -Dlostfound.weights.idcard=unumber:8,name:3
+// Values are normalized (TextNormalizer) and kept in the category's order. For the log, snapshot
+// and mapped files they are joined with SEPARATOR into the one text those already store.
+final class ItemFields {
+    static final char SEPARATOR = '\u001F';     // ASCII unit separator, never left in a normalized value
+    static final int DATE_WINDOW = 14;
+    private static final int SHARED_LENGTH = 24;
+    private static final int SHARED_VALUES = 1 << 16;
+
+    private static final Map<String, String> COLORS = new HashMap<>();
+    private static final ConcurrentHashMap<String, ItemFields> PROFILES = new ConcurrentHashMap<>();
+    // One copy of each short categorical value of a registered item (share); once full, new values
+    // just keep their own copy
+    private static final ConcurrentHashMap<String, String> SHARED = new ConcurrentHashMap<>();
+
+    static {
+        String[][] groups = {
+            {"grey", "gray", "ash", "charcoal"},
+            {"silver", "metallic", "steel", "chrome"},
+            {"white", "cream", "ivory", "offwhite"},
+            {"blue", "navy", "aqua", "teal", "turquoise"},
+            {"red", "maroon", "crimson", "burgundy", "wine"},
+            {"pink", "magenta", "fuchsia"},
+            {"green", "olive", "lime", "mint"},
+            {"yellow", "mustard"},
+            {"gold", "golden"},
+            {"brown", "tan", "beige", "khaki", "chocolate"},
+            {"purple", "violet", "lavender"},
+            {"orange", "peach"},
+        };
+        for (String[] group : groups) {
+            for (String color : group) COLORS.put(color, group[0]);
+        }
+    }
+
+    private enum Kind { TEXT, COLOR, UNUMBER, DATE }
+
+    private final String[] names;
+    private final Kind[] kinds;
+    private final double[] weights;
+    private final boolean[] categorical;    // values that repeat across items: not the name, description or U-Number
+    private final int[] byWeight;       // field indexes, heaviest first
+
+    private ItemFields(String category) {
+        names = order(category);
+        kinds = new Kind[names.length];
+        weights = new double[names.length];
+        categorical = new boolean[names.length];
+        for (int i = 0; i < names.length; i++) {
+            kinds[i] = switch (names[i]) {
+                case "color" -> Kind.COLOR;
+                case "unumber" -> Kind.UNUMBER;
+                case "date" -> Kind.DATE;
+                default -> Kind.TEXT;
+            };
+            weights[i] = defaultWeight(category, names[i]);
+            categorical[i] = kinds[i] != Kind.UNUMBER && !names[i].equals("name") && !names[i].equals("description");
+        }
+        String custom = System.getProperty("lostfound.weights." + BulkImporter.key(category));
+        if (custom != null) {
+            for (String pair : custom.split(",")) {
+                String[] kv = pair.split(":");
+                int at = kv.length == 2 ? Arrays.asList(names).indexOf(BulkImporter.key(kv[0])) : -1;
+                try {
+                    if (at >= 0) weights[at] = Math.max(0, Double.parseDouble(kv[1].trim()));
+                    else System.err.println("Ignoring weight '" + pair + "' for " + category);
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring weight '" + pair + "' for " + category);
+                }
+            }
+        }
+        byWeight = new int[names.length];
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(weights[b], weights[a]));
+        for (int i = 0; i < order.length; i++) byWeight[i] = order[i];
+    }
+
+    static ItemFields of(String category) {
+        ItemFields fields = PROFILES.get(category);
+        return fields != null ? fields : PROFILES.computeIfAbsent(category, ItemFields::new);
+    }
+
+    // Fields registerFound asks for in the category, in its order (unknown category: the generic ones)
+    static String[] order(String category) {
+        return switch (category) {
+            case "Electronics" -> new String[] {"name", "brand", "color", "location", "date", "description"};
+            case "Miscellaneous" -> new String[] {"name", "location", "date", "description"};
+            case "ID Card" -> new String[] {"name", "department", "unumber", "year", "location", "date"};
+            default -> new String[] {"name", "color", "location", "date", "description"};
+        };
+    }
+
+    private static double defaultWeight(String category, String field) {
+        return switch (field) {
+            case "unumber" -> 8;
+            case "name" -> category.equals("ID Card") ? 4 : 3;
+            case "brand" -> 2.5;
+            case "color" -> 1.5;
+            case "description" -> 1.5;
+            case "department" -> 1.5;
+            case "location" -> 1;
+            default -> 0.5;          // date, year
+        };
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    // Every value normalized; missing ones (a short array, nulls) become ""
+    static String[] normalize(String[] values, int size) {
+        String[] out = new String[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = i < values.length && values[i] != null ? TextNormalizer.normalize(values[i]) : "";
+        }
+        return out;
+    }
+
+    // A registered item's normalized values, with the short categorical ones (a brand, a color, a
+    // place, a date) swapped for the copy other items already hold: they repeat across thousands
+    // of items. Queries don't go through here, so what a desk types is never kept
+    String[] share(String[] values) {
+        for (int i = 0; i < values.length && i < categorical.length; i++) {
+            String value = values[i];
+            if (!categorical[i] || value.isEmpty() || value.length() > SHARED_LENGTH) continue;
+            String copy = SHARED.get(value);
+            if (copy == null && SHARED.size() < SHARED_VALUES) {
+                copy = SHARED.putIfAbsent(value, value);
+                if (copy == null) copy = value;
+            }
+            if (copy != null) values[i] = copy;
+        }
+        return values;
+    }
+
+    // The combined description: the non-empty values, one space apart
+    static String join(String[] values) {
+        StringBuilder sb = new StringBuilder(64);
+        for (String value : values) {
+            if (value.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    static String encode(String[] values) {
+        return String.join(String.valueOf(SEPARATOR), values);
+    }
+
+    // The values of an encoded text, or null for a plain description (stored before items had fields)
+    static String[] decode(String stored) {
+        if (stored.indexOf(SEPARATOR) < 0) return null;
+        return stored.split(String.valueOf(SEPARATOR), -1);
+    }
+
+    // A U-Number as it is matched: letters and digits only, without the leading "u"
+    static String uNumberKey(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) sb.append(Character.toLowerCase(c));
+        }
+        if (sb.length() > 1 && sb.charAt(0) == 'u' && Character.isDigit(sb.charAt(1))) sb.deleteCharAt(0);
+        return sb.toString();
+    }
+
+    // Weighted score of an item's values against a report's, or -1 if it can't beat minScore or the
+    // current k-th best. Heaviest fields go first, and the item is dropped as soon as the remaining
+    // weight can no longer lift it high enough; each text field's distance is cut off at what that
+    // leaves it. Counted in `best` as one item scored, with the DP cells of all its fields
+    double score(String[] item, String[] query, DistanceStrategy metric, double minScore, TopK best) {
+        double total = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (weights[i] > 0 && !query[i].isEmpty() && !item[i].isEmpty()) total += weights[i];
+        }
+        if (total == 0) return -1;
+        double need = best.isFull() ? Math.max(minScore, best.floor()) : minScore;
+        double got = 0, left = total;
+        long cells = 0;
+        for (int i : byWeight) {
+            if (weights[i] == 0 || query[i].isEmpty() || item[i].isEmpty()) continue;
+            left -= weights[i];
+            double lowest = (need * total - got - left) / weights[i];      // this field's score must reach it
+            double s = -1;
+            if (lowest <= 1) {
+                String a = item[i], b = query[i];
+                LocalDate da, db;
+                if (kinds[i] == Kind.UNUMBER) {
+                    s = uNumberKey(a).equals(uNumberKey(b)) ? 1.0 : 0.0;
+                } else if (kinds[i] == Kind.DATE && (da = date(a)) != null && (db = date(b)) != null) {
+                    s = Math.max(0.0, 1.0 - (double) Math.abs(ChronoUnit.DAYS.between(da, db)) / DATE_WINDOW);
+                } else {
+                    if (kinds[i] == Kind.COLOR) {
+                        a = canonicalColor(a);
+                        b = canonicalColor(b);
+                    }
+                    int maxLength = Math.max(a.length(), b.length());
+                    int limit = lowest <= 0 ? maxLength : Math.min(maxLength, (int) Math.ceil((1.0 - lowest) * maxLength));
+                    cells += (long) Math.min(a.length(), b.length()) * Math.min(maxLength, 2 * limit + 1);
+                    int d = metric.distance(a, b, limit);
+                    if (d <= limit) s = 1.0 - ((double) d / maxLength);
+                }
+            }
+            if (s >= 0) got += weights[i] * s;
+            if (s < 0 || (got + left) / total < need) {
+                best.scored(cells);
+                return -1;
+            }
+        }
+        best.scored(cells);
+        double score = got / total;
+        return score > minScore ? score : -1;
+    }
+
+    // The day an item with these (normalized) values was found, as an epoch day, for the "View All"
+    // table's date order; DateRankIndex.NO_DATE without a date field or one that parses
+    static int day(String category, String[] values) {
+        int at = values == null ? -1 : Arrays.asList(order(category)).indexOf("date");
+        LocalDate found = at >= 0 && at < values.length ? date(values[at]) : null;
+        return found == null ? DateRankIndex.NO_DATE : (int) found.toEpochDay();
+    }
+
+    // "12 03 2024" (a normalized dd-MM-yyyy) as a date, or null
+    private static LocalDate date(String value) {
+        String[] parts = value.split(" ");
+        if (parts.length != 3) return null;
+        try {
+            return LocalDate.of(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]), Integer.parseInt(parts[0]));
+        } catch (NumberFormatException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static String canonicalColor(String value) {
+        String[] words = value.split(" ");
+        boolean changed = false;
+        for (int i = 0; i < words.length; i++) {
+            String canonical = COLORS.get(words[i]);
+            if (canonical != null && !canonical.equals(words[i])) {
+                words[i] = canonical;
+                changed = true;
+            }
+        }
+        return changed ? String.join(" ", words) : value;
+    }
+}
@@ -0,0 +1,70 @@
+package lost_and_found_system;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latency histogram in the spirit of HdrHistogram: log-linear buckets over nanoseconds. Values
+// below 64 ns get a bucket each; above that every power of two is split into 32 buckets, so a
+// percentile is never more than ~3% above the recorded value. Values are capped at 2^40 ns (18
+// minutes), which keeps it to a fixed 1152 buckets (~9 KB).
+// Recording is one atomic increment and needs no lock; reads see a slightly moving picture while
+// other threads keep recording, which is fine for monitoring.
+final class LatencyHistogram {
+    private static final int LINEAR = 64;
+    private static final int SUB = 32;
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS = LINEAR + (MAX_BITS - 6) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long v = Math.max(0, Math.min(nanos, (1L << MAX_BITS) - 1));
+        counts.incrementAndGet(bucket(v));
+        total.incrementAndGet();
+        if (v > max.get()) max.accumulateAndGet(v, Math::max);
+    }
+
+    long count() {
+        return total.get();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    // Smallest bucket bound that at least `quantile` of the recorded values are under (0 if empty)
+    long percentile(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += snapshot[i] = counts.get(i);
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), max());
+        }
+        return max();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        max.set(0);
+    }
+
+    private static int bucket(long v) {
+        if (v < LINEAR) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - 5;         // v >> shift is in [32, 64)
+        return LINEAR + (shift - 1) * SUB + (int) (v >>> shift) - SUB;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int shift = (bucket - LINEAR) / SUB + 1;
+        long top = (bucket - LINEAR) % SUB + SUB;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,401 @@
+package lost_and_found_system;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Off-heap item store: item records and their text live in two memory-mapped files, so the heap
+// holds nothing per item and reopening a registry is just mapping the files again.
+//   <base>.items   4 KB header (magic, version, nextId, text end, live count, category names), then
+//                  one 32-byte record per id at HEADER + id * RECORD: flags, category code, name,
+//                  description and fields lengths, offset of the text
+//   <base>.text    per item its name, normalized description and encoded fields (ItemFields.encode,
+//                  none for a plain-text item) as UTF-16 chars back to back, never split across
+//                  segments. An item with fields keeps its text twice, joined for the search and
+//                  encoded for reading the item back.
+// Both files are mapped in 64 MB segments and grow a segment at a time. Search scans the records,
+// rejects what the length difference alone rules out, and runs the distance kernel on a
+// CharSequence view of the mapped text; Items (and their Strings) are only created for results.
+// What the heap registry has and this store doesn't, for the heap it saves:
+//   - no trigram or word index: every search is a scan of all the records (split over the
+//     fork-join pool), so it grows with the store rather than with the candidates
+//   - a field report is scored on the joined text, not field by field
+//   - findByDescription is a scan as well, and the "View All" date order is the id order
+// The database keeps the ID Card category's IdCardIndex on the heap next to it.
+// Writes reach the page cache at once (they survive the process dying) and the disk on force().
+// add / remove are serialized on the store; searches take no lock. A record is complete before
+// nextId (volatile) moves past it, so a search only ever scans fully written records.
+// The "View All" table pages in id order through count / countBefore / idAt. They work from live
+// counts per block of 4096 ids and category, built on first use and kept up to date by add /
+// remove: whole blocks are added up and only one block's records are read, and the heap holds a
+// counter per block rather than anything per item.
+final class MappedItemStore implements Closeable {
+    private static final int MAGIC = 0x4C464D31;    // "LFM1"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_BITS = 26;
+    static final int SEGMENT = 1 << SEGMENT_BITS;
+    static final int HEADER = 4096;
+    static final int RECORD = 32;
+
+    // header fields
+    private static final int H_MAGIC = 0, H_VERSION = 4, H_NEXT_ID = 8, H_TEXT_END = 16, H_LIVE = 24;
+    private static final int H_CATEGORY_COUNT = 28, H_CATEGORIES = 32;
+    // record fields
+    // (R_FIELD_CHARS is 0 in a file written before fields were kept: those items read back as plain text)
+    private static final int R_FLAGS = 0, R_CATEGORY = 1, R_NAME_CHARS = 4, R_DESC_CHARS = 8, R_FIELD_CHARS = 12, R_TEXT = 16;
+    private static final byte LIVE = 1;
+    private static final int BLOCK_BITS = 12;
+
+    private final FileChannel itemFile;
+    private final FileChannel textFile;
+    private final List<MappedByteBuffer> itemSegments = new CopyOnWriteArrayList<>();
+    private final List<MappedByteBuffer> textSegments = new CopyOnWriteArrayList<>();
+    private final List<String> categories = new CopyOnWriteArrayList<>();
+    private int categoryEnd = H_CATEGORIES;     // header offset after the last category name
+    private volatile int nextId;
+    private long textEnd;
+    private volatile int live;
+    private int[][] blockCounts;                // [1 + category code][block], [0] all categories; null until paged
+
+    MappedItemStore(Path base) throws IOException {
+        itemFile = FileChannel.open(base.resolveSibling(base.getFileName() + ".items"),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        textFile = FileChannel.open(base.resolveSibling(base.getFileName() + ".text"),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = segment(itemSegments, itemFile, 0);
+        if (header.getInt(H_MAGIC) == 0) {
+            header.putInt(H_MAGIC, MAGIC).putInt(H_VERSION, VERSION).putInt(H_NEXT_ID, 1);
+            header.putLong(H_TEXT_END, 0).putInt(H_LIVE, 0).putInt(H_CATEGORY_COUNT, 0);
+        } else if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_VERSION) != VERSION) {
+            throw new IOException("Not an item store: " + base);
+        }
+        nextId = header.getInt(H_NEXT_ID);
+        textEnd = header.getLong(H_TEXT_END);
+        live = header.getInt(H_LIVE);
+        int count = header.getInt(H_CATEGORY_COUNT);
+        for (int c = 0; c < count; c++) {
+            char[] name = new char[header.getShort(categoryEnd)];
+            for (int i = 0; i < name.length; i++) name[i] = header.getChar(categoryEnd + 2 + 2 * i);
+            categories.add(new String(name));
+            categoryEnd += 2 + 2 * name.length;
+        }
+        // map everything written so far up front, so searches never have to map
+        segment(itemSegments, itemFile, (int) (recordPosition(nextId) >>> SEGMENT_BITS));
+        segment(textSegments, textFile, (int) (textEnd >>> SEGMENT_BITS));
+    }
+
+    int nextId() {
+        return nextId;
+    }
+
+    int size() {
+        return live;
+    }
+
+    // Stores a new item (already normalized, as Item does it) under the next id, which the item is
+    // given as well, and returns that id
+    synchronized int add(Item item) {
+        CharSequence description = item.combinedDescription;
+        String fields = item.fields != null ? ItemFields.encode(item.fields) : "";
+        long bytes = 2L * (item.name.length() + description.length() + fields.length());
+        if (bytes > SEGMENT) throw new IllegalArgumentException("Item text too long: " + bytes + " bytes");
+        int code = categoryCode(item.category);
+        int id = nextId;
+
+        long start = textEnd;
+        if ((start & (SEGMENT - 1)) + bytes > SEGMENT) start = (start >>> SEGMENT_BITS) + 1 << SEGMENT_BITS;
+        ByteBuffer text = segment(textSegments, textFile, (int) (start >>> SEGMENT_BITS));
+        int at = (int) (start & (SEGMENT - 1));
+        for (CharSequence part : new CharSequence[] {item.name, description, fields}) {
+            for (int i = 0; i < part.length(); i++, at += 2) text.putChar(at, part.charAt(i));
+        }
+
+        ByteBuffer records = recordSegment(id);
+        int r = recordOffset(id);
+        records.put(r + R_CATEGORY, (byte) code);
+        records.putInt(r + R_NAME_CHARS, item.name.length());
+        records.putInt(r + R_DESC_CHARS, description.length());
+        records.putInt(r + R_FIELD_CHARS, fields.length());
+        records.putLong(r + R_TEXT, start);
+        records.put(r + R_FLAGS, LIVE);         // last, so a half-written record is never live
+
+        nextId = id + 1;
+        textEnd = start + bytes;
+        live++;
+        writeCounters();
+        counted(code, id, 1);
+        item.id = id;
+        return id;
+    }
+
+    // True for exactly one caller per live id
+    synchronized boolean remove(int id) {
+        if (!isLive(id)) return false;
+        ByteBuffer records = recordSegment(id);
+        records.put(recordOffset(id) + R_FLAGS, (byte) 0);
+        live--;
+        writeCounters();
+        counted(records.get(recordOffset(id) + R_CATEGORY) & 0xFF, id, -1);
+        return true;
+    }
+
+    // The item stored under this id, or null if there is none (never registered or claimed). Its
+    // text was normalized when it was added, and is read back as it is
+    Item item(int id) {
+        if (!isLive(id)) return null;
+        ByteBuffer records = recordSegment(id);
+        int r = recordOffset(id);
+        long at = records.getLong(r + R_TEXT);
+        int nameChars = records.getInt(r + R_NAME_CHARS), descChars = records.getInt(r + R_DESC_CHARS);
+        int fieldChars = records.getInt(r + R_FIELD_CHARS);
+        Text text = new Text();
+        text.at(at, nameChars);
+        String name = text.toString();
+        text.at(at += 2L * nameChars, descChars);
+        String description = text.toString();
+        String[] fields = null;
+        if (fieldChars > 0) {
+            text.at(at + 2L * descChars, fieldChars);
+            fields = ItemFields.decode(text.toString());
+        }
+        return new Item(id, categories.get(records.get(r + R_CATEGORY) & 0xFF), name, description, fields);
+    }
+
+    // Category of a live id without decoding its text, null if the id is not live
+    String categoryOf(int id) {
+        if (!isLive(id)) return null;
+        return categories.get(recordSegment(id).get(recordOffset(id) + R_CATEGORY) & 0xFF);
+    }
+
+    List<String> categories() {
+        return new ArrayList<>(categories);
+    }
+
+    // Live items of the category (null = all)
+    synchronized int count(String category) {
+        if (category == null) return live;
+        if (!categories.contains(category)) return 0;
+        int n = 0;
+        for (int blocks : blocks(categories.indexOf(category))) n += blocks;
+        return n;
+    }
+
+    // Live items of the category (null = all) with a lower id
+    synchronized int countBefore(String category, int id) {
+        int code = category == null ? -1 : categories.indexOf(category);
+        if (category != null && code < 0) return 0;
+        int[] blocks = blocks(code);
+        id = Math.min(id, nextId);
+        int block = id >>> BLOCK_BITS, n = 0;
+        for (int b = 0; b < Math.min(block, blocks.length); b++) n += blocks[b];
+        for (int i = Math.max(1, block << BLOCK_BITS); i < id; i++) {
+            if (isLive(i, code)) n++;
+        }
+        return n;
+    }
+
+    // The live id of the category (null = all) with `rank` live ids of it below, or -1
+    synchronized int idAt(String category, int rank) {
+        int code = category == null ? -1 : categories.indexOf(category);
+        if (category != null && code < 0) return -1;
+        int[] blocks = blocks(code);
+        int b = 0;
+        while (b < blocks.length && rank >= blocks[b]) rank -= blocks[b++];
+        if (rank < 0 || b == blocks.length) return -1;
+        for (int id = Math.max(1, b << BLOCK_BITS), end = Math.min(nextId, (b + 1) << BLOCK_BITS); id < end; id++) {
+            if (isLive(id, code) && rank-- == 0) return id;
+        }
+        return -1;
+    }
+
+    List<Item> items() {
+        return items(null);
+    }
+
+    // Live items of the category (null = all), in id order; Items are only built for the category
+    List<Item> items(String category) {
+        int code = category == null ? -1 : categories.indexOf(category);
+        if (category != null && code < 0) return new ArrayList<>();
+        List<Item> out = new ArrayList<>(category == null ? live : 16);
+        for (int id = 1, end = nextId; id < end; id++) {
+            Item item = isLive(id, code) ? item(id) : null;
+            if (item != null) out.add(item);
+        }
+        return out;
+    }
+
+    // Offers every item of the category (null = all categories) that can make the top k above
+    // minScore into `best`; large stores are scanned in chunks on the fork-join pool (TrigramIndex.split)
+    void search(String category, String query, DistanceStrategy metric, double minScore, TopK best) {
+        int code = category == null ? -1 : categories.indexOf(category);
+        if (live == 0 || best.k() == 0 || (category != null && code < 0)) return;
+        TrigramIndex.split(nextId, minScore, best,
+            (floor, into, lo, hi) -> searchRange(code, query, metric, floor, into, Math.max(1, lo), hi));
+    }
+
+    private void searchRange(int code, String query, DistanceStrategy metric, double minScore, TopK best, int lo, int hi) {
+        Text desc = new Text();
+        int q = query.length();
+        for (int id = lo; id < hi; id++) {
+            if (((id - lo) & 1023) == 0 && best.isCancelled()) return;
+            ByteBuffer records = recordSegment(id);
+            int r = recordOffset(id);
+            if (records.get(r + R_FLAGS) != LIVE) continue;
+            if (code >= 0 && (records.get(r + R_CATEGORY) & 0xFF) != code) continue;
+
+            // the length difference is a lower bound on the distance, most items stop here
+            int length = records.getInt(r + R_DESC_CHARS);
+            int maxLength = Math.max(q, length);
+            if (maxLength > 0) {
+                double bound = 1.0 - ((double) Math.abs(q - length) / maxLength);
+                if (!(bound > minScore) || (best.isFull() && bound < best.floor())) {
+                    best.pruned(1);
+                    continue;
+                }
+            }
+            desc.at(records.getLong(r + R_TEXT) + 2L * records.getInt(r + R_NAME_CHARS), length);
+            double score = CategoryIndex.score(query, desc, metric, minScore, best);
+            if (score >= 0 && best.accepts(score, id)) {
+                Item item = item(id);           // null if claimed meanwhile
+                if (item != null) best.offer(item, score);
+            }
+        }
+    }
+
+    synchronized void force() {
+        for (MappedByteBuffer segment : itemSegments) segment.force();
+        for (MappedByteBuffer segment : textSegments) segment.force();
+    }
+
+    // The mappings themselves go away with the garbage collector; Java has no way to unmap them
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        itemFile.close();
+        textFile.close();
+    }
+
+    private boolean isLive(int id) {
+        return id >= 1 && id < nextId && recordSegment(id).get(recordOffset(id) + R_FLAGS) == LIVE;
+    }
+
+    // Live and in the category (code -1: any)
+    private boolean isLive(int id, int code) {
+        ByteBuffer records = recordSegment(id);
+        int r = recordOffset(id);
+        return records.get(r + R_FLAGS) == LIVE && (code < 0 || (records.get(r + R_CATEGORY) & 0xFF) == code);
+    }
+
+    // Live counts per block of the category (code -1: all), counted from the records the first time
+    private int[] blocks(int code) {
+        if (blockCounts == null) {
+            blockCounts = new int[1 + categories.size()][];
+            for (int id = 1, end = nextId; id < end; id++) {
+                ByteBuffer records = recordSegment(id);
+                int r = recordOffset(id);
+                if (records.get(r + R_FLAGS) == LIVE) counted(records.get(r + R_CATEGORY) & 0xFF, id, 1);
+            }
+        }
+        int[] blocks = code + 1 < blockCounts.length ? blockCounts[code + 1] : null;
+        return blocks != null ? blocks : new int[0];
+    }
+
+    private void counted(int code, int id, int delta) {
+        if (blockCounts == null) return;
+        if (code + 1 >= blockCounts.length) blockCounts = Arrays.copyOf(blockCounts, code + 2);
+        int block = id >>> BLOCK_BITS;
+        for (int c : new int[] {0, code + 1}) {
+            int[] blocks = blockCounts[c];
+            if (blocks == null || block >= blocks.length) {
+                blocks = blocks == null ? new int[block + 16] : Arrays.copyOf(blocks, Math.max(block + 1, blocks.length * 2));
+                blockCounts[c] = blocks;
+            }
+            blocks[block] += delta;
+        }
+    }
+
+    private int categoryCode(String category) {
+        int code = categories.indexOf(category);
+        if (code >= 0) return code;
+        int bytes = 2 + 2 * category.length();
+        if (categories.size() == 255 || categoryEnd + bytes > HEADER) {
+            throw new IllegalStateException("No room for another category: " + category);
+        }
+        ByteBuffer header = itemSegments.get(0);
+        header.putShort(categoryEnd, (short) category.length());
+        for (int i = 0; i < category.length(); i++) header.putChar(categoryEnd + 2 + 2 * i, category.charAt(i));
+        categoryEnd += bytes;
+        categories.add(category);
+        header.putInt(H_CATEGORY_COUNT, categories.size());
+        return categories.size() - 1;
+    }
+
+    private void writeCounters() {
+        itemSegments.get(0).putInt(H_NEXT_ID, nextId).putLong(H_TEXT_END, textEnd).putInt(H_LIVE, live);
+    }
+
+    private static long recordPosition(int id) {
+        return HEADER + (long) id * RECORD;
+    }
+
+    private static int recordOffset(int id) {
+        return (int) (recordPosition(id) & (SEGMENT - 1));
+    }
+
+    private MappedByteBuffer recordSegment(int id) {
+        int index = (int) (recordPosition(id) >>> SEGMENT_BITS);
+        return index < itemSegments.size() ? itemSegments.get(index) : segment(itemSegments, itemFile, index);
+    }
+
+    // Maps segments up to and including `index`; mapping past the end of the file grows it
+    private static MappedByteBuffer segment(List<MappedByteBuffer> segments, FileChannel file, int index) {
+        try {
+            while (segments.size() <= index) {
+                segments.add(file.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() << SEGMENT_BITS, SEGMENT));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map the item store", e);
+        }
+        return segments.get(index);
+    }
+
+    // Reusable view of a run of chars in the text file, handed straight to the distance kernels
+    private final class Text implements CharSequence {
+        private ByteBuffer segment;
+        private int offset;
+        private int length;
+
+        void at(long position, int length) {
+            this.length = length;
+            if (length == 0) return;            // may sit right at the end of the last mapped segment
+            this.segment = textSegments.get((int) (position >>> SEGMENT_BITS));
+            this.offset = (int) (position & (SEGMENT - 1));
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return segment.getChar(offset + (index << 1));
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) chars[i] = charAt(i);
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package lost_and_found_system;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.*;
+
+// Hot-path instrumentation of one LostFoundDatabase: a latency histogram per operation
+// ("search", "register", "claim", ...) and per operation and category ("search[ID Card]"), plus
+// what the searches did - items scored by the distance kernel, items pruned before it (index
+// filters, length bounds) and DP cells (the band each kernel call was allowed to fill, an upper
+// bound: the kernels stop early once an item can't make it).
+// A search counts its work in its own TopK and adds it here once, at the end, so the scoring loop
+// itself only bumps plain fields; recording is a nanoTime pair and a few atomic increments.
+// Readable as text (dump) or through JMX: register() publishes it on the platform MBean server as
+// lost_and_found_system:type=Metrics,name=<name>, one attribute per figure.
+final class Metrics implements DynamicMBean {
+    private final ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final LongAdder scored = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final LongAdder cells = new LongAdder();
+
+    void record(String operation, String category, long nanos) {
+        histogram(operation).record(nanos);
+        if (category != null) histogram(operation + "[" + category + "]").record(nanos);
+    }
+
+    // A finished search and the work counted in its collector
+    void searched(String operation, String category, long nanos, TopK best) {
+        record(operation, category, nanos);
+        scored.add(best.scoredCount());
+        pruned.add(best.prunedCount());
+        cells.add(best.cellCount());
+    }
+
+    private LatencyHistogram histogram(String key) {
+        LatencyHistogram h = latencies.get(key);
+        return h != null ? h : latencies.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    void reset() {
+        for (LatencyHistogram h : latencies.values()) h.reset();
+        scored.reset();
+        pruned.reset();
+        cells.reset();
+    }
+
+    // Plain-text table, operations in name order, times in microseconds
+    String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-32s %10s %10s %10s %10s %10s%n", "operation", "count", "p50 us", "p99 us", "p999 us", "max us"));
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(latencies).entrySet()) {
+            LatencyHistogram h = e.getValue();
+            sb.append(String.format("%-32s %10d %10.1f %10.1f %10.1f %10.1f%n", e.getKey(), h.count(),
+                h.percentile(0.50) / 1e3, h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3, h.max() / 1e3));
+        }
+        sb.append(String.format("items scored %d, items pruned %d, DP cells %d%n", scored.sum(), pruned.sum(), cells.sum()));
+        return sb.toString();
+    }
+
+    // False (and the reason on stderr) if JMX is unavailable or the name is taken
+    boolean register(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("lost_and_found_system:type=Metrics,name=" + name));
+            return true;
+        } catch (JMException e) {
+            System.err.println("Metrics not published over JMX: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // --- JMX: <operation>.count / .p50Micros / .p99Micros / .p999Micros / .maxMicros, the three
+    // counters, and a reset operation. Operations show up as they are first recorded
+
+    private static final String[] FIGURES = {"count", "p50Micros", "p99Micros", "p999Micros", "maxMicros"};
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        switch (attribute) {
+            case "itemsScored": return scored.sum();
+            case "itemsPruned": return pruned.sum();
+            case "dpCells": return cells.sum();
+            default:
+        }
+        int dot = attribute.lastIndexOf('.');
+        LatencyHistogram h = dot < 0 ? null : latencies.get(attribute.substring(0, dot));
+        if (h == null) throw new AttributeNotFoundException(attribute);
+        switch (attribute.substring(dot + 1)) {
+            case "count": return h.count();
+            case "p50Micros": return h.percentile(0.50) / 1e3;
+            case "p99Micros": return h.percentile(0.99) / 1e3;
+            case "p999Micros": return h.percentile(0.999) / 1e3;
+            case "maxMicros": return h.max() / 1e3;
+            default: throw new AttributeNotFoundException(attribute);
+        }
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String name : attributes) {
+            try {
+                list.add(new Attribute(name, getAttribute(name)));
+            } catch (AttributeNotFoundException e) {
+                // left out, as the interface allows
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (actionName.equals("reset") && (params == null || params.length == 0)) {
+            reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        attributes.add(new MBeanAttributeInfo("itemsScored", "long", "Items handed to the distance kernel", true, false, false));
+        attributes.add(new MBeanAttributeInfo("itemsPruned", "long", "Items ruled out before the distance kernel", true, false, false));
+        attributes.add(new MBeanAttributeInfo("dpCells", "long", "DP cells the kernel calls were allowed to fill", true, false, false));
+        for (String key : new TreeSet<>(latencies.keySet())) {
+            for (String figure : FIGURES) {
+                String type = figure.equals("count") ? "long" : "double";
+                attributes.add(new MBeanAttributeInfo(key + "." + figure, type, key + " latency " + figure, true, false, false));
+            }
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clears all histograms and counters",
+            new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "Lost and found hot-path metrics",
+            attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] {reset}, null);
+    }
+}
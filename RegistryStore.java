@@ -0,0 +1,138 @@
+package lost_and_found_system;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+// Durable side of LostFoundDatabase: the latest snapshot plus the write-ahead log behind it.
+// Files, all next to the log file:
+//   <log>        records since the last snapshot was started
+//   <log>.1      records being folded into the snapshot that is being written right now
+//   <log>.snap   latest complete snapshot
+// A snapshot is handed off at a log position: rotate() renames the log to <log>.1 and starts a new
+// one, which is all the caller has to keep writers out for. snapshot() then does the rest on a
+// background thread: it flushes and fsyncs the old log, copies the registry, writes the snapshot
+// and deletes <log>.1 once that is safely on disk. The copy is taken after the rotation, so it may
+// already hold some changes that are in the new log; replaying the new log over it still gives
+// the same registry, because a known id is skipped and a claim of an unknown id does nothing.
+// Startup loads the snapshot and replays <log>.1 (if a snapshot never finished) and <log>. Replay
+// may see records the snapshot already covers, so the listener has to treat a known id as already
+// applied.
+final class RegistryStore implements Closeable {
+    static final int SNAPSHOT_EVERY = 100_000;      // log records between snapshots
+
+    private final Path logFile;
+    private final Path rotatedFile;
+    private final Path snapshotFile;
+    private final WriteAheadLog.SyncPolicy sync;
+    private final ExecutorService snapshotter;
+    private final int recoveredNextId;
+    private WriteAheadLog log;
+    private WriteAheadLog retired;      // the rotated log, until snapshot() closes it
+    private Future<?> running;
+    private int recordsSinceSnapshot;
+
+    RegistryStore(Path logFile, WriteAheadLog.Listener listener) throws IOException {
+        this(logFile, WriteAheadLog.SyncPolicy.configured(), listener);
+    }
+
+    // `sync` is how often the log is fsync'ed, and so how much a crash can lose (SyncPolicy)
+    RegistryStore(Path logFile, WriteAheadLog.SyncPolicy sync, WriteAheadLog.Listener listener) throws IOException {
+        this.logFile = logFile;
+        this.sync = sync;
+        this.rotatedFile = logFile.resolveSibling(logFile.getFileName() + ".1");
+        this.snapshotFile = logFile.resolveSibling(logFile.getFileName() + ".snap");
+
+        recoveredNextId = SnapshotWriter.load(snapshotFile, listener);
+        WriteAheadLog.replay(rotatedFile, listener);
+        recordsSinceSnapshot = WriteAheadLog.replay(logFile, listener);
+        log = new WriteAheadLog(logFile, sync);
+        snapshotter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "snapshot-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // nextId stored in the snapshot; ids of claimed items are never handed out again
+    int recoveredNextId() {
+        return recoveredNextId;
+    }
+
+    synchronized void logRegister(int id, String category, String name, String combined) throws IOException {
+        log.logRegister(id, category, name, combined);
+        recordsSinceSnapshot++;
+    }
+
+    synchronized void logClaim(int id, String category) throws IOException {
+        log.logClaim(id, category);
+        recordsSinceSnapshot++;
+    }
+
+    synchronized boolean snapshotDue() {
+        return recordsSinceSnapshot >= SNAPSHOT_EVERY && (running == null || running.isDone());
+    }
+
+    // First half of a snapshot, while the caller keeps every writer out: moves the log aside as
+    // <log>.1 and starts a new one. The old log is renamed open, its buffered records still go to
+    // it, and it is only flushed and fsync'ed by snapshot(). False if no snapshot is due
+    synchronized boolean rotate() throws IOException {
+        if (!snapshotDue() || retired != null) return false;
+        if (Files.exists(rotatedFile)) {
+            // the previous snapshot never made it to disk, keep its records in front of ours (the
+            // one case where the rotation waits for a flush)
+            log.close();
+            try {
+                try (OutputStream out = Files.newOutputStream(rotatedFile, StandardOpenOption.APPEND)) {
+                    Files.copy(logFile, out);
+                }
+                Files.delete(logFile);
+            } finally {
+                log = new WriteAheadLog(logFile, sync);     // on failure: keep appending where we were
+            }
+        } else {
+            Files.move(logFile, rotatedFile, StandardCopyOption.ATOMIC_MOVE);
+            retired = log;
+            log = new WriteAheadLog(logFile, sync);
+        }
+        recordsSinceSnapshot = 0;
+        return true;
+    }
+
+    // Second half, once writers are let through again: on the background thread, makes the rotated
+    // log durable, then writes `live` (called there, after the rotation) under `nextId` (called after
+    // `live`, so it is past every id in the copy) and drops <log>.1
+    synchronized Future<?> snapshot(Supplier<Item[]> live, IntSupplier nextId) {
+        WriteAheadLog old = retired;
+        retired = null;
+        running = snapshotter.submit(() -> {
+            try {
+                if (old != null) old.close();
+                Item[] items = live.get();
+                SnapshotWriter.write(snapshotFile, nextId.getAsInt(), items);
+                Files.deleteIfExists(rotatedFile);
+            } catch (IOException e) {
+                e.printStackTrace();        // <log>.1 stays, the next snapshot picks it up
+            }
+        });
+        return running;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (running != null) {
+            try {
+                running.get(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                e.printStackTrace();
+            }
+        }
+        snapshotter.shutdown();
+        if (retired != null) retired.close();
+        log.close();
+    }
+}
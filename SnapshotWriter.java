@@ -0,0 +1,108 @@
+package lost_and_found_system;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Compact columnar snapshot of the live registry.
+// Layout: magic, version, nextId, item count, category dictionary, then one column at a time:
+// ids (int), category codes (byte), name offsets + UTF-8 bytes, description offsets + UTF-8 bytes
+// (Item.stored(): the fields joined by ItemFields.encode where the item has them),
+// and a CRC32 over everything before it. Written to a temp file and moved into place, so a crash
+// mid-write leaves the previous snapshot intact.
+final class SnapshotWriter {
+    private static final int MAGIC = 0x4C465331;    // "LFS1"
+    private static final int VERSION = 1;
+
+    private SnapshotWriter() {}
+
+    static void write(Path file, int nextId, Item[] items) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        LinkedHashMap<String, Integer> codes = new LinkedHashMap<>();
+        byte[][] names = new byte[items.length][];
+        byte[][] descs = new byte[items.length][];
+        for (int i = 0; i < items.length; i++) {
+            codes.putIfAbsent(items[i].category, codes.size());
+            names[i] = items[i].name.getBytes(StandardCharsets.UTF_8);
+            descs[i] = items[i].stored().getBytes(StandardCharsets.UTF_8);
+        }
+        if (codes.size() > 255) throw new IOException("Too many categories for a snapshot: " + codes.size());
+
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fos, crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nextId);
+            out.writeInt(items.length);
+            out.writeByte(codes.size());
+            for (String category : codes.keySet()) out.writeUTF(category);
+
+            for (Item item : items) out.writeInt(item.id);
+            for (Item item : items) out.writeByte(codes.get(item.category));
+            writeColumn(out, names);
+            writeColumn(out, descs);
+            out.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Hands every item to the listener as a registration; returns the stored nextId, or 1 if there is no snapshot
+    static int load(Path file, WriteAheadLog.Listener listener) throws IOException {
+        if (!Files.exists(file)) return 1;
+        CRC32 crc = new CRC32();
+        // checksum sits above the buffer, so it only ever sees bytes that were actually consumed
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Not a snapshot: " + file);
+            int nextId = in.readInt();
+            int count = in.readInt();
+            String[] categories = new String[in.readUnsignedByte()];
+            for (int c = 0; c < categories.length; c++) categories[c] = in.readUTF();
+
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) ids[i] = in.readInt();
+            byte[] cats = new byte[count];
+            in.readFully(cats);
+            int[] nameOffsets = readOffsets(in, count);
+            byte[] nameBytes = new byte[nameOffsets[count]];
+            in.readFully(nameBytes);
+            int[] descOffsets = readOffsets(in, count);
+            byte[] descBytes = new byte[descOffsets[count]];
+            in.readFully(descBytes);
+
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) throw new IOException("Snapshot checksum mismatch: " + file);
+
+            for (int i = 0; i < count; i++) {
+                String name = new String(nameBytes, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i], StandardCharsets.UTF_8);
+                String desc = new String(descBytes, descOffsets[i], descOffsets[i + 1] - descOffsets[i], StandardCharsets.UTF_8);
+                listener.registered(ids[i], categories[cats[i] & 0xFF], name, desc);
+            }
+            return nextId;
+        }
+    }
+
+    private static void writeColumn(DataOutputStream out, byte[][] values) throws IOException {
+        int offset = 0;
+        out.writeInt(0);
+        for (byte[] v : values) {
+            offset += v.length;
+            out.writeInt(offset);
+        }
+        for (byte[] v : values) out.write(v);
+    }
+
+    private static int[] readOffsets(DataInputStream in, int count) throws IOException {
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i <= count; i++) offsets[i] = in.readInt();
+        return offsets;
+    }
+}
@@ -0,0 +1,82 @@
+package lost_and_found_system;
+
+import java.text.Normalizer;
+
+// The one normalization every description and every query goes through before it is stored,
+// indexed or compared, so "Black  Wallet, near Café!" and "black wallet near cafe" are the same text:
+//   - lower case (per character, the same in every locale)
+//   - accents folded: é -> e, ñ -> n (NFKD, then the marks are dropped), plus the Latin letters
+//     that don't decompose: ß -> ss, æ -> ae, œ -> oe, ø -> o, đ -> d, ł -> l, þ -> th
+//   - punctuation and symbols are word breaks, apostrophes are dropped (owner's -> owners)
+//   - runs of whitespace collapse to one space, none at either end
+// Marks are only dropped after a Latin letter; other scripts keep theirs (a Devanagari vowel sign
+// is part of the word). Text that is already normal is returned as it is, without copying.
+// What comes out is mostly Latin-1, which ItemColumns keeps as one byte per char.
+final class TextNormalizer {
+    private TextNormalizer() {}
+
+    static String normalize(String text) {
+        if (isNormal(text)) return text;
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean gap = false;            // a word break since the last character kept
+        boolean latin = false;          // the last letter was Latin, so marks after it are accents
+        for (int i = 0; i < decomposed.length(); ) {
+            int c = decomposed.codePointAt(i);
+            i += Character.charCount(c);
+            int type = Character.getType(c);
+            if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK) {
+                if (!latin) sb.appendCodePoint(c);
+                continue;
+            }
+            if (c == '\'' || c == '’') continue;
+            if (!Character.isLetterOrDigit(c) && type != Character.COMBINING_SPACING_MARK) {
+                gap = true;
+                continue;
+            }
+            if (gap && sb.length() > 0) sb.append(' ');
+            gap = false;
+            c = Character.toLowerCase(c);
+            latin = Character.UnicodeScript.of(c) == Character.UnicodeScript.LATIN;
+            switch (c) {
+                case 'ß' -> sb.append("ss");
+                case 'æ' -> sb.append("ae");
+                case 'œ' -> sb.append("oe");
+                case 'ø' -> sb.append('o');
+                case 'đ', 'ð' -> sb.append('d');
+                case 'ł' -> sb.append('l');
+                case 'þ' -> sb.append("th");
+                case 'ı' -> sb.append('i');
+                default -> sb.appendCodePoint(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // The normalized text one byte per char, or null if it has a char above Latin-1
+    static byte[] latin1(String normalized) {
+        byte[] bytes = new byte[normalized.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = normalized.charAt(i);
+            if (c > 0xFF) return null;
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    // Lower-case ASCII letters and digits, single spaces between words: the common case, and
+    // everything this class has already produced from ASCII input
+    private static boolean isNormal(String text) {
+        int n = text.length();
+        if (n > 0 && (text.charAt(0) == ' ' || text.charAt(n - 1) == ' ')) return false;
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (c == ' ') {
+                if (text.charAt(i - 1) == ' ') return false;
+            } else if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
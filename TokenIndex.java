@@ -0,0 +1,244 @@
+package lost_and_found_system;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Inverted index from description words to items, ranked with BM25.
+// Used to pick a few hundred likely candidates out of a large category before the (much more
+// expensive) edit-distance scoring runs. Word order does not matter here, so "black samsung phone"
+// still finds "samsung galaxy black".
+// Postings are primitive int arrays of the category's ItemColumns slots; claimed items are
+// tombstoned there and skipped here until CategoryIndex compacts the category.
+final class TokenIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ItemColumns columns;
+    private final HashMap<String, Postings> postings = new HashMap<>();
+    private int[] lengths = new int[16];        // token count per slot
+    private long totalLength;                   // tokens over live slots, for the average document length
+
+    private static final ThreadLocal<double[]> ACC = ThreadLocal.withInitial(() -> new double[1024]);
+
+    TokenIndex(ItemColumns columns) {
+        this.columns = columns;
+    }
+
+    int size() {
+        return columns.size();
+    }
+
+    // Indexes the description of a slot just added to the columns
+    void add(int slot, String description) {
+        if (slot >= lengths.length) lengths = Arrays.copyOf(lengths, Math.max(slot + 1, lengths.length * 2));
+        List<String> words = tokenize(description);
+        lengths[slot] = words.size();
+        totalLength += words.size();
+        for (String w : words) {
+            postings.computeIfAbsent(w, k -> new Postings()).add(slot);
+        }
+    }
+
+    // The slot was just tombstoned in the columns
+    void remove(int slot) {
+        totalLength -= lengths[slot];
+    }
+
+    // Up to limit live slots ranked by BM25 against the query, best first; empty if no word matches.
+    // Above TrigramIndex.PARALLEL_THRESHOLD slots the slot range is ranked in chunks on the pool, like
+    // a trigram search; a slot's score doesn't depend on the chunk, so the merged list is the same
+    int[] topCandidates(String query, int limit) {
+        List<String> words = tokenize(query);
+        int live = columns.size();
+        if (words.isEmpty() || live == 0) return new int[0];
+        Set<String> distinct = new HashSet<>(words);
+        Postings[] found = new Postings[distinct.size()];
+        double[] idfs = new double[found.length];
+        int n = 0;
+        for (String w : distinct) {
+            Postings p = postings.get(w);
+            if (p == null) continue;
+            int df = Math.min(p.docs, live);           // docs still counts tombstoned slots until the next compaction
+            found[n] = p;
+            idfs[n++] = Math.log(1.0 + (live - df + 0.5) / (df + 0.5));
+        }
+        int wordCount = n;
+        double avgLength = (double) totalLength / live;
+        int slotCount = columns.slotCount();
+        int workers = TrigramIndex.workers();
+        if (slotCount < TrigramIndex.PARALLEL_THRESHOLD || workers < 2) {
+            return rank(found, idfs, wordCount, avgLength, limit, 0, slotCount).slots;
+        }
+        int chunk = Math.max(TrigramIndex.PARALLEL_THRESHOLD / 2, (slotCount + workers * 4 - 1) / (workers * 4));
+        int chunks = (slotCount + chunk - 1) / chunk;
+        List<Ranked> partial = IntStream.range(0, chunks).parallel()
+            .mapToObj(c -> rank(found, idfs, wordCount, avgLength, limit, c * chunk, Math.min(slotCount, (c + 1) * chunk)))
+            .collect(Collectors.toList());
+        int total = 0;
+        for (Ranked r : partial) total += r.slots.length;
+        int[] slots = new int[total];
+        double[] scores = new double[total];
+        Integer[] order = new Integer[total];
+        n = 0;
+        for (Ranked r : partial) {
+            System.arraycopy(r.slots, 0, slots, n, r.slots.length);
+            System.arraycopy(r.scores, 0, scores, n, r.scores.length);
+            n += r.slots.length;
+        }
+        for (int i = 0; i < total; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> scores[x] != scores[y] ? Double.compare(scores[y], scores[x]) : Integer.compare(slots[x], slots[y]));
+        int[] ranked = new int[Math.min(limit, total)];
+        for (int i = 0; i < ranked.length; i++) ranked[i] = slots[order[i]];
+        return ranked;
+    }
+
+    // BM25 ranking of the live slots in [lo, hi)
+    private Ranked rank(Postings[] found, double[] idfs, int wordCount, double avgLength, int limit, int lo, int hi) {
+        double[] acc = ACC.get();               // indexed by slot - lo
+        if (acc.length < hi - lo) {
+            acc = new double[Math.max(hi - lo, acc.length * 2)];
+            ACC.set(acc);
+        }
+        int[] touched = new int[16];
+        int touchedCount = 0;
+
+        for (int w = 0; w < wordCount; w++) {
+            Postings p = found[w];
+            double idf = idfs[w];
+            for (int i = lo == 0 ? 0 : p.lowerBound(lo); i < p.size && p.slots[i] < hi; i++) {
+                int slot = p.slots[i];
+                if (!columns.isLive(slot)) continue;
+                int tf = p.freqs[i];
+                double norm = K1 * (1 - B + B * lengths[slot] / avgLength);
+                int a = slot - lo;
+                if (acc[a] == 0) {
+                    if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                    touched[touchedCount++] = a;
+                }
+                acc[a] += idf * (tf * (K1 + 1)) / (tf + norm);
+            }
+        }
+
+        // Keep the best `limit` slots in a small min-heap, ties broken towards the earlier slot
+        int k = Math.min(limit, touchedCount);
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            int a = touched[t];
+            if (heapSize < k) {
+                heap[heapSize] = a;
+                siftUp(heap, heapSize++, acc);
+            } else if (better(a, heap[0], acc)) {
+                heap[0] = a;
+                siftDown(heap, heapSize, acc);
+            }
+        }
+        Ranked ranked = new Ranked(heapSize);
+        for (int i = heapSize - 1; i >= 0; i--) {
+            ranked.slots[i] = lo + heap[0];
+            ranked.scores[i] = acc[heap[0]];
+            heap[0] = heap[i];
+            siftDown(heap, i, acc);
+        }
+        for (int t = 0; t < touchedCount; t++) acc[touched[t]] = 0;
+        return ranked;
+    }
+
+    // The distinct query words that have postings, sorted; topCandidates depends on nothing else
+    // of the query, so two queries with the same indexed words get the same candidates
+    List<String> indexedWords(String query) {
+        TreeSet<String> known = new TreeSet<>();
+        for (String w : tokenize(query)) {
+            if (postings.containsKey(w)) known.add(w);
+        }
+        return new ArrayList<>(known);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            boolean word = i < n && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static boolean better(int a, int b, double[] acc) {
+        return acc[a] > acc[b] || (acc[a] == acc[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, double[] acc) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], heap[i], acc)) break;
+            int t = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = t;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, double[] acc) {
+        int i = 0;
+        while (true) {
+            int l = 2 * i + 1, r = l + 1, worst = i;
+            if (l < size && better(heap[worst], heap[l], acc)) worst = l;
+            if (r < size && better(heap[worst], heap[r], acc)) worst = r;
+            if (worst == i) return;
+            int t = heap[worst];
+            heap[worst] = heap[i];
+            heap[i] = t;
+            i = worst;
+        }
+    }
+
+    // Best slots of one chunk, best first, with their scores
+    private static final class Ranked {
+        final int[] slots;
+        final double[] scores;
+
+        Ranked(int size) {
+            slots = new int[size];
+            scores = new double[size];
+        }
+    }
+
+    // Slots containing one word, with the word's frequency in each
+    private static final class Postings {
+        int[] slots = new int[4];
+        int[] freqs = new int[4];
+        int size;
+        int docs;
+
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {      // same word again in the same description
+                freqs[size - 1]++;
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            slots[size] = slot;
+            freqs[size++] = 1;
+            docs++;
+        }
+
+        // Index of the first slot >= key (slots are added in increasing order)
+        int lowerBound(int key) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (slots[mid] < key) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package lost_and_found_system;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Fixed-size top-k collector shared by every search path.
+// A min-heap over parallel primitive arrays (score, id, item): offering a candidate allocates
+// nothing, and the k-th best score is always at the root, ready to be used as a pruning floor.
+// Equal scores are ordered by Item.id, lower first, so results are stable across runs.
+// A collector also carries the search's cancel flag: per-worker collectors are fork()ed from the
+// caller's and share it, and the scoring loops check it, so cancel() stops a search part-way.
+// It also counts the search's work for Metrics (items scored, items pruned, DP cells). A collector
+// is only used by one thread at a time, so these are plain fields; addAll sums the workers' counts.
+final class TopK {
+    private final double[] scores;
+    private final int[] ids;
+    private final Item[] items;
+    private final AtomicBoolean cancelled;
+    private int size;
+    private long scored, pruned, cells;
+
+    TopK(int k) {
+        this(k, new AtomicBoolean());
+    }
+
+    private TopK(int k, AtomicBoolean cancelled) {
+        scores = new double[k];
+        ids = new int[k];
+        items = new Item[k];
+        this.cancelled = cancelled;
+    }
+
+    // Empty collector (e.g. for one worker) that is cancelled together with this one
+    TopK fork(int k) {
+        return new TopK(k, cancelled);
+    }
+
+    // Safe to call from any thread; the search returns early with whatever it has found so far
+    void cancel() {
+        cancelled.set(true);
+    }
+
+    boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    int k() {
+        return scores.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == scores.length;
+    }
+
+    // Score of the current k-th best result; only meaningful once full
+    double floor() {
+        return scores[0];
+    }
+
+    // True if an item with this score and id would make it into the heap right now
+    boolean accepts(double score, int id) {
+        if (size < scores.length) return true;
+        return scores.length > 0 && better(score, id, scores[0], ids[0]);
+    }
+
+    boolean offer(Item item, double score) {
+        if (!accepts(score, item.id)) return false;
+        if (size < scores.length) {
+            set(size, score, item);
+            siftUp(size++);
+        } else {
+            set(0, score, item);
+            siftDown(0);
+        }
+        return true;
+    }
+
+    // Adds everything held by another collector (used to merge per-worker results), and its counts
+    void addAll(TopK other) {
+        for (int i = 0; i < other.size; i++) offer(other.items[i], other.scores[i]);
+        addCounts(other);
+    }
+
+    void addCounts(TopK other) {
+        scored += other.scored;
+        pruned += other.pruned;
+        cells += other.cells;
+    }
+
+    // One item handed to the distance kernel, allowed to fill up to `cells` DP cells
+    void scored(long cells) {
+        scored++;
+        this.cells += cells;
+    }
+
+    // Items ruled out without running the distance kernel (index filters, length bounds)
+    void pruned(long items) {
+        pruned += items;
+    }
+
+    long scoredCount() {
+        return scored;
+    }
+
+    long prunedCount() {
+        return pruned;
+    }
+
+    long cellCount() {
+        return cells;
+    }
+
+    void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    // Best first; the collector is left empty
+    List<Map.Entry<Item, Double>> drain() {
+        List<Map.Entry<Item, Double>> out = new ArrayList<>(Collections.nCopies(size, null));
+        for (int i = size - 1; i >= 0; i--) {
+            out.set(i, Map.entry(items[0], scores[0]));
+            size--;
+            if (size > 0) {
+                move(size, 0);
+                siftDown(0);
+            }
+            items[size] = null;
+        }
+        return out;
+    }
+
+    private static boolean better(double score, int id, double otherScore, int otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void set(int i, double score, Item item) {
+        scores[i] = score;
+        ids[i] = item.id;
+        items[i] = item;
+    }
+
+    private void move(int from, int to) {
+        scores[to] = scores[from];
+        ids[to] = ids[from];
+        items[to] = items[from];
+    }
+
+    private void swap(int a, int b) {
+        double s = scores[a];
+        scores[a] = scores[b];
+        scores[b] = s;
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        Item it = items[a];
+        items[a] = items[b];
+        items[b] = it;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(scores[parent], ids[parent], scores[i], ids[i])) return;
+            swap(parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int l = 2 * i + 1, r = l + 1, worst = i;
+            if (l < size && better(scores[worst], ids[worst], scores[l], ids[l])) worst = l;
+            if (r < size && better(scores[worst], ids[worst], scores[r], ids[r])) worst = r;
+            if (worst == i) return;
+            swap(worst, i);
+            i = worst;
+        }
+    }
+}
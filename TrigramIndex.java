@@ -0,0 +1,362 @@
+package lost_and_found_system;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Character trigram index over the combined descriptions of one category.
+// q-gram count lemma: if ed(x, y) <= k then x and y share at least max(|x|, |y|) - 2 - 3k trigrams.
+// Turned around, the number of shared trigrams c gives an upper bound on the score an item can
+// reach, so most items are rejected without running the edit distance at all.
+// At the plain 0.3 floor the bound is too loose to reject anything (it only bites above ~2/3),
+// which is why search is best-first top-k: candidates are verified in order of shared trigrams,
+// and once k results are in, the k-th best score becomes the floor for the rest.
+// within() answers the plain distance query (every slot within d edits) with the same lemma, which
+// at a small absolute d leaves only the few slots that share most of the query's trigrams.
+// Postings are primitive int arrays (slot, frequency) found through an open-addressing table.
+// Slots are those of the category's ItemColumns: descriptions are scored straight from its byte
+// columns (byte kernels against the query's Latin-1 bytes), and claimed slots are skipped until
+// CategoryIndex compacts the category.
+final class TrigramIndex {
+    private static final int Q = 3;
+    static final int PARALLEL_THRESHOLD = 20_000;   // below this a search stays on the calling thread
+
+    private long[] keys = new long[64];         // trigram -> postings id, open addressing; 0 = empty
+    private int[] ids = new int[64];
+    private int gramCount;
+    private int[][] postSlots = new int[16][];
+    private int[][] postFreqs = new int[16][];
+    private int[] postSize = new int[16];
+
+    private final ItemColumns columns;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    TrigramIndex(ItemColumns columns) {
+        this.columns = columns;
+    }
+
+    int size() {
+        return columns.size();
+    }
+
+    // Indexes the description of a slot just added to the columns
+    void add(int slot, CharSequence description) {
+        long[] grams = grams(description);
+        for (int i = 0; i < grams.length; ) {
+            int j = i;
+            while (j < grams.length && grams[j] == grams[i]) j++;
+            append(postings(grams[i], true), slot, j - i);
+            i = j;
+        }
+    }
+
+    // Offers every item that can make the top k above minScore into `best`, except the slots in
+    // `skip` (sorted, may be null), which the caller has scored already
+    void search(String query, DistanceStrategy metric, double minScore, TopK best, int[] skip) {
+        search(query, metric, minScore, best, skip, null);
+    }
+
+    // Same, skipping the slots `carried` (may be null) proves can't make it and recording in it what
+    // this search learns about the rest
+    void search(String query, DistanceStrategy metric, double minScore, TopK best, int[] skip, Bounds carried) {
+        if (columns.size() == 0 || best.k() == 0) return;
+        long[] grams = grams(query);
+        byte[] bytes = TextNormalizer.latin1(query);
+        int[] lower = carried == null ? null : carried.at(columns, query);
+        split(columns.slotCount(), minScore, best,
+            (floor, into, lo, hi) -> searchRange(query, bytes, grams, metric, floor, into, skip, lower, lo, hi));
+    }
+
+    interface RangeSearch {
+        void search(double minScore, TopK into, int lo, int hi);
+    }
+
+    // Runs `range` over slots [0, slotCount). Above PARALLEL_THRESHOLD slots, with more than one
+    // worker in the pool the caller runs in (workers()), the range is split into
+    // chunks scored on that pool, each into its own TopK; merging is deterministic because TopK
+    // breaks ties on Item.id. A chunk starts out empty, so if `best` is full already its k-th best
+    // score is handed down as the chunk's minScore, nudged so an equal score with a lower id gets in
+    static void split(int slotCount, double minScore, TopK best, RangeSearch range) {
+        int workers = workers();
+        if (slotCount < PARALLEL_THRESHOLD || workers < 2) {
+            range.search(minScore, best, 0, slotCount);
+            return;
+        }
+        double floor = best.isFull() ? Math.max(minScore, Math.nextDown(best.floor())) : minScore;
+        int chunk = Math.max(PARALLEL_THRESHOLD / 2, (slotCount + workers * 4 - 1) / (workers * 4));
+        int chunks = (slotCount + chunk - 1) / chunk;
+        List<TopK> partial = IntStream.range(0, chunks).parallel()
+            .mapToObj(c -> {
+                TopK local = best.fork(best.k());
+                range.search(floor, local, c * chunk, Math.min(slotCount, (c + 1) * chunk));
+                return local;
+            })
+            .collect(Collectors.toList());
+        for (TopK local : partial) best.addAll(local);
+    }
+
+    interface Hit {
+        void found(int slot, int distance);
+    }
+
+    // Hands every live slot within edit distance maxDistance of the query to `out`. By the q-gram
+    // lemma such a slot shares at least max(|x|, |y|) - 2 - 3 * maxDistance trigrams with it, and
+    // its length is within maxDistance; only what passes both runs the kernel. A query long enough
+    // that the bound asks for a shared trigram from every slot only looks at the slots it touched
+    void within(String query, DistanceStrategy metric, int maxDistance, Hit out) {
+        int slotCount = columns.slotCount();
+        if (columns.size() == 0 || maxDistance < 0) return;
+        long[] grams = grams(query);
+        byte[] bytes = TextNormalizer.latin1(query);
+        Scratch s = SCRATCH.get();
+        int[] acc = s.acc(slotCount);
+        int touchedCount = 0;
+        for (int i = 0; i < grams.length; ) {
+            int j = i;
+            while (j < grams.length && grams[j] == grams[i]) j++;
+            int p = postings(grams[i], false);
+            if (p >= 0) {
+                int want = j - i;
+                int[] ps = postSlots[p], pf = postFreqs[p];
+                for (int e = 0, n = postSize[p]; e < n; e++) {
+                    int slot = ps[e];
+                    if (!columns.isLive(slot)) continue;
+                    if (acc[slot] == 0) touchedCount = s.touch(touchedCount, slot);
+                    acc[slot] += Math.min(want, pf[e]);
+                }
+            }
+            i = j;
+        }
+        int q = query.length();
+        try {
+            if (q - (Q - 1) - Q * maxDistance > 0) {
+                for (int t = 0; t < touchedCount; t++) {
+                    int slot = s.touched[t];
+                    withinCheck(query, bytes, slot, acc[slot], metric, maxDistance, out, s.text);
+                }
+            } else {
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if (columns.isLive(slot)) withinCheck(query, bytes, slot, acc[slot], metric, maxDistance, out, s.text);
+                }
+            }
+        } finally {
+            for (int t = 0; t < touchedCount; t++) acc[s.touched[t]] = 0;
+        }
+    }
+
+    private void withinCheck(String query, byte[] bytes, int slot, int shared, DistanceStrategy metric, int maxDistance,
+                             Hit out, Description.View text) {
+        int q = query.length(), length = columns.length(slot);
+        if (Math.abs(q - length) > maxDistance || shared < Math.max(q, length) - (Q - 1) - Q * maxDistance) return;
+        int d = bytes != null && columns.isLatin1(slot)
+            ? columns.distance(bytes, slot, metric, maxDistance)
+            : metric.distance(query, columns.description(slot, text), maxDistance);
+        if (d <= maxDistance) out.found(slot, d);
+    }
+
+    // Parallelism of the pool a search started here would run on
+    static int workers() {
+        return ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    private void searchRange(String query, byte[] bytes, long[] grams, DistanceStrategy metric, double minScore, TopK best,
+                             int[] skip, int[] lower, int lo, int hi) {
+        Scratch s = SCRATCH.get();
+        int[] acc = s.acc(hi - lo);             // indexed by slot - lo
+        int touchedCount = 0;
+        int maxShared = 0;
+
+        // Shared trigram count per slot, as a multiset intersection with the query.
+        // Postings are in slot order, so the chunk's part of each list is found by binary search.
+        for (int i = 0; i < grams.length && !best.isCancelled(); ) {
+            int j = i;
+            while (j < grams.length && grams[j] == grams[i]) j++;
+            int p = postings(grams[i], false);
+            if (p >= 0) {
+                int want = j - i;
+                int[] ps = postSlots[p], pf = postFreqs[p];
+                int n = postSize[p];
+                int e = lo == 0 ? 0 : lowerBound(ps, n, lo);
+                for (; e < n && ps[e] < hi; e++) {
+                    int slot = ps[e];
+                    if (!columns.isLive(slot)) continue;
+                    int a = slot - lo;
+                    if (acc[a] == 0) touchedCount = s.touch(touchedCount, a);
+                    acc[a] += Math.min(want, pf[e]);
+                    if (acc[a] > maxShared) maxShared = acc[a];
+                }
+            }
+            i = j;
+        }
+
+        // Most shared trigrams first, so the k-th best score rises as early as possible
+        int[] order = s.order(touchedCount);
+        int[] bucket = new int[maxShared + 2];
+        for (int t = 0; t < touchedCount; t++) bucket[maxShared - acc[s.touched[t]] + 1]++;
+        for (int b = 1; b < bucket.length; b++) bucket[b] += bucket[b - 1];
+        for (int t = 0; t < touchedCount; t++) order[bucket[maxShared - acc[s.touched[t]]]++] = s.touched[t];
+
+        for (int t = 0; t < touchedCount; t++) {
+            if ((t & 255) == 0 && best.isCancelled()) break;
+            int a = order[t];
+            verify(query, bytes, lo + a, acc[a], metric, minScore, best, skip, lower, s.text);
+        }
+        // Items without a single shared trigram can still reach a low floor; the length check alone
+        // rules most of them out once k results are in
+        int q = query.length();
+        for (int slot = lo; slot < hi; slot++) {
+            if (((slot - lo) & 1023) == 0 && best.isCancelled()) break;
+            if (acc[slot - lo] == 0 && columns.isLive(slot) && canPass(q, columns.length(slot), 0, 0, minScore, best)) {
+                verify(query, bytes, slot, 0, metric, minScore, best, skip, lower, s.text);
+            }
+        }
+        for (int t = 0; t < touchedCount; t++) acc[s.touched[t]] = 0;
+    }
+
+    private static int lowerBound(int[] sorted, int n, int key) {
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // `lower`: the carried bounds (null if none), raised to whatever the kernel finds
+    private void verify(String query, byte[] bytes, int slot, int shared, DistanceStrategy metric, double minScore, TopK best,
+                        int[] skip, int[] lower, Description.View text) {
+        int carried = lower != null ? lower[slot] : 0;
+        if (!canPass(query.length(), columns.length(slot), shared, carried, minScore, best)) return;
+        if (skip != null && Arrays.binarySearch(skip, slot) >= 0) return;
+        int d = CategoryIndex.score(query, bytes, columns, slot, text, metric, minScore, best);
+        if (lower != null && d > carried) lower[slot] = d;
+    }
+
+    // Upper bound on the score from the length difference, the q-gram count lemma and a carried
+    // lower bound on the distance
+    private static boolean canPass(int queryLength, int length, int shared, int carried, double minScore, TopK best) {
+        int maxLength = Math.max(queryLength, length);
+        if (maxLength == 0) return true;
+        int missing = maxLength - (Q - 1) - shared;
+        int minDistance = Math.max(Math.abs(queryLength - length), missing <= 0 ? 0 : (missing + Q - 1) / Q);
+        minDistance = Math.max(minDistance, carried);
+        double bound = 1.0 - ((double) minDistance / maxLength);
+        if (!(bound > minScore)) return false;
+        return !best.isFull() || bound >= best.floor();
+    }
+
+    // Sorted trigram keys of the text; equal trigrams end up next to each other
+    private static long[] grams(CharSequence text) {
+        int n = text.length() - Q + 1;
+        if (n <= 0) return new long[0];
+        long[] grams = new long[n];
+        for (int i = 0; i < n; i++) {
+            grams[i] = 1L << 48 | (long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        return grams;
+    }
+
+    private int postings(long gram, boolean create) {
+        int mask = keys.length - 1;
+        int h = Long.hashCode(gram * 0x9E3779B97F4A7C15L) & mask;
+        while (keys[h] != 0) {
+            if (keys[h] == gram) return ids[h];
+            h = (h + 1) & mask;
+        }
+        if (!create) return -1;
+        int id = gramCount++;
+        keys[h] = gram;
+        ids[h] = id;
+        if (id == postSize.length) {
+            postSlots = Arrays.copyOf(postSlots, id * 2);
+            postFreqs = Arrays.copyOf(postFreqs, id * 2);
+            postSize = Arrays.copyOf(postSize, id * 2);
+        }
+        postSlots[id] = new int[2];
+        postFreqs[id] = new int[2];
+        if (gramCount * 2 > keys.length) grow();
+        return id;
+    }
+
+    private void append(int p, int slot, int freq) {
+        int n = postSize[p];
+        if (n == postSlots[p].length) {
+            postSlots[p] = Arrays.copyOf(postSlots[p], n * 2);
+            postFreqs[p] = Arrays.copyOf(postFreqs[p], n * 2);
+        }
+        postSlots[p][n] = slot;
+        postFreqs[p][n] = freq;
+        postSize[p] = n + 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new long[oldKeys.length * 2];
+        ids = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int h = Long.hashCode(oldKeys[i] * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[h] != 0) h = (h + 1) & mask;
+            keys[h] = oldKeys[i];
+            ids[h] = oldIds[i];
+        }
+    }
+
+    // Lower bounds on the edit distance from a query to each slot, carried from one search to the
+    // next (IncrementalSearch). By the triangle inequality ed(q', x) >= ed(q, x) - ed(q, q'), so
+    // what a keystroke's search proved (the exact distance, or the kernel's cutoff + 1) still holds
+    // for the next one, one edit looser, and the slots that were far off are skipped without running
+    // the kernel again. Kept for one ItemColumns; a compaction's fresh columns start from nothing.
+    // Not thread-safe: one per search box, and the chunks of a search write disjoint slots.
+    static final class Bounds {
+        private ItemColumns columns;
+        private String query;
+        private int[] lower = new int[0];
+
+        // The bounds re-targeted at `query`, one per slot of `columns` (0 = nothing known)
+        int[] at(ItemColumns columns, String query) {
+            int slotCount = columns.slotCount();
+            if (lower.length < slotCount) lower = Arrays.copyOf(lower, Math.max(slotCount, lower.length * 2));
+            if (columns != this.columns) {
+                Arrays.fill(lower, 0);
+            } else if (!query.equals(this.query)) {
+                int moved = EditDistance.distance(this.query, query);
+                for (int slot = 0; slot < slotCount; slot++) lower[slot] = Math.max(0, lower[slot] - moved);
+            }
+            this.columns = columns;
+            this.query = query;
+            return lower;
+        }
+    }
+
+    // Per-thread buffers so a search doesn't allocate per item
+    private static final class Scratch {
+        int[] acc = new int[1024];
+        int[] touched = new int[1024];
+        int[] order = new int[1024];
+        final Description.View text = new Description.View();
+
+        int[] acc(int slots) {
+            if (acc.length < slots) acc = new int[Math.max(slots, acc.length * 2)];
+            return acc;
+        }
+
+        int touch(int count, int slot) {
+            if (count == touched.length) touched = Arrays.copyOf(touched, count * 2);
+            touched[count] = slot;
+            return count + 1;
+        }
+
+        int[] order(int count) {
+            if (order.length < count) order = new int[Math.max(count, order.length * 2)];
+            return order;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package lost_and_found_system;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+// Append-only log of registry changes, replayed at startup to rebuild the registry and nextId.
+// Record layout: [int payload length][int crc32 of payload][payload], payload = [byte type][fields].
+// Appends go into an in-memory buffer; the buffer is written out and fsync'ed together once
+// syncEveryRecords records are pending or syncIntervalMillis has passed (group commit), so many
+// registrations share one fsync. syncEveryRecords = 1 makes every record durable before it returns.
+// SyncPolicy names the choices the desk gets between the two.
+final class WriteAheadLog implements Closeable {
+    static final byte REGISTER = 1;
+    static final byte CLAIM = 2;
+
+    private static final int HEADER = 8;
+
+    // What replay hands back, in log order
+    interface Listener {
+        void registered(int id, String category, String name, String combined);
+
+        void claimed(int id, String category);
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int syncEveryRecords;
+    private final ScheduledExecutorService flusher;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private int pending;        // records appended since the last fsync
+    private boolean closed;
+
+    WriteAheadLog(Path file, int syncEveryRecords, long syncIntervalMillis) throws IOException {
+        this.file = file;
+        this.syncEveryRecords = Math.max(1, syncEveryRecords);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        channel.position(channel.size());
+        if (syncIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "wal-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    WriteAheadLog(Path file, SyncPolicy sync) throws IOException {
+        this(file, sync.records, sync.millis);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    synchronized void logRegister(int id, String category, String name, String combined) throws IOException {
+        byte[] c = shortField(category);
+        byte[] n = shortField(name);
+        byte[] d = combined.getBytes(StandardCharsets.UTF_8);
+        int payload = 1 + 4 + 2 + c.length + 2 + n.length + 4 + d.length;
+        ByteBuffer buf = reserve(payload);
+        int start = buf.position() + HEADER;
+        buf.position(start);
+        buf.put(REGISTER).putInt(id);
+        putShortString(buf, c);
+        putShortString(buf, n);
+        buf.putInt(d.length).put(d);
+        finish(buf, start, payload);
+    }
+
+    synchronized void logClaim(int id, String category) throws IOException {
+        byte[] c = shortField(category);
+        int payload = 1 + 4 + 2 + c.length;
+        ByteBuffer buf = reserve(payload);
+        int start = buf.position() + HEADER;
+        buf.position(start);
+        buf.put(CLAIM).putInt(id);
+        putShortString(buf, c);
+        finish(buf, start, payload);
+    }
+
+    // Writes and fsyncs everything appended so far
+    synchronized void sync() throws IOException {
+        if (closed) return;
+        writeBuffer();
+        if (pending > 0) {
+            channel.force(false);
+            pending = 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        if (flusher != null) flusher.shutdownNow();
+        sync();
+        closed = true;
+        channel.close();
+    }
+
+    // Replays every complete record; a torn or corrupt tail (crash mid-write) is cut off.
+    // Returns the number of records replayed.
+    static int replay(Path file, Listener listener) throws IOException {
+        if (!Files.exists(file)) return 0;
+        int records = 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch), 1 << 16))) {
+            long good = 0, size = ch.size();
+            CRC32 crc = new CRC32();
+            while (good + HEADER <= size) {
+                int length = in.readInt();
+                int sum = in.readInt();
+                if (length <= 0 || good + HEADER + length > size) break;
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != sum) break;
+
+                ByteBuffer p = ByteBuffer.wrap(payload);
+                byte type = p.get();
+                int id = p.getInt();
+                String category = getShortString(p);
+                if (type == REGISTER) {
+                    String name = getShortString(p);
+                    byte[] d = new byte[p.getInt()];
+                    p.get(d);
+                    listener.registered(id, category, name, new String(d, StandardCharsets.UTF_8));
+                } else if (type == CLAIM) {
+                    listener.claimed(id, category);
+                } else {
+                    break;
+                }
+                good += HEADER + length;
+                records++;
+            }
+            if (good < size) ch.truncate(good);
+        }
+        return records;
+    }
+
+    private ByteBuffer reserve(int payload) throws IOException {
+        if (closed) throw new IOException("Log is closed: " + file);
+        int needed = HEADER + payload;
+        if (buffer.remaining() < needed) {
+            writeBuffer();
+            if (buffer.capacity() < needed) buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(needed) << 1);
+        }
+        return buffer;
+    }
+
+    private void finish(ByteBuffer buf, int start, int payload) throws IOException {
+        crc.reset();
+        ByteBuffer view = buf.duplicate();
+        view.position(start).limit(start + payload);
+        crc.update(view);
+        buf.putInt(start - HEADER, payload);
+        buf.putInt(start - HEADER + 4, (int) crc.getValue());
+        if (++pending >= syncEveryRecords) sync();
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // When appends reach the disk, and so what a crash (of the process or the machine) can take back
+    // from changes the desk was already told about:
+    //   always    every record is fsync'ed before logRegister / logClaim returns: nothing is lost,
+    //             but every change waits for its own fsync (a few ms, far more on a busy disk)
+    //   group     (default) every 1024 records or 20 ms, whichever comes first: up to 20 ms of
+    //             changes can be lost, and a burst of registrations shares one fsync
+    //   <r>/<ms>  every r records or ms milliseconds (0 = no timer), e.g. 64/5
+    // A lost registration is an item the desk has to register again (its id may be handed out
+    // anew); a lost claim puts the item back on the shelf after the restart.
+    // Chosen with -Dlostfound.sync=<policy>, or --sync <policy> on the console's command line.
+    static final class SyncPolicy {
+        static final SyncPolicy ALWAYS = new SyncPolicy(1, 0);
+        static final SyncPolicy GROUP = new SyncPolicy(1024, 20);
+
+        final int records;
+        final long millis;
+
+        SyncPolicy(int records, long millis) {
+            if (records < 1 || millis < 0) throw new IllegalArgumentException("Invalid sync policy: " + records + "/" + millis);
+            this.records = records;
+            this.millis = millis;
+        }
+
+        static SyncPolicy parse(String policy) {
+            String p = policy.trim();
+            if (p.equals("always")) return ALWAYS;
+            if (p.equals("group")) return GROUP;
+            String[] parts = p.split("/");
+            try {
+                if (parts.length == 2) return new SyncPolicy(Integer.parseInt(parts[0].trim()), Long.parseLong(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                // falls through
+            }
+            throw new IllegalArgumentException("Invalid sync policy '" + policy + "', use always, group or <records>/<millis>");
+        }
+
+        // -Dlostfound.sync, or GROUP if it isn't set (or can't be read)
+        static SyncPolicy configured() {
+            String policy = System.getProperty("lostfound.sync");
+            if (policy == null) return GROUP;
+            try {
+                return parse(policy);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage() + "; using group");
+                return GROUP;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this == ALWAYS ? "always" : this == GROUP ? "group" : records + "/" + millis;
+        }
+    }
+
+    // Checked before anything is put in the buffer, so a rejected record never leaves half a record behind
+    private static byte[] shortField(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("Field too long for the log: " + bytes.length + " bytes");
+        return bytes;
+    }
+
+    private static void putShortString(ByteBuffer buf, byte[] bytes) {
+        buf.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getShortString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package lost_and_found_system;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// editDistance / similarityScore on description-like pairs of `length` chars, with each kernel.
+// similarityScoreAbove is the call the search makes: cut off once the score can't reach 0.3.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+    private static final int PAIRS = 1024;
+
+    @Param({"16", "40", "100", "300"})
+    int length;
+
+    @Param({"DP", "BIT_PARALLEL"})
+    String kernel;
+
+    private LostFoundDatabase db;
+    private String[] a, b;
+
+    @Setup
+    public void setup() {
+        db = new LostFoundDatabase();
+        db.distanceStrategy = kernel.equals("DP") ? DistanceStrategy.DP : DistanceStrategy.BIT_PARALLEL;
+        Random rnd = new Random(42);
+        a = new String[PAIRS];
+        b = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            a[i] = Inputs.text(rnd, length);
+            b[i] = Inputs.text(rnd, length);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void editDistance(Blackhole bh) {
+        for (int i = 0; i < PAIRS; i++) bh.consume(db.editDistance(a[i], b[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void similarityScore(Blackhole bh) {
+        for (int i = 0; i < PAIRS; i++) bh.consume(db.similarityScore(a[i], b[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void similarityScoreAbove(Blackhole bh) {
+        for (int i = 0; i < PAIRS; i++) bh.consume(db.similarityScore(a[i], b[i], 0.3));
+    }
+}
@@ -0,0 +1,105 @@
+package lost_and_found_system;
+
+import java.util.*;
+
+// Synthetic registry contents for the benchmarks, deterministic for a given seed. Items are put
+// together per category the way registerFound combines the fields, so the word and trigram
+// statistics look like the real registry; a claimant's query is a misspelt, shortened copy of a
+// registered description, or a description of something that was never handed in.
+final class Inputs {
+    static final String[] CATEGORIES = {"Electronics", "Daily Use", "Stationary", "Accessories", "Miscellaneous", "ID Card"};
+
+    private static final String[] ELECTRONICS = {"phone", "laptop", "charger", "earphones", "power bank", "smart watch", "calculator", "pendrive", "mouse", "tablet"};
+    private static final String[] DAILY_USE = {"water bottle", "umbrella", "tiffin box", "wallet", "keys", "towel", "cap", "jacket", "lunch bag", "mug"};
+    private static final String[] STATIONARY = {"notebook", "pen", "pencil box", "geometry box", "register", "calculator", "file", "diary", "marker", "scale"};
+    private static final String[] ACCESSORIES = {"watch", "spectacles", "bracelet", "ring", "belt", "hair clip", "earrings", "chain", "sunglasses", "scarf"};
+    private static final String[] MISCELLANEOUS = {"book", "badminton racket", "football", "helmet", "guitar pick", "charger cable", "lab coat", "apron", "bag", "toy"};
+    private static final String[] BRANDS = {"samsung", "apple", "dell", "hp", "lenovo", "boat", "oneplus", "realme", "sony", "asus"};
+    private static final String[] COLORS = {"black", "blue", "red", "white", "silver", "grey", "green", "pink", "brown", "yellow"};
+    private static final String[] LOCATIONS = {"library", "canteen", "it building", "main gate", "auditorium", "lab 3", "parking", "gym", "hostel a", "bus stop"};
+    private static final String[] DETAILS = {"scratched", "with cover", "cracked screen", "sticker on back", "name written inside", "zip broken", "new", "old", "half empty", "dented"};
+    private static final String[] FIRST = {"aarav", "priya", "rohan", "sneha", "vikram", "ananya", "rahul", "kavya", "arjun", "isha"};
+    private static final String[] LAST = {"patil", "sharma", "deshmukh", "kulkarni", "joshi", "mehta", "rao", "iyer", "singh", "mane"};
+    private static final String[] DEPARTMENTS = {"computer", "it", "mechanical", "civil", "electrical", "entc", "chemical", "instrumentation"};
+    private static final String[] WORDS = {
+        "black", "blue", "silver", "red", "samsung", "apple", "dell", "hp", "phone", "laptop",
+        "charger", "bottle", "umbrella", "wallet", "library", "canteen", "lab", "ground", "bag", "keys"
+    };
+
+    private Inputs() {}
+
+    static String category(Random rnd) {
+        return pick(rnd, CATEGORIES);
+    }
+
+    static String name(Random rnd, String category) {
+        return switch (category) {
+            case "Electronics" -> pick(rnd, ELECTRONICS);
+            case "Daily Use" -> pick(rnd, DAILY_USE);
+            case "Stationary" -> pick(rnd, STATIONARY);
+            case "Accessories" -> pick(rnd, ACCESSORIES);
+            case "ID Card" -> pick(rnd, FIRST) + " " + pick(rnd, LAST);
+            default -> pick(rnd, MISCELLANEOUS);
+        };
+    }
+
+    // Fields in the order registerFound combines them for the category
+    static String description(Random rnd, String category) {
+        String date = String.format("%02d-%02d-2024", 1 + rnd.nextInt(28), 1 + rnd.nextInt(12));
+        String combined = switch (category) {
+            case "Electronics" -> name(rnd, category) + " " + pick(rnd, BRANDS) + " " + pick(rnd, COLORS) + " "
+                + pick(rnd, LOCATIONS) + " " + date + " " + pick(rnd, DETAILS);
+            case "Miscellaneous" -> name(rnd, category) + " " + pick(rnd, LOCATIONS) + " " + date + " " + pick(rnd, DETAILS);
+            case "ID Card" -> name(rnd, category) + " " + pick(rnd, DEPARTMENTS) + " u" + (2_000_000 + rnd.nextInt(1_000_000))
+                + " " + (1 + rnd.nextInt(4)) + " " + pick(rnd, LOCATIONS) + " " + date;
+            default -> name(rnd, category) + " " + pick(rnd, COLORS) + " " + pick(rnd, LOCATIONS) + " " + date + " " + pick(rnd, DETAILS);
+        };
+        return combined.toLowerCase();
+    }
+
+    // Words of a description-like text cut to exactly `length` chars
+    static String text(Random rnd, int length) {
+        StringBuilder sb = new StringBuilder(length + 10);
+        while (sb.length() < length) {
+            sb.append(pick(rnd, WORDS)).append(' ');
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    // What a claimant types for a registered item: a word left out, a couple of typos
+    static String misspelt(Random rnd, String description) {
+        List<String> words = new ArrayList<>(Arrays.asList(description.split(" ")));
+        if (words.size() > 3) words.remove(rnd.nextInt(words.size()));
+        StringBuilder sb = new StringBuilder(String.join(" ", words));
+        for (int typos = 1 + rnd.nextInt(2); typos > 0 && sb.length() > 0; typos--) {
+            sb.setCharAt(rnd.nextInt(sb.length()), (char) ('a' + rnd.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    // The same with a stray letter in every word, so that not one of them is an indexed word
+    static String garbled(Random rnd, String description) {
+        StringBuilder sb = new StringBuilder(description.length() + 16);
+        for (String word : description.split(" ")) {
+            if (sb.length() > 0) sb.append(' ');
+            int at = rnd.nextInt(word.length() + 1);
+            sb.append(word, 0, at).append('q').append(word, at, word.length());
+        }
+        return sb.toString();
+    }
+
+    // `count` queries in the category: every other one a misspelt copy of one of `registered`,
+    // the rest new descriptions
+    static String[] queries(Random rnd, String category, String[] registered, int count) {
+        String[] queries = new String[count];
+        for (int i = 0; i < count; i++) {
+            queries[i] = i % 2 == 0 ? misspelt(rnd, registered[rnd.nextInt(registered.length)]) : description(rnd, category);
+        }
+        return queries;
+    }
+
+    private static String pick(Random rnd, String[] words) {
+        return words[rnd.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,114 @@
+package lost_and_found_system;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// The write side and the "View All" copy:
+//   registerFound   100k items over all categories into an empty database, time per item
+//   claimItem       10k claims in random order out of a database of 100k, time per claim
+//   getAllItems     the copy of a registry of `size` live items
+// Register and claim are single shots on a fresh database each time, so every measurement sees
+// the same registry sizes; JMH keeps building it outside the measured call.
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class RegistryBenchmark {
+    private static final int ITEMS = 100_000;
+    private static final int CLAIMS = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Rows {
+        String[][] rows;
+
+        @Setup
+        public void setup() {
+            Random rnd = new Random(7);
+            rows = new String[ITEMS][];
+            for (int i = 0; i < ITEMS; i++) {
+                String category = Inputs.category(rnd);
+                rows[i] = new String[] {category, Inputs.name(rnd, category), Inputs.description(rnd, category)};
+            }
+        }
+
+        LostFoundDatabase register(LostFoundDatabase db, int[] ids) {
+            for (int i = 0; i < rows.length; i++) ids[i] = db.registerFound(rows[i][0], rows[i][1], rows[i][2]);
+            return db;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Empty {
+        LostFoundDatabase db;
+        int[] ids = new int[ITEMS];
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            db = new LostFoundDatabase();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Registered {
+        LostFoundDatabase db;
+        int[] order = new int[ITEMS];
+
+        @Setup(Level.Invocation)
+        public void setup(Rows rows) {
+            db = rows.register(new LostFoundDatabase(), order);
+            Random rnd = new Random(11);
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = rnd.nextInt(i + 1), t = order[i];
+                order[i] = order[j];
+                order[j] = t;
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Live {
+        @Param({"10000", "100000", "1000000"})
+        int size;
+
+        LostFoundDatabase db;
+
+        @Setup
+        public void setup() {
+            Random rnd = new Random(size);
+            db = new LostFoundDatabase();
+            for (int i = 0; i < size; i++) {
+                String category = Inputs.category(rnd);
+                db.registerFound(category, Inputs.name(rnd, category), Inputs.description(rnd, category));
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(ITEMS)
+    public LostFoundDatabase registerFound(Rows rows, Empty empty) {
+        return rows.register(empty.db, empty.ids);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(CLAIMS)
+    public int claimItem(Registered registered) {
+        int claimed = 0;
+        for (int i = 0; i < CLAIMS; i++) {
+            if (registered.db.claimItem(registered.order[i])) claimed++;
+        }
+        return claimed;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public List<Item> getAllItems(Live live) {
+        return live.db.getAllItems();
+    }
+}
@@ -0,0 +1,158 @@
+package lost_and_found_system;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// searchItems in one category of `size` items, a desk's worth of results per query. Each call
+// takes the next of 256 queries, half of them misspelt copies of registered items.
+//   words   as typed at the desk: most of the words are indexed, the BM25 candidates answer it
+//   typos   a stray letter in every word (Inputs.garbled): no indexed word, so every query is
+//           the exact trigram search over the whole category
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SearchBenchmark {
+    private static final String CATEGORY = "Electronics";
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    int size;
+
+    @Param({"words", "typos"})
+    String queries;
+
+    private LostFoundDatabase db;
+    private String[] typed;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(size);
+        db = new LostFoundDatabase();
+        String[] registered = new String[Math.min(size, 10_000)];
+        for (int i = 0; i < size; i++) {
+            String description = Inputs.description(rnd, CATEGORY);
+            db.registerFound(CATEGORY, Inputs.name(rnd, CATEGORY), description);
+            if (i < registered.length) registered[i] = description;
+        }
+        typed = Inputs.queries(rnd, CATEGORY, registered, 256);
+        if (queries.equals("typos")) {
+            for (int i = 0; i < typed.length; i++) typed[i] = Inputs.garbled(rnd, typed[i]);
+        }
+    }
+
+    @Benchmark
+    public List<Map.Entry<Item, Double>> searchItems() {
+        String query = typed[next++ & (typed.length - 1)];
+        return db.searchItems(CATEGORY, query, LostFoundDatabase.DESK_RESULTS);
+    }
+
+    // The plain edit-distance queries on one category, answered by each of the two structures
+    // CategoryIndex picks between: every item within `distance` edits from the BK tree and from
+    // the trigram count filter, and the desk's k nearest from the tree. Queries as in `words`,
+    // normalized like the desk's. What decides CategoryIndex.TREE_RADIUS.
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+    public static class MetricQueries {
+        @Param({"10000", "100000"})
+        int size;
+
+        @Param({"2", "5", "8"})
+        int distance;
+
+        private BKTree tree;
+        private TrigramIndex grams;
+        private String[] typed;
+        private int next;
+
+        @Setup
+        public void setup() {
+            Random rnd = new Random(size);
+            tree = new BKTree(DistanceStrategy.BIT_PARALLEL);
+            ItemColumns columns = new ItemColumns();
+            grams = new TrigramIndex(columns);
+            String[] registered = new String[Math.min(size, 10_000)];
+            for (int i = 0; i < size; i++) {
+                String description = Inputs.description(rnd, CATEGORY);
+                Item item = new Item(i + 1, CATEGORY, Inputs.name(rnd, CATEGORY), description);
+                tree.add(item);
+                grams.add(columns.add(item), item.combinedDescription);
+                if (i < registered.length) registered[i] = description;
+            }
+            typed = Inputs.queries(rnd, CATEGORY, registered, 256);
+            for (int i = 0; i < typed.length; i++) typed[i] = TextNormalizer.normalize(typed[i]);
+        }
+
+        @Benchmark
+        public List<Item> withinDistanceTree() {
+            return tree.withinDistance(typed[next++ & (typed.length - 1)], distance);
+        }
+
+        @Benchmark
+        public int[] withinDistanceTrigrams() {
+            int[] found = new int[1];
+            grams.within(typed[next++ & (typed.length - 1)], DistanceStrategy.BIT_PARALLEL, distance, (slot, d) -> found[0]++);
+            return found;
+        }
+
+        @Benchmark
+        public List<Item> nearestTree() {
+            return tree.nearest(typed[next++ & (typed.length - 1)], LostFoundDatabase.DESK_RESULTS);
+        }
+    }
+
+    // Search-as-you-type latency: every call is one keystroke, the next prefix of 32 queries typed
+    // out in turn through one IncrementalSearch, as the Gui's live results run it. Sampled, so the
+    // percentiles show the slow keystrokes (a new indexed word, the trigram search) next to the
+    // cached ones; the target is under 50 ms at 100k items.
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+    public static class Typing {
+        @Param({"100000"})
+        int size;
+
+        @Param({"words", "typos"})
+        String queries;
+
+        private CategoryIndex index;
+        private final IncrementalSearch session = new IncrementalSearch();
+        private final List<String> keystrokes = new ArrayList<>();
+        private int next;
+
+        @Setup
+        public void setup() {
+            Random rnd = new Random(size);
+            index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+            String[] registered = new String[Math.min(size, 10_000)];
+            List<Item> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String description = Inputs.description(rnd, CATEGORY);
+                items.add(new Item(i + 1, CATEGORY, Inputs.name(rnd, CATEGORY), description));
+                if (i < registered.length) registered[i] = description;
+            }
+            index.addAll(items);
+            for (String query : Inputs.queries(rnd, CATEGORY, registered, 32)) {
+                String typed = queries.equals("typos") ? Inputs.garbled(rnd, query) : query;
+                for (int end = 1; end <= typed.length(); end++) keystrokes.add(TextNormalizer.normalize(typed.substring(0, end)));
+            }
+        }
+
+        @Benchmark
+        public TopK keystroke() {
+            TopK best = new TopK(LostFoundDatabase.DESK_RESULTS);
+            session.search(index, keystrokes.get(next++ % keystrokes.size()), 0.3, best);
+            return best;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package lost_and_found_system;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Startup with and without a snapshot, for the same registry of `items` live items:
+//   logOnly            the whole history replayed record by record from the write-ahead log,
+//                      including as many items again that were registered and claimed before
+//   snapshotAndTail    columnar snapshot of the live items plus a log tail of `tail` records
+// Only recovery is timed (records back into a registry map) unless index=true, which also builds
+// the category search indexes; that costs the same either way.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StartupBenchmark {
+    @Param({"1000000"})
+    int items;
+
+    @Param({"10000"})
+    int tail;
+
+    @Param({"false"})
+    boolean index;
+
+    private Path dir, logOnly, withSnapshot;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("lf-startup");
+        Random rnd = new Random(42);
+        Item[] all = new Item[items];
+        for (int i = 0; i < items; i++) {
+            String category = Inputs.category(rnd);
+            all[i] = new Item(i + 1, category, Inputs.name(rnd, category), Inputs.description(rnd, category));
+        }
+
+        logOnly = dir.resolve("log-only.wal");
+        try (WriteAheadLog log = new WriteAheadLog(logOnly, 1 << 20, 0)) {
+            // each of these is claimed 1000 registrations after it came in
+            String[] pending = new String[1000];
+            for (int i = 0; i < items + pending.length; i++) {
+                if (i >= pending.length) log.logClaim(items + 1 + i - pending.length, pending[i % pending.length]);
+                if (i < items) {
+                    String category = Inputs.category(rnd);
+                    log.logRegister(items + 1 + i, category, Inputs.name(rnd, category), Inputs.description(rnd, category));
+                    pending[i % pending.length] = category;
+                }
+            }
+            for (Item item : all) log.logRegister(item.id, item.category, item.name, item.stored());
+        }
+        withSnapshot = dir.resolve("snapshot.wal");
+        int base = Math.max(0, items - tail);
+        SnapshotWriter.write(withSnapshot.resolveSibling("snapshot.wal.snap"), base + 1, Arrays.copyOf(all, base));
+        try (WriteAheadLog log = new WriteAheadLog(withSnapshot, 1 << 20, 0)) {
+            for (int i = base; i < items; i++) log.logRegister(all[i].id, all[i].category, all[i].name, all[i].stored());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) Files.delete(f);
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public Map<Integer, Item> logOnly() throws IOException {
+        return open(logOnly);
+    }
+
+    @Benchmark
+    public Map<Integer, Item> snapshotAndTail() throws IOException {
+        return open(withSnapshot);
+    }
+
+    // The registry (and optionally its indexes) back from disk
+    private Map<Integer, Item> open(Path logFile) throws IOException {
+        HashMap<Integer, Item> byId = new HashMap<>();
+        HashMap<String, CategoryIndex> indexes = new HashMap<>();
+        RegistryStore store = new RegistryStore(logFile, new WriteAheadLog.Listener() {
+            public void registered(int id, String category, String name, String combined) {
+                Item item = new Item(id, category, name, combined);
+                if (byId.putIfAbsent(id, item) == null && index) {
+                    indexes.computeIfAbsent(category, c -> new CategoryIndex(DistanceStrategy.BIT_PARALLEL)).add(item);
+                }
+            }
+
+            public void claimed(int id, String category) {
+                Item item = byId.remove(id);
+                if (item != null && index) indexes.get(item.category).remove(item);
+            }
+        });
+        store.close();
+        return byId;
+    }
+}
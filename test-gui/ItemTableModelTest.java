@@ -0,0 +1,120 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import org.junit.jupiter.api.Test;
+
+// The "View All" card is built once and its table model kept: while the view is closed the model
+// hears nothing, opened again (however often) it counts what changed meanwhile, and from then on it
+// follows every registration and claim exactly once
+class ItemTableModelTest {
+    private static final Executor DIRECT = Runnable::run;       // pages and counts read right away
+
+    @Test
+    void aListenerIsAddedOnce() {
+        LostFoundDatabase db = new LostFoundDatabase();
+        List<Integer> seen = new ArrayList<>();
+        LostFoundDatabase.ChangeListener listener = new LostFoundDatabase.ChangeListener() {
+            public void registered(Item item) {
+                seen.add(item.id);
+            }
+
+            public void claimed(Item item) {
+                seen.add(-item.id);
+            }
+        };
+        db.addChangeListener(listener);
+        db.addChangeListener(listener);
+        int id = db.registerFound("Electronics", "phone", "black phone library");
+        assertTrue(db.claimItem(id));
+        assertEquals(List.of(id, -id), seen);
+        db.removeChangeListener(listener);
+        db.registerFound("Electronics", "phone", "black phone library");
+        assertEquals(List.of(id, -id), seen);
+    }
+
+    @Test
+    void keptModelFollowsTheRegistryAcrossVisits() throws Exception {
+        LostFoundDatabase db = new LostFoundDatabase();
+        for (int i = 0; i < 20; i++) db.registerFound("Electronics", "item " + i, "black phone " + i);
+        ItemTableModel model = new ItemTableModel(db, DIRECT);
+        List<Integer> events = Collections.synchronizedList(new ArrayList<>());
+        model.addTableModelListener(e -> {
+            if (e.getType() != TableModelEvent.UPDATE) events.add(e.getType());
+        });
+
+        open(db, model);
+        assertEquals(20, rows(model));
+        db.removeChangeListener(model);         // the view is left
+
+        List<Integer> claimed = new ArrayList<>();
+        for (int i = 0; i < 5; i++) db.registerFound("Books", "book " + i, "blue novel " + i);
+        for (int id = 1; id <= 3; id++) {
+            assertTrue(db.claimItem(id));
+            claimed.add(id);
+        }
+        flush();
+        assertEquals(20, rows(model));
+        assertEquals(List.of(), events);
+
+        open(db, model);
+        open(db, model);                        // shown twice without leaving: still one listener
+        assertEquals(22, rows(model));
+        assertEquals(live(db), shown(model));
+
+        events.clear();
+        int id = db.registerFound("Books", "book", "red novel");
+        flush();
+        assertEquals(List.of(TableModelEvent.INSERT), events);
+        assertEquals(23, rows(model));
+        events.clear();
+        assertTrue(db.claimItem(id));
+        flush();
+        assertEquals(List.of(TableModelEvent.DELETE), events);
+        assertEquals(live(db), shown(model));
+    }
+
+    // What showing the view does to the kept model
+    private static void open(LostFoundDatabase db, ItemTableModel model) throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            model.setFilter(null);
+            db.addChangeListener(model);
+        });
+        flush();
+    }
+
+    // Runs what was posted to the EDT, and what that posted in turn
+    private static void flush() throws Exception {
+        for (int i = 0; i < 3; i++) SwingUtilities.invokeAndWait(() -> {});
+    }
+
+    private static int rows(ItemTableModel model) throws Exception {
+        int[] rows = new int[1];
+        SwingUtilities.invokeAndWait(() -> rows[0] = model.getRowCount());
+        return rows[0];
+    }
+
+    // Ids down the table, in its default id order
+    private static List<Integer> shown(ItemTableModel model) throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            for (int row = 0; row < model.getRowCount(); row++) model.itemAt(row);      // asks for the pages
+        });
+        flush();
+        List<Integer> ids = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            for (int row = 0; row < model.getRowCount(); row++) ids.add(model.itemAt(row).id);
+        });
+        return ids;
+    }
+
+    private static List<Integer> live(LostFoundDatabase db) {
+        List<Integer> ids = new ArrayList<>();
+        for (Item item : db.getAllItems()) ids.add(item.id);
+        Collections.sort(ids);
+        return ids;
+    }
+}
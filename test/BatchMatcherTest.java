@@ -0,0 +1,183 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// BatchMatcher: one block of rows per report, in input order whatever the number of workers, each
+// row the candidate the desk's own search ranks there; reports it can't match are counted, not
+// written, and one without a candidate still gets its rank 0 row
+class BatchMatcherTest {
+    private static final String REPORTS_HEADER = "report,category,name,brand,color,location,date,description";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rowsAreTheDesksSearchInInputOrder() throws IOException {
+        LostFoundDatabase db = database();
+        String[][] reports = {
+            {"r1", "Electronics", "Phone", "Samsung", "black", "Library", "01-03-2024", "cracked screen"},
+            {"r2", "all", "", "", "", "", "", "black umbrella"},
+            {"r3", "Daily Use", "", "", "", "", "", "bag, blue"},
+            {"r4", "Furniture", "chair", "", "", "", "", ""},
+            {"r5", "Electronics", "", "", "", "", "", ""},
+            {"r6", "ID Card", "", "", "", "", "", "student card U-2023456"},
+            {"", "Not sure", "", "", "", "", "", "blue bag with laptop"},
+            {"r8", "", "", "", "", "", "", "zzqxw vvkjq xxyyz ppqqk"},
+        };
+        Path in = dir.resolve("reports.csv"), out = dir.resolve("matches.csv");
+        Files.writeString(in, csv(REPORTS_HEADER, reports));
+        db.matchFile(in, out);
+
+        List<List<String>> rows = read(out);
+        assertEquals(Arrays.asList(BatchMatcher.HEADER.split(",")), rows.remove(0));
+        Iterator<List<String>> it = rows.iterator();
+        for (String[] report : new String[][] {reports[0], reports[1], reports[2], reports[5], reports[6], reports[7]}) {
+            String id = report[0].isEmpty() ? "8" : report[0];        // no id: the report's line
+            List<Map.Entry<Item, Double>> expected = expected(db, report);
+            if (expected.isEmpty()) {
+                assertEquals(List.of(id, "0", "", "", "", ""), it.next());
+                continue;
+            }
+            int rank = 0;
+            for (Map.Entry<Item, Double> e : expected) {
+                List<String> row = it.next();
+                assertEquals(List.of(id, String.valueOf(++rank), String.valueOf(e.getKey().id), e.getKey().category),
+                    row.subList(0, 4), id);
+                assertEquals(e.getValue(), Double.parseDouble(row.get(4)), 0.00005, id);
+                assertEquals(e.getKey().name, row.get(5));
+            }
+        }
+        assertFalse(it.hasNext());
+        assertTrue(Files.readString(out).contains(",\"Bag, \"\"blue\"\"\"\n"), "a name with a comma and quotes is quoted");
+        assertEquals(1.0, expected(db, reports[5]).get(0).getValue());         // the card by its U-Number
+        assertEquals(List.of(), expected(db, reports[7]));
+    }
+
+    // More reports than the window of reports in flight: the rows still come out in input order,
+    // the same on one worker or several, and the counts add up
+    @Test
+    void outputDoesNotDependOnTheWorkers() throws IOException {
+        LostFoundDatabase db = database();
+        Random rnd = new Random(6);
+        StringBuilder reports = new StringBuilder("report,category,description\n");
+        int n = 1_500;
+        for (int i = 0; i < n; i++) {
+            String category = i % 3 == 0 ? "all" : BulkImporter.CATEGORIES.get(rnd.nextInt(5));
+            String description = i % 50 == 0 ? "" : CategoryIndexTest.words(rnd, 1 + rnd.nextInt(4));
+            reports.append("q").append(i).append(',').append(category).append(',').append(description).append('\n');
+        }
+        BatchMatcher.Searcher searcher = new BatchMatcher.Searcher() {
+            public void search(String category, String query, TopK best) {
+                db.searchInto(category, query, best);
+            }
+
+            public void searchFields(String category, String[] fields, TopK best) {
+                for (Map.Entry<Item, Double> e : db.searchFields(category, fields, best.k())) best.offer(e.getKey(), e.getValue());
+            }
+        };
+        String single = null;
+        for (int threads : new int[] {1, 4}) {
+            StringWriter out = new StringWriter();
+            BatchMatcher.Result result = new BatchMatcher(searcher, 5, threads, null).matchCsv(new StringReader(reports.toString()), out);
+            assertEquals(n - n / 50, result.reports);
+            assertEquals(n / 50, result.rejected);          // nothing to match on
+            List<String> order = new ArrayList<>();
+            for (List<String> row : read(new StringReader(out.toString()))) {
+                if (!row.get(0).equals("report") && (order.isEmpty() || !order.get(order.size() - 1).equals(row.get(0)))) order.add(row.get(0));
+            }
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (i % 50 != 0) expected.add("q" + i);
+            }
+            assertEquals(expected, order, threads + " threads");
+            if (single == null) single = out.toString();
+            else assertEquals(single, out.toString());
+        }
+    }
+
+    // JSON lines give the same report as the same reports in CSV
+    @Test
+    void jsonLinesMatchLikeCsv() throws IOException {
+        LostFoundDatabase db = database();
+        String csv = REPORTS_HEADER + "\n"
+            + "a,Electronics,Phone,Samsung,black,Library,01-03-2024,cracked screen\n"
+            + "b,all,,,,,,black umbrella\n"
+            + "c,ID Card,asha rao,,,,,\n";
+        String json = "{\"report\": \"a\", \"category\": \"Electronics\", \"name\": \"Phone\", \"brand\": \"Samsung\", \"color\": \"black\", \"location\": \"Library\", \"date\": \"01-03-2024\", \"description\": \"cracked screen\"}\n"
+            + "{\"report\": \"b\", \"category\": \"all\", \"description\": \"black umbrella\"}\n"
+            + "\n"
+            + "{\"report\": \"c\", \"category\": \"ID Card\", \"name\": \"asha rao\"}\n";
+        Path csvIn = dir.resolve("reports.csv"), jsonIn = dir.resolve("reports.jsonl");
+        Files.writeString(csvIn, csv);
+        Files.writeString(jsonIn, json);
+        db.matchFile(csvIn, dir.resolve("from-csv.csv"));
+        db.matchFile(jsonIn, dir.resolve("from-json.csv"));
+        String fromCsv = Files.readString(dir.resolve("from-csv.csv"));
+        assertEquals(fromCsv, Files.readString(dir.resolve("from-json.csv")));
+        assertTrue(fromCsv.contains("\nc,1,"), "the card found by its holder");
+    }
+
+    private static LostFoundDatabase database() {
+        LostFoundDatabase db = new LostFoundDatabase();
+        Random rnd = new Random(5);
+        for (int i = 0; i < 400; i++) {
+            String category = BulkImporter.CATEGORIES.get(rnd.nextInt(5));
+            db.registerFound(category, CategoryIndexTest.word(rnd), CategoryIndexTest.words(rnd, 3 + rnd.nextInt(4)));
+        }
+        db.registerFound("Electronics", new String[] {"Phone", "Samsung", "Black", "Library", "01-03-2024", "cracked screen"});
+        db.registerFound("Electronics", new String[] {"Phone", "Apple", "White", "Gym", "02-03-2024", ""});
+        db.registerFound("Daily Use", "umbrella", "black umbrella library");
+        db.registerFound("Daily Use", "Bag, \"blue\"", "blue bag with laptop");
+        db.registerFound(IdCardIndex.CATEGORY, new String[] {"Asha Rao", "Law", "U2023456", "", "Library", ""});
+        return db;
+    }
+
+    // What the desk's own search gives for the report, as BatchMatcher picks it
+    private static List<Map.Entry<Item, Double>> expected(LostFoundDatabase db, String[] report) {
+        String[] header = REPORTS_HEADER.split(",");
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.length; i++) fields.put(header[i], report[i]);
+        String key = BulkImporter.key(report[1]);
+        String category = key.isEmpty() || key.equals("all") || key.equals("notsure") ? null : report[1];
+        if (category != null && BatchMatcher.values(category, fields) != null) {
+            String[] raw = new String[ItemFields.order(category).length];
+            for (int i = 0; i < raw.length; i++) raw[i] = fields.getOrDefault(ItemFields.order(category)[i], "");
+            return db.searchFields(category, raw, LostFoundDatabase.DESK_RESULTS);
+        }
+        String query = BatchMatcher.query(category, fields);
+        return category == null ? db.searchAll(query, LostFoundDatabase.DESK_RESULTS) : db.searchItems(category, query, LostFoundDatabase.DESK_RESULTS);
+    }
+
+    private static String csv(String header, String[][] records) {
+        StringBuilder sb = new StringBuilder(header).append('\n');
+        for (String[] record : records) {
+            for (int i = 0; i < record.length; i++) {
+                String value = record[i];
+                if (i > 0) sb.append(',');
+                sb.append(value.contains(",") ? "\"" + value + "\"" : value);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static List<List<String>> read(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    private static List<List<String>> read(Reader in) throws IOException {
+        BulkImporter.CsvReader csv = new BulkImporter.CsvReader(in);
+        List<List<String>> rows = new ArrayList<>();
+        for (List<String> row; (row = csv.next()) != null; ) rows.add(row);
+        return rows;
+    }
+}
@@ -0,0 +1,148 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+// BulkImporter: RFC 4180 quoting (commas, "" and line breaks inside quotes), the desk's checks on
+// every row with the line it started on, and batches handed over whole and in file order
+class BulkImporterTest {
+    private static final String TODAY = LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+
+    @Test
+    void csvQuotedFields() throws IOException {
+        BulkImporter.CsvReader csv = new BulkImporter.CsvReader(new StringReader(
+            "a,\"b, with comma\",\"say \"\"hi\"\"\"\r\n"
+                + ",\"two\nlines\",\n"
+                + "\"\"\n"
+                + "last,row"));
+        assertEquals(List.of("a", "b, with comma", "say \"hi\""), csv.next());
+        assertEquals(1, csv.recordLine);
+        assertEquals(List.of("", "two\nlines", ""), csv.next());
+        assertEquals(2, csv.recordLine);
+        assertEquals(List.of(""), csv.next());
+        assertEquals(4, csv.recordLine);
+        assertEquals(List.of("last", "row"), csv.next());
+        assertEquals(5, csv.recordLine);
+        assertNull(csv.next());
+    }
+
+    @Test
+    void csvUnterminatedQuoteIsAnError() {
+        BulkImporter.CsvReader csv = new BulkImporter.CsvReader(new StringReader("ok\n\"never closed,\nstill open"));
+        assertDoesNotThrow(csv::next);
+        IOException e = assertThrows(IOException.class, csv::next);
+        assertTrue(e.getMessage().startsWith("line 2"), e.getMessage());
+    }
+
+    // A quote only opens a quoted field at its start; further in it is an ordinary char
+    @Test
+    void csvQuoteInsideAFieldIsKept() throws IOException {
+        BulkImporter.CsvReader csv = new BulkImporter.CsvReader(new StringReader("12\" screen,x\r"));
+        assertEquals(List.of("12\" screen", "x"), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void csvRowsBecomeFieldsInTheCategoryOrder() throws IOException {
+        List<BulkImporter.Row> rows = new ArrayList<>();
+        String csv = "Category,Name,Brand,Colour,Color,Location,Date,Description,U-Number\n"
+            + "electronics,Phone,\"Samsung, Inc.\",,Black,\"Library\n2nd floor\"," + TODAY + ",\"cracked \"\"galaxy\"\" screen\",\n"
+            + "ID Card,Alice Smith,,,,Gym," + TODAY + ",,U-2023456\n";
+        BulkImporter.Result result = new BulkImporter(rows::addAll, null).importCsv(new StringReader(csv));
+        assertEquals(2, result.imported);
+        assertEquals(0, result.rejected);
+
+        assertEquals("Electronics", rows.get(0).category);
+        assertEquals("Phone", rows.get(0).name);
+        String[] phone = {"Phone", "Samsung, Inc.", "Black", "Library\n2nd floor", TODAY, "cracked \"galaxy\" screen"};
+        assertArrayEquals(ItemFields.normalize(phone, phone.length), ItemFields.decode(rows.get(0).combined));
+        assertEquals("ID Card", rows.get(1).category);
+        assertEquals("2023456", ItemFields.uNumberKey(ItemFields.decode(rows.get(1).combined)[2]));
+    }
+
+    @Test
+    void badRowsAreRejectedWithTheirLine() throws IOException {
+        String tomorrow = LocalDate.now().plusDays(1).format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+        String csv = "category,name,date,description\n"
+            + "Electronics,Phone,01-03-2024,\"two\nlines\"\n"            // lines 2-3, fine
+            + "Toys,Ball,01-03-2024,\n"                                 // 4
+            + "Electronics,,01-03-2024,\n"                              // 5
+            + "Electronics,Phone,2024-03-01,\n"                         // 6
+            + "Electronics,Phone,1-3-2024,\n"                           // 7
+            + "Electronics,Phone,31-02-2024,\n"                         // 8, no such day
+            + "Electronics,Phone,29-02-2023,\n"                         // 9, not a leap year
+            + "Electronics,Phone," + tomorrow + ",\n"                   // 10
+            + "\n"
+            + "Electronics,Phone,29-02-2024,\n";                        // 12, fine
+        List<BulkImporter.Row> rows = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BulkImporter.Result result = new BulkImporter(rows::addAll, new PrintStream(out, true, StandardCharsets.UTF_8))
+            .importCsv(new StringReader(csv));
+        assertEquals(2, result.imported);
+        assertEquals(7, result.rejected);
+        assertEquals(List.of(
+            "line 4: unknown category 'Toys'",
+            "line 5: no name",
+            "line 6: invalid date '2024-03-01', use dd-MM-yyyy",
+            "line 7: invalid date '1-3-2024', use dd-MM-yyyy",
+            "line 8: invalid date '31-02-2024', use dd-MM-yyyy",
+            "line 9: invalid date '29-02-2023', use dd-MM-yyyy",
+            "line 10: date " + tomorrow + " is in the future"),
+            out.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void jsonLines() throws IOException {
+        String json = "{\"category\": \"Daily Use\", \"name\": \"Bottle\", \"color\": \"blue\", \"date\": \"" + TODAY + "\", \"description\": \"steel \\\"hydro\\\" \\u00e9\", \"weight\": 1.5, \"lid\": null}\n"
+            + "\n"
+            + "{\"category\": \"Daily Use\", \"name\": \"Cup\", \"tags\": [\"a\"]}\n"
+            + "{\"category\": \"Daily Use\", \"name\": \"Cup\"} trailing\n";
+        List<BulkImporter.Row> rows = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BulkImporter.Result result = new BulkImporter(rows::addAll, new PrintStream(out, true, StandardCharsets.UTF_8))
+            .importJsonLines(new StringReader(json));
+        assertEquals(1, result.imported);
+        assertEquals(2, result.rejected);
+        String[] bottle = {"Bottle", "blue", "", TODAY, "steel \"hydro\" \u00e9"};
+        assertArrayEquals(ItemFields.normalize(bottle, bottle.length), ItemFields.decode(rows.get(0).combined));
+        List<String> reported = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, reported.size());
+        assertTrue(reported.get(0).startsWith("line 3: unsupported value"), reported.get(0));
+        assertEquals("line 4: text after the object", reported.get(1));
+    }
+
+    // Several batches: each handed over whole, one at a time, rows in file order
+    @Test
+    void batchesKeepFileOrder() throws IOException {
+        int count = BulkImporter.BATCH * 2 + 17;
+        StringBuilder csv = new StringBuilder("category,name,date\n");
+        for (int i = 0; i < count; i++) csv.append("Stationary,pen ").append(i).append(',').append(TODAY).append('\n');
+        List<Integer> sizes = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        BulkImporter.Result result = new BulkImporter(batch -> {
+            sizes.add(batch.size());
+            for (BulkImporter.Row row : batch) names.add(row.name);
+        }, null).importCsv(new StringReader(csv.toString()));
+        assertEquals(count, result.imported);
+        assertEquals(List.of(BulkImporter.BATCH, BulkImporter.BATCH, 17), sizes);
+        for (int i = 0; i < count; i++) assertEquals("pen " + i, names.get(i));
+    }
+
+    // The database registers what the importer hands over, searchable right after
+    @Test
+    void importedRowsAreSearchable() throws IOException {
+        LostFoundDatabase db = new LostFoundDatabase();
+        String csv = "category,name,brand,color,location,date,description\n"
+            + "Electronics,Laptop,Dell,Silver,\"Library, 2nd floor\"," + TODAY + ",\"sticker \"\"CS club\"\" on lid\"\n";
+        assertEquals(1, new BulkImporter(db::registerBatch, null).importCsv(new StringReader(csv)).imported);
+        List<Map.Entry<Item, Double>> found = db.searchItems("Electronics", "laptop dell silver library 2nd floor", 1);
+        assertEquals("Laptop", found.get(0).getKey().name);
+        assertTrue(found.get(0).getKey().combinedDescription.toString().contains("sticker cs club on lid"));
+    }
+}
@@ -0,0 +1,264 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+// CategoryIndex against a linear scan that scores every item. The trigram count filter must not
+// lose or reorder a single result; in a large category the answer is the linear scan of the BM25
+// candidates when those fill the top k, and of the whole category when they don't
+class CategoryIndexTest {
+    private static final double MIN_SCORE = 0.3;
+    private static final String[] WORDS = {
+        "black", "silver", "blue", "red", "phone", "iphone", "samsung", "galaxy", "charger", "cable",
+        "laptop", "dell", "lenovo", "case", "cracked", "screen", "library", "cafeteria", "gym", "room",
+        "sticker", "headphones", "sony", "earbuds", "left", "near", "the", "desk", "usb", "c", "12",
+    };
+
+    @Test
+    void smallCategorySearchIsExact() {
+        Random rnd = new Random(5);
+        for (DistanceStrategy metric : new DistanceStrategy[] {DistanceStrategy.DP, DistanceStrategy.BIT_PARALLEL}) {
+            List<Item> items = items(rnd, CategoryIndex.RERANK_CANDIDATES);
+            CategoryIndex index = new CategoryIndex(metric);
+            index.addAll(items);
+            for (String query : queries(rnd, items, 60)) {
+                for (int k : new int[] {1, 10, 50}) {
+                    assertEquals(linear(items, query, k), index.search(query, MIN_SCORE, k), metric + " '" + query + "' k=" + k);
+                }
+            }
+        }
+    }
+
+    @Test
+    void largeCategorySearchMatchesLinearScan() {
+        Random rnd = new Random(1);
+        for (DistanceStrategy metric : new DistanceStrategy[] {DistanceStrategy.DP, DistanceStrategy.BIT_PARALLEL}) {
+            List<Item> items = items(rnd, 2_000);
+            CategoryIndex index = new CategoryIndex(metric);
+            index.addAll(items);
+            int ranked = 0, widened = 0;
+            for (String query : queries(rnd, items, 60)) {
+                for (int k : new int[] {1, 10, 50}) {
+                    List<Item> candidates = index.rerankCandidates(query);
+                    List<Map.Entry<Item, Double>> expected = candidates == null ? null : linear(candidates, query, k);
+                    if (expected != null && expected.size() == k) {
+                        ranked++;
+                    } else {
+                        expected = linear(items, query, k);
+                        widened++;
+                    }
+                    assertEquals(expected, index.search(query, MIN_SCORE, k), metric + " '" + query + "' k=" + k);
+                }
+            }
+            assertTrue(ranked > 0 && widened > 0, ranked + " ranked, " + widened + " widened");
+        }
+    }
+
+    // Misspelt words only: no candidate from the word index, so the whole category is searched
+    @Test
+    void largeCategorySearchWithoutWordsIsExact() {
+        Random rnd = new Random(6);
+        List<Item> items = items(rnd, 2_000);
+        CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+        index.addAll(items);
+        for (int i = 0; i < 20; i++) {
+            String query = word(rnd).substring(1) + "x " + word(rnd).substring(1) + "q blak phnoe";
+            assertNull(index.rerankCandidates(query), query);
+            assertEquals(linear(items, query, 10), index.search(query, MIN_SCORE, 10), query);
+        }
+    }
+
+    @Test
+    void searchMatchesLinearScanAfterClaims() {
+        Random rnd = new Random(2);
+        List<Item> items = items(rnd, 1_500);
+        CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+        index.addAll(items);
+        List<Item> live = new ArrayList<>(items);
+        for (int i = 0; i < 400; i++) index.remove(live.remove(rnd.nextInt(live.size())));
+        for (String query : queries(rnd, live, 40)) {
+            assertEquals(expected(index, live, query, 10), index.search(query, MIN_SCORE, 10), query);
+        }
+    }
+
+    @Test
+    void searchFieldsMatchesLinearScan() {
+        Random rnd = new Random(3);
+        ItemFields profile = ItemFields.of("Electronics");
+        List<Item> items = fieldItems(rnd, 1_000);
+        CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+        index.addAll(items);
+        for (int q = 0; q < 40; q++) {
+            String[] query = ItemFields.normalize(items.get(rnd.nextInt(items.size())).fields, profile.size());
+            query[rnd.nextInt(query.length)] = words(rnd, 2);
+            List<Item> candidates = index.rerankCandidates(ItemFields.join(query));
+            List<Map.Entry<Item, Double>> expected = candidates == null ? null : linear(profile, candidates, query, 10);
+            if (expected == null || expected.size() < 10) expected = linear(profile, items, query, 10);
+            TopK best = new TopK(10);
+            index.searchFields(profile, query, MIN_SCORE, best);
+            assertEquals(expected, best.drain(), Arrays.toString(query));
+        }
+    }
+
+    @Test
+    void incrementalSearchMatchesLinearScan() {
+        Random rnd = new Random(4);
+        List<Item> items = items(rnd, 2_000);
+        CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+        index.addAll(items);
+        IncrementalSearch box = new IncrementalSearch();
+        String typed = TextNormalizer.normalize(items.get(7).combinedDescription + " lft nera");
+        for (int end = 1; end <= typed.length(); end++) {
+            String query = typed.substring(0, end);
+            TopK best = new TopK(10);
+            box.search(index, query, MIN_SCORE, best);
+            assertEquals(expected(index, items, query, 10), best.drain(), query);
+        }
+    }
+
+    // No indexed word, so every keystroke is the trigram search with the bounds carried from the last
+    // one: typing, backspacing, and items claimed in between (down to a compaction) lose nothing
+    @Test
+    void incrementalSearchWithoutWordsMatchesLinearScan() {
+        Random rnd = new Random(8);
+        List<Item> items = items(rnd, 2_000);
+        CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+        index.addAll(items);
+        List<Item> live = new ArrayList<>(items);
+        IncrementalSearch box = new IncrementalSearch();
+        for (int typed = 0; typed < 3; typed++) {
+            StringBuilder text = new StringBuilder();
+            for (String w : words(rnd, 6).split(" ")) text.append(text.length() == 0 ? "q" : " q").append(w);
+            for (int end = 1; end <= text.length(); end++) {
+                String query = TextNormalizer.normalize(text.substring(0, rnd.nextInt(8) == 0 ? end - 1 : end));
+                for (int i = 0; i < 10; i++) index.remove(live.remove(rnd.nextInt(live.size())));
+                assertNull(index.rerankCandidates(query), query);
+                TopK best = new TopK(10);
+                box.search(index, query, MIN_SCORE, best);
+                assertEquals(linear(live, query, 10), best.drain(), query);
+            }
+        }
+    }
+
+    // Plain edit-distance queries against the distance of every item, nearest first, ties on the id
+    @Test
+    void withinDistanceAndNearestMatchLinearScan() {
+        Random rnd = new Random(7);
+        List<Item> items = items(rnd, 1_500);
+        CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+        index.addAll(items);
+        List<Item> live = new ArrayList<>(items);
+        for (int i = 0; i < 300; i++) index.remove(live.remove(rnd.nextInt(live.size())));
+        List<String> queries = queries(rnd, live, 30);
+        queries.add("");
+        queries.add("ph");
+        for (String query : queries) {
+            for (int d : new int[] {0, 1, 3, 8, 25}) {
+                List<Item> expected = new ArrayList<>();
+                for (Item item : byDistance(live, query)) {
+                    if (EditDistance.distance(query, item.combinedDescription) <= d) expected.add(item);
+                }
+                assertEquals(expected, index.withinDistance(query, d), "'" + query + "' d=" + d);
+            }
+            for (int k : new int[] {1, 10, 100}) {
+                List<Item> all = byDistance(live, query);
+                assertEquals(all.subList(0, Math.min(k, all.size())), index.nearest(query, k), "'" + query + "' k=" + k);
+            }
+        }
+        assertEquals(List.of(), new CategoryIndex(DistanceStrategy.DP).nearest("phone", 5));
+    }
+
+    private static List<Item> byDistance(List<Item> items, String query) {
+        List<Item> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingInt((Item item) -> EditDistance.distance(query, item.combinedDescription)).thenComparingInt(item -> item.id));
+        return sorted;
+    }
+
+    // Many duplicate descriptions, so ties on the score (broken by id) are common
+    static List<Item> items(Random rnd, int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            String description = id > 10 && rnd.nextInt(5) == 0
+                ? items.get(rnd.nextInt(items.size())).combinedDescription.toString() : words(rnd, 3 + rnd.nextInt(6));
+            items.add(new Item(id, "Electronics", word(rnd), description));
+        }
+        return items;
+    }
+
+    // Electronics items stored with their fields
+    static List<Item> fieldItems(Random rnd, int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            String[] values = {word(rnd) + " " + word(rnd), word(rnd), word(rnd), word(rnd) + " " + word(rnd),
+                (1 + rnd.nextInt(28)) + "-03-2024", words(rnd, 4)};
+            items.add(new Item(id, "Electronics", values[0], ItemFields.encode(values)));
+        }
+        return items;
+    }
+
+    // Registered descriptions with typos, fresh word combinations, and word fragments no index knows
+    static List<String> queries(Random rnd, List<Item> items, int count) {
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String query;
+            switch (i % 3) {
+                case 0 -> {
+                    char[] text = items.get(rnd.nextInt(items.size())).combinedDescription.toString().toCharArray();
+                    for (int typos = 1 + rnd.nextInt(3); typos > 0 && text.length > 0; typos--) {
+                        text[rnd.nextInt(text.length)] = (char) ('a' + rnd.nextInt(26));
+                    }
+                    query = new String(text);
+                }
+                case 1 -> query = words(rnd, 1 + rnd.nextInt(6));
+                default -> query = word(rnd).substring(1) + "x " + word(rnd).substring(1) + "q";
+            }
+            queries.add(TextNormalizer.normalize(query));
+        }
+        return queries;
+    }
+
+    // What search() answers in a category of more than RERANK_CANDIDATES items
+    static List<Map.Entry<Item, Double>> expected(CategoryIndex index, List<Item> items, String query, int k) {
+        List<Item> candidates = index.rerankCandidates(query);
+        List<Map.Entry<Item, Double>> ranked = candidates == null ? null : linear(candidates, query, k);
+        return ranked != null && ranked.size() == k ? ranked : linear(items, query, k);
+    }
+
+    // Every item scored with the plain DP distance, best first, ties on the lower id
+    static List<Map.Entry<Item, Double>> linear(List<Item> items, String query, int k) {
+        List<Map.Entry<Item, Double>> all = new ArrayList<>();
+        for (Item item : items) {
+            String description = item.combinedDescription.toString();
+            int maxLength = Math.max(query.length(), description.length());
+            double score = maxLength == 0 ? 1.0 : 1.0 - ((double) EditDistance.distance(query, description) / maxLength);
+            if (score > MIN_SCORE) all.add(Map.entry(item, score));
+        }
+        return top(all, k);
+    }
+
+    static List<Map.Entry<Item, Double>> linear(ItemFields profile, List<Item> items, String[] query, int k) {
+        List<Map.Entry<Item, Double>> all = new ArrayList<>();
+        for (Item item : items) {
+            double score = profile.score(item.fields, query, DistanceStrategy.DP, MIN_SCORE, new TopK(1));
+            if (score >= 0) all.add(Map.entry(item, score));
+        }
+        return top(all, k);
+    }
+
+    static List<Map.Entry<Item, Double>> top(List<Map.Entry<Item, Double>> all, int k) {
+        all.sort(Comparator.comparing((Map.Entry<Item, Double> e) -> -e.getValue()).thenComparingInt(e -> e.getKey().id));
+        return new ArrayList<>(all.subList(0, Math.min(k, all.size())));
+    }
+
+    static String words(Random rnd, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) sb.append(i == 0 ? "" : " ").append(word(rnd));
+        return sb.toString();
+    }
+
+    static String word(Random rnd) {
+        return WORDS[rnd.nextInt(WORDS.length)];
+    }
+}
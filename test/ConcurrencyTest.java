@@ -0,0 +1,109 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Several desks on one LostFoundDatabase: every claim of an item is won exactly once, and whatever
+// the threads did to the registry (a snapshot rotating under them included) is what a restart reads
+class ConcurrencyTest {
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Clothing", "Jewelry"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void twoClaimsOfTheSameItemHaveOneWinner() throws Exception {
+        LostFoundDatabase db = new LostFoundDatabase(dir.resolve("lostfound.wal"));
+        ExecutorService desks = Executors.newFixedThreadPool(2);
+        try {
+            Random rnd = new Random(1);
+            for (int round = 0; round < 2_000; round++) {
+                int id = db.registerFound(CATEGORIES[round % CATEGORIES.length], "item " + round, CategoryIndexTest.words(rnd, 3));
+                CyclicBarrier start = new CyclicBarrier(2);
+                Callable<Boolean> claim = () -> {
+                    start.await();
+                    return db.claimItem(id);
+                };
+                Future<Boolean> a = desks.submit(claim), b = desks.submit(claim);
+                assertTrue(a.get() ^ b.get(), "item " + id);
+                assertNull(db.getItem(id));
+            }
+        } finally {
+            desks.shutdownNow();
+            db.close();
+        }
+    }
+
+    // Four desks register one by one and in import batches, and claim each other's items, for more
+    // than SNAPSHOT_EVERY log records, so the log is rotated and snapshotted while they run
+    @Test
+    void registrationsAndClaimsAcrossASnapshot() throws Exception {
+        Path log = dir.resolve("lostfound.wal");
+        LostFoundDatabase db = new LostFoundDatabase(log);
+        int desks = 4, perDesk = RegistryStore.SNAPSHOT_EVERY / desks + 5_000;
+        ConcurrentHashMap<Integer, String> registered = new ConcurrentHashMap<>();
+        Set<Integer> claimed = ConcurrentHashMap.newKeySet();
+        AtomicInteger lastId = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(desks);
+        List<Future<?>> running = new ArrayList<>();
+        for (int d = 0; d < desks; d++) {
+            int desk = d;
+            running.add(pool.submit(() -> {
+                Random rnd = new Random(desk);
+                for (int done = 0; done < perDesk; ) {
+                    int last = lastId.get();
+                    if (rnd.nextInt(4) == 0 && last > 0) {
+                        int id = 1 + rnd.nextInt(last);
+                        if (db.claimItem(id)) assertTrue(claimed.add(id), "claimed twice: " + id);
+                        done++;
+                    } else if (desk == 0 && rnd.nextInt(50) == 0) {
+                        List<BulkImporter.Row> rows = new ArrayList<>();
+                        for (int i = 0; i < 200; i++) {
+                            rows.add(new BulkImporter.Row(CATEGORIES[rnd.nextInt(CATEGORIES.length)], "batch " + done, CategoryIndexTest.words(rnd, 3)));
+                        }
+                        db.registerBatch(rows);
+                        done += rows.size();
+                    } else {
+                        String category = CATEGORIES[rnd.nextInt(CATEGORIES.length)];
+                        int id = db.registerFound(category, "desk " + desk, CategoryIndexTest.words(rnd, 3));
+                        Item item = db.getItem(id);         // null if another desk has claimed it already
+                        if (item != null) registered.put(id, describe(item));
+                        lastId.accumulateAndGet(id, Math::max);
+                        done++;
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : running) f.get();
+        pool.shutdown();
+        // batch rows aren't handed back by id, so they are picked up from the registry here
+        Map<Integer, String> live = new TreeMap<>();
+        for (Item item : db.getAllItems()) live.put(item.id, describe(item));
+        for (Map.Entry<Integer, String> e : registered.entrySet()) {
+            assertEquals(claimed.contains(e.getKey()) ? null : e.getValue(), live.get(e.getKey()), "id " + e.getKey());
+        }
+        for (int id : claimed) assertNull(db.getItem(id));
+        db.close();
+        assertTrue(Files.exists(log.resolveSibling(log.getFileName() + ".snap")));
+
+        LostFoundDatabase reopened = new LostFoundDatabase(log);
+        try {
+            Map<Integer, String> recovered = new TreeMap<>();
+            for (Item item : reopened.getAllItems()) recovered.put(item.id, describe(item));
+            assertEquals(live, recovered);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static String describe(Item item) {
+        return item.category + "|" + item.name + "|" + item.stored();
+    }
+}
@@ -0,0 +1,59 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+// DateRankIndex against a sorted list of (day, id): ranks, selects and day counts stay right while
+// items come and go and new days (earlier, later, undated) keep turning up
+class DateRankIndexTest {
+    @Test
+    void ranksMatchSortedList() {
+        Random rnd = new Random(3);
+        DateRankIndex index = new DateRankIndex();
+        TreeSet<long[]> live = new TreeSet<>((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        int nextId = 0;
+        for (int step = 0; step < 20_000; step++) {
+            if (live.isEmpty() || rnd.nextInt(3) > 0) {
+                int day = rnd.nextInt(20) == 0 ? DateRankIndex.NO_DATE : 19_000 + rnd.nextInt(400);
+                index.add(day, nextId);
+                live.add(new long[] {day, nextId++});
+            } else {
+                List<long[]> all = new ArrayList<>(live);
+                long[] gone = all.get(rnd.nextInt(all.size()));
+                index.remove((int) gone[0], (int) gone[1]);
+                live.remove(gone);
+            }
+            if (step % 500 != 0) continue;
+            List<long[]> sorted = new ArrayList<>(live);
+            assertEquals(sorted.size(), index.size());
+            for (int r = 0; r < sorted.size(); r++) {
+                assertEquals(sorted.get(r)[1], index.select(r), "select " + r);
+                assertEquals(r, index.rankOf((int) sorted.get(r)[0], (int) sorted.get(r)[1]), "rank " + r);
+            }
+            assertEquals(-1, index.select(sorted.size()));
+            for (int day : new int[] {Integer.MIN_VALUE, 18_999, 19_000, 19_123, 19_399, 19_400, DateRankIndex.NO_DATE}) {
+                long before = sorted.stream().filter(e -> e[0] < day).count();
+                assertEquals(before, index.countBefore(day), "before " + day);
+            }
+        }
+    }
+
+    // A removed item's rank is where it would go back in, the row it had in the table
+    @Test
+    void rankOfRemovedItemIsItsOldRow() {
+        DateRankIndex index = new DateRankIndex();
+        index.add(10, 5);
+        index.add(10, 1);
+        index.add(2, 9);
+        index.add(DateRankIndex.NO_DATE, 3);
+        assertEquals(2, index.rankOf(10, 5));
+        index.remove(10, 5);
+        assertEquals(2, index.rankOf(10, 5));
+        assertEquals(9, index.select(0));
+        assertEquals(1, index.select(1));
+        assertEquals(3, index.select(2));
+        assertEquals(2, index.countBefore(DateRankIndex.NO_DATE));
+    }
+}
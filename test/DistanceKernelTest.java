@@ -0,0 +1,123 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// Both Levenshtein kernels against a plain full-matrix DP, with and without a cutoff, on random
+// strings of 0 to 200 chars: one and several 64-bit blocks for the bit-parallel kernel, Latin-1
+// (its own table) and beyond (handed to the DP kernel), and the byte overloads at an offset
+class DistanceKernelTest {
+    private static final int PAIRS = 3_000;
+    private static final String SMALL = "abcde ";
+    private static final String WIDE = "aé€łж中 ";
+
+    @Test
+    void latin1MatchesReference() {
+        Random rnd = new Random(1);
+        for (int i = 0; i < PAIRS; i++) {
+            String[] pair = pair(rnd, i % 2 == 0 ? SMALL : null);
+            check(pair[0], pair[1], rnd);
+        }
+    }
+
+    @Test
+    void nonLatin1MatchesReference() {
+        Random rnd = new Random(2);
+        for (int i = 0; i < PAIRS; i++) {
+            String[] pair = pair(rnd, WIDE);
+            if (i % 3 == 0) pair[1] = pair[1].replace('中', 'a');      // one side Latin-1 only
+            check(pair[0], pair[1], rnd);
+        }
+    }
+
+    @Test
+    void byteRangesMatchReference() {
+        Random rnd = new Random(3);
+        for (int i = 0; i < PAIRS; i++) {
+            String[] pair = pair(rnd, i % 2 == 0 ? SMALL : null);
+            int expected = reference(pair[0], pair[1]);
+            byte[] a = padded(pair[0], rnd), b = padded(pair[1], rnd);
+            int aFrom = a.length - pair[0].length() - 3, bFrom = b.length - pair[1].length() - 3;
+            int max = rnd.nextInt(expected + 3);
+            String where = "'" + pair[0] + "' / '" + pair[1] + "' max " + max;
+            for (DistanceStrategy kernel : new DistanceStrategy[] {DistanceStrategy.DP, DistanceStrategy.BIT_PARALLEL}) {
+                assertEquals(expected, kernel.distance(a, aFrom, pair[0].length(), b, bFrom, pair[1].length(), Integer.MAX_VALUE), where);
+                assertEquals(Math.min(expected, max + 1), kernel.distance(a, aFrom, pair[0].length(), b, bFrom, pair[1].length(), max), where);
+            }
+        }
+    }
+
+    @Test
+    void edgeCases() {
+        for (DistanceStrategy kernel : new DistanceStrategy[] {DistanceStrategy.DP, DistanceStrategy.BIT_PARALLEL}) {
+            assertEquals(0, kernel.distance("", "", 0));
+            assertEquals(3, kernel.distance("", "abc", Integer.MAX_VALUE));
+            assertEquals(2, kernel.distance("abc", "", 1));         // over the cutoff: cutoff + 1
+            assertEquals(0, kernel.distance("x".repeat(130), "x".repeat(130), 0));
+            assertEquals(1, kernel.distance("x".repeat(64), "x".repeat(65), 5));
+            assertEquals(3, kernel.distance("kitten", "sitting", 3));
+            assertEquals(3, kernel.distance("kitten", "sitting", 2));
+        }
+    }
+
+    private static void check(String a, String b, Random rnd) {
+        int expected = reference(a, b);
+        int max = rnd.nextInt(expected + 3);
+        String where = "'" + a + "' / '" + b + "' max " + max;
+        assertEquals(expected, EditDistance.distance(a, b), where);
+        assertEquals(expected, BitParallelDistance.distance(a, b), where);
+        assertEquals(expected, BitParallelDistance.distance(b, a), where);
+        assertEquals(Math.min(expected, max + 1), EditDistance.distance(a, b, max), where);
+        assertEquals(Math.min(expected, max + 1), BitParallelDistance.distance(a, b, max), where);
+    }
+
+    // Two strings of 0..200 chars; mostly one an edited copy of the other so distances stay small
+    // enough for the cutoffs to matter. alphabet null = any Latin-1 char
+    private static String[] pair(Random rnd, String alphabet) {
+        String a = random(rnd, rnd.nextInt(201), alphabet);
+        if (rnd.nextInt(4) == 0) return new String[] {a, random(rnd, rnd.nextInt(201), alphabet)};
+        StringBuilder b = new StringBuilder(a);
+        for (int edits = rnd.nextInt(12); edits > 0; edits--) {
+            int at = rnd.nextInt(b.length() + 1);
+            switch (rnd.nextInt(3)) {
+                case 0 -> b.insert(at, random(rnd, 1, alphabet));
+                case 1 -> { if (at < b.length()) b.deleteCharAt(at); }
+                default -> { if (at < b.length()) b.setCharAt(at, random(rnd, 1, alphabet).charAt(0)); }
+            }
+        }
+        return new String[] {a, b.length() > 200 ? b.substring(0, 200) : b.toString()};
+    }
+
+    private static String random(Random rnd, int length, String alphabet) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet == null ? (char) rnd.nextInt(256) : alphabet.charAt(rnd.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    // The string's Latin-1 bytes with a few random bytes on both sides
+    private static byte[] padded(String s, Random rnd) {
+        byte[] text = s.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] out = new byte[text.length + 3 + rnd.nextInt(5) + 3];
+        rnd.nextBytes(out);
+        System.arraycopy(text, 0, out, out.length - text.length - 3, text.length);
+        return out;
+    }
+
+    private static int reference(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
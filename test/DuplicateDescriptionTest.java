@@ -0,0 +1,89 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Two found items with the same description are two items: each keeps its own id through the
+// registry, the description index, the search and a restart, and claiming one leaves the other
+class DuplicateDescriptionTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameDescriptionTwiceIsTwoItems() {
+        LostFoundDatabase db = new LostFoundDatabase();
+        int first = db.registerFound("Daily Use", "umbrella", "Black umbrella, library");
+        int second = db.registerFound("Daily Use", "umbrella", "black umbrella library");       // normalizes to the same text
+        db.registerFound("Electronics", "umbrella", "black umbrella library");                  // same text, another category
+        assertNotEquals(first, second);
+        assertEquals("umbrella", db.getItem(first).name);
+        assertEquals(List.of(first, second), ids(db.findByDescription("Daily Use", "BLACK umbrella - library")));
+
+        List<Map.Entry<Item, Double>> found = db.searchItems("Daily Use", "black umbrella library", 10);
+        assertEquals(List.of(first, second), ids(keys(found)));
+        assertEquals(1.0, found.get(0).getValue());
+        assertEquals(1.0, found.get(1).getValue());
+
+        assertTrue(db.claimItem(first));
+        assertFalse(db.claimItem(first));
+        assertNull(db.getItem(first));
+        assertNotNull(db.getItem(second));
+        assertEquals(List.of(second), ids(db.findByDescription("Daily Use", "black umbrella library")));
+        assertEquals(List.of(second), ids(keys(db.searchItems("Daily Use", "black umbrella library", 10))));
+
+        assertTrue(db.claimItem(second));
+        assertEquals(List.of(), db.findByDescription("Daily Use", "black umbrella library"));
+        assertEquals(1, db.findByDescription("Electronics", "black umbrella library").size());
+    }
+
+    // Many copies of a few descriptions, some claimed, read back from the log
+    @Test
+    void duplicatesSurviveARestart() throws Exception {
+        Path log = dir.resolve("lostfound.wal");
+        Random rnd = new Random(4);
+        String[] texts = {"black umbrella library", "blue water bottle gym", "student card law faculty"};
+        Map<String, List<Integer>> live = new TreeMap<>();
+        LostFoundDatabase db = new LostFoundDatabase(log);
+        try {
+            for (int i = 0; i < 300; i++) {
+                String text = texts[rnd.nextInt(texts.length)];
+                live.computeIfAbsent(text, t -> new ArrayList<>()).add(db.registerFound("Daily Use", "item", text));
+                if (rnd.nextInt(3) == 0) {
+                    List<Integer> same = live.get(texts[rnd.nextInt(texts.length)]);
+                    if (same != null && !same.isEmpty()) assertTrue(db.claimItem(same.remove(rnd.nextInt(same.size()))));
+                }
+            }
+        } finally {
+            db.close();
+        }
+        LostFoundDatabase reopened = new LostFoundDatabase(log);
+        try {
+            for (Map.Entry<String, List<Integer>> e : live.entrySet()) {
+                List<Integer> expected = new ArrayList<>(e.getValue());
+                Collections.sort(expected);
+                assertEquals(expected, ids(reopened.findByDescription("Daily Use", e.getKey())), e.getKey());
+            }
+            assertEquals(live.values().stream().mapToInt(List::size).sum(), reopened.getAllItems().size());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static List<Item> keys(List<Map.Entry<Item, Double>> found) {
+        List<Item> out = new ArrayList<>();
+        for (Map.Entry<Item, Double> e : found) out.add(e.getKey());
+        return out;
+    }
+
+    // In id order: the description index keeps registration order, which a replay may not
+    private static List<Integer> ids(List<Item> items) {
+        List<Integer> out = new ArrayList<>();
+        for (Item item : items) out.add(item.id);
+        Collections.sort(out);
+        return out;
+    }
+}
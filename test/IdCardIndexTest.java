@@ -0,0 +1,162 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+// IdCardIndex: a U-Number in any of its spellings finds exactly the cards that carry it, a holder's
+// name finds that holder's cards, and anything else (a U-Number nobody has, a claimed card, another
+// category) is left to the fuzzy search
+class IdCardIndexTest {
+    private static final String CARD = IdCardIndex.CATEGORY;
+
+    @Test
+    void uNumberInText() {
+        assertEquals("2023456", IdCardIndex.uNumberIn("blue card u2023456 near the gym"));
+        assertEquals("2023456", IdCardIndex.uNumberIn(TextNormalizer.normalize("Card, U-2023456, library")));
+        assertEquals("2023456", IdCardIndex.uNumberIn("unumber 2023456"));
+        assertEquals("2023456", IdCardIndex.uNumberIn("u number u2023456"));
+        assertEquals("2023456", IdCardIndex.uNumberIn("u number u 2023456"));
+        assertNull(IdCardIndex.uNumberIn("left in room u 12"));
+        assertNull(IdCardIndex.uNumberIn("call 2023456 if found"));
+        assertNull(IdCardIndex.uNumberIn("uber receipt u20x3456"));
+        assertNull(IdCardIndex.uNumberIn(""));
+    }
+
+    @Test
+    void uNumberFindsExactlyItsCards() {
+        IdCardIndex index = new IdCardIndex();
+        Item alice = card(1, "Alice Smith", "U2023456"), twin = card(2, "Alice Smith", "u-2023456");
+        Item bob = card(3, "Bob Jones", "U2029999");
+        for (Item item : List.of(alice, twin, bob)) index.add(item);
+        for (String spelling : new String[] {"U2023456", "u-2023456", "2023456", "U 2023 456"}) {
+            TopK best = new TopK(10);
+            assertTrue(index.lookup(report("someone else", spelling), DistanceStrategy.BIT_PARALLEL, 0.3, best), spelling);
+            assertEquals(List.of(Map.entry(alice, 1.0), Map.entry(twin, 1.0)), best.drain(), spelling);
+        }
+        TopK text = new TopK(10);
+        assertTrue(index.lookup("lost my card u 2029999 yesterday", text));
+        assertEquals(List.of(Map.entry(bob, 1.0)), text.drain());
+    }
+
+    // A typo'd U-Number is not replaced by a name hit: the fuzzy search gets to weigh both
+    @Test
+    void unknownUNumberFallsBackToSearch() {
+        IdCardIndex index = new IdCardIndex();
+        index.add(card(1, "Alice Smith", "U2023456"));
+        TopK best = new TopK(10);
+        assertFalse(index.lookup(report("Alice Smith", "U2023465"), DistanceStrategy.BIT_PARALLEL, 0.3, best));
+        assertEquals(0, best.drain().size());
+        assertFalse(index.lookup("card u2023465", best));
+    }
+
+    @Test
+    void holderFindsTheirCardsScoredOnAllFields() {
+        IdCardIndex index = new IdCardIndex();
+        Item cs = card(1, "Alice Smith", "U2023456", "Computer Science"), law = card(2, "Alice Smith", "U2020001", "Law");
+        index.add(cs);
+        index.add(law);
+        index.add(card(3, "Bob Jones", "U2029999"));
+        String[] query = report("alice smith", "");
+        query[1] = "law";
+        query = ItemFields.normalize(query, query.length);
+        TopK best = new TopK(10);
+        assertTrue(index.lookup(query, DistanceStrategy.BIT_PARALLEL, 0.3, best));
+        List<Map.Entry<Item, Double>> found = best.drain();
+        assertEquals(List.of(law, cs), List.of(found.get(0).getKey(), found.get(1).getKey()));
+        ItemFields profile = ItemFields.of(CARD);
+        assertEquals(profile.score(law.fields, query, DistanceStrategy.DP, 0.3, new TopK(1)), found.get(0).getValue(), 1e-9);
+    }
+
+    // A free text with no U-Number in it finds the cards of a holder named in it
+    @Test
+    void holderNameInFreeText() {
+        IdCardIndex index = new IdCardIndex();
+        Item cs = card(1, "Alice Smith", "U2023456"), law = card(2, "Alice Smith", "U2020001", "Law");
+        Item bob = card(3, "Bob van der Berg", "U2029999");
+        for (Item item : List.of(cs, law, bob)) index.add(item);
+        TopK best = new TopK(10);
+        assertTrue(index.lookup("lost card of alice smith near the gym", best));
+        assertEquals(List.of(Map.entry(cs, 1.0), Map.entry(law, 1.0)), best.drain());
+        assertTrue(index.lookup("bob van der berg student card", best));
+        assertEquals(List.of(Map.entry(bob, 1.0)), best.drain());
+        assertFalse(index.lookup("card of alice near the gym", best));
+        assertFalse(index.lookup("alice smith card u2023465", best));     // a typo'd U-Number still goes to the search
+        assertEquals(0, best.drain().size());
+    }
+
+    @Test
+    void removedCardsAndOtherCategoriesAreNotFound() {
+        IdCardIndex index = new IdCardIndex();
+        Item card = card(1, "Alice Smith", "U2023456");
+        index.add(card);
+        index.add(new Item(2, "Electronics", "phone", "black phone sticker u2020001"));
+        index.remove(card);
+        TopK best = new TopK(10);
+        assertFalse(index.lookup(report("alice smith", "U2023456"), DistanceStrategy.BIT_PARALLEL, 0.3, best));
+        assertFalse(index.lookup(report("alice smith", ""), DistanceStrategy.BIT_PARALLEL, 0.3, best));
+        assertFalse(index.lookup("u2020001", best));
+    }
+
+    // Cards registered as plain text (the Gui form, old logs) are keyed on a U-Number in the text
+    @Test
+    void plainTextCardIsFoundByItsUNumber() {
+        IdCardIndex index = new IdCardIndex();
+        Item card = new Item(1, CARD, "student card", "Blue student card, U-2023456, found at the gym");
+        Item noNumber = new Item(2, CARD, "staff card", "staff card 2023456 near the lab");
+        index.add(card);
+        index.add(noNumber);
+        TopK best = new TopK(10);
+        assertTrue(index.lookup(report("", "u2023456"), DistanceStrategy.BIT_PARALLEL, 0.3, best));
+        assertEquals(List.of(Map.entry(card, 1.0)), best.drain());
+    }
+
+    // Through the database: the fast path answers, and a claim takes the card out of it
+    @Test
+    void databaseSearchUsesTheIndexUntilTheCardIsClaimed() {
+        LostFoundDatabase db = new LostFoundDatabase();
+        int id = db.registerFound(CARD, raw("Alice Smith", "U2023456", "Law"));
+        db.registerFound(CARD, raw("Alicia Smith", "U2023457", "Law"));
+        List<Map.Entry<Item, Double>> found = db.searchItems(CARD, "Lost my card U-2023456", 5);
+        assertEquals(1, found.size());
+        assertEquals(id, found.get(0).getKey().id);
+        assertEquals(1.0, found.get(0).getValue());
+        assertEquals(id, db.searchFields(CARD, raw("", "2023456", ""), 5).get(0).getKey().id);
+
+        assertTrue(db.claimItem(id));
+        for (Map.Entry<Item, Double> e : db.searchItems(CARD, "Lost my card U-2023456", 5)) assertNotEquals(id, e.getKey().id);
+        for (Map.Entry<Item, Double> e : db.searchFields(CARD, raw("", "2023456", ""), 5)) assertNotEquals(id, e.getKey().id);
+    }
+
+    // An exact hit is one operation in the metrics, under its own name, not a search as well
+    @Test
+    void cardLookupIsRecordedOnce() throws Exception {
+        LostFoundDatabase db = new LostFoundDatabase();
+        db.registerFound(CARD, raw("Alice Smith", "U2023456", "Law"));
+        db.searchItems(CARD, "Lost my card U-2023456", 5);
+        assertEquals(1L, db.metrics.getAttribute("id card lookup.count"));
+        assertThrows(javax.management.AttributeNotFoundException.class, () -> db.metrics.getAttribute("search.count"));
+        db.searchItems(CARD, "blue card law faculty", 5);
+        assertEquals(1L, db.metrics.getAttribute("id card lookup.count"));
+        assertEquals(1L, db.metrics.getAttribute("search.count"));
+    }
+
+    private static Item card(int id, String name, String uNumber) {
+        return card(id, name, uNumber, "Computer Science");
+    }
+
+    private static Item card(int id, String name, String uNumber, String department) {
+        return new Item(id, CARD, name, ItemFields.encode(ItemFields.normalize(raw(name, uNumber, department), ItemFields.of(CARD).size())));
+    }
+
+    // Normalized report: name and U-Number filled in, the rest empty
+    private static String[] report(String name, String uNumber) {
+        return ItemFields.normalize(raw(name, uNumber, ""), ItemFields.of(CARD).size());
+    }
+
+    // Raw values in ItemFields.order(CARD): name, department, unumber, year, location, date
+    private static String[] raw(String name, String uNumber, String department) {
+        return new String[] {name, department, uNumber, "", "", ""};
+    }
+}
@@ -0,0 +1,110 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+// Field-by-field scoring: the weighted mean over the fields both sides filled in, each field
+// compared its own way (text, color synonyms, U-Number, date window), and cut off at minScore
+class ItemFieldsTest {
+    private static final ItemFields ELECTRONICS = ItemFields.of("Electronics");     // name 3, brand 2.5, color 1.5, location 1, date 0.5, description 1.5
+
+    @Test
+    void weightedMeanOverTheFields() {
+        String[] item = values("Phone", "Samsung", "black", "Library", "01-03-2024", "cracked screen");
+        assertEquals(1.0, score(item, item), 1e-9);
+        // 7 days apart is half the date's weight: (10 - 0.5 * 0.5) / 10
+        assertEquals(0.975, score(item, values("Phone", "Samsung", "black", "Library", "08-03-2024", "cracked screen")), 1e-9);
+        // a wrong brand costs far more than a wrong date
+        double wrongBrand = score(item, values("Phone", "Apple", "black", "Library", "01-03-2024", "cracked screen"));
+        int d = DistanceStrategy.DP.distance("samsung", "apple", Integer.MAX_VALUE);
+        assertEquals((10 - 2.5 * d / 7.0) / 10, wrongBrand, 1e-9);
+        double wrongDate = score(item, values("Phone", "Samsung", "black", "Library", "01-06-2024", "cracked screen"));
+        assertEquals(0.95, wrongDate, 1e-9);
+        assertTrue(wrongDate > wrongBrand);
+    }
+
+    @Test
+    void emptyFieldsCostNothing() {
+        String[] item = values("Phone", "Samsung", "black", "Library", "01-03-2024", "cracked screen");
+        assertEquals(1.0, score(item, values("Phone", "", "", "Library", "", "")), 1e-9);
+        // only name and location are on both sides: (3 * 1 + 1 * 0) / 4
+        assertEquals(0.75, score(item, values("Phone", "", "", "xxxxxxx", "", "")), 1e-9);
+        assertEquals(-1, score(item, values("", "", "", "", "", "")));
+    }
+
+    @Test
+    void colorSynonymsAndTheirLimits() {
+        String[] item = values("Bag", "", "navy", "", "", "");
+        assertEquals(1.0, score(item, values("Bag", "", "blue", "", "", "")), 1e-9);
+        assertEquals(1.0, score(values("Bag", "", "golden", "", "", ""), values("Bag", "", "gold", "", "", "")), 1e-9);
+        for (String[] pair : new String[][] {{"dark", "black"}, {"sky", "blue"}, {"rose", "pink"}, {"gold", "yellow"}}) {
+            double s = score(values("Bag", "", pair[0], "", "", ""), values("Bag", "", pair[1], "", "", ""));
+            assertTrue(s < 1.0, pair[0] + " is not " + pair[1]);
+        }
+    }
+
+    @Test
+    void uNumberIsExactAndDatesFallOffOverTheWindow() {
+        ItemFields card = ItemFields.of("ID Card");     // name 4, department 1.5, unumber 8, year 0.5, location 1, date 0.5
+        String[] item = ItemFields.normalize(new String[] {"Asha Rao", "", "U1234567", "", "", "01-03-2024"}, card.size());
+        assertEquals(1.0, card.score(item, ItemFields.normalize(new String[] {"Asha Rao", "", "u-1234567", "", "", ""}, card.size()), DistanceStrategy.BIT_PARALLEL, 0, new TopK(10)), 1e-9);
+        assertEquals(4.0 / 12, card.score(item, ItemFields.normalize(new String[] {"Asha Rao", "", "1234568", "", "", ""}, card.size()), DistanceStrategy.BIT_PARALLEL, 0, new TopK(10)), 1e-9);
+        // 14 days apart: the date scores 0; a date that doesn't parse is compared as text
+        assertEquals(4.0 / 4.5, card.score(item, ItemFields.normalize(new String[] {"Asha Rao", "", "", "", "", "15-03-2024"}, card.size()), DistanceStrategy.BIT_PARALLEL, 0, new TopK(10)), 1e-9);
+        assertEquals((4 + 0.5 * 0.9) / 4.5, card.score(item, ItemFields.normalize(new String[] {"Asha Rao", "", "", "", "", "01-03-2O24"}, card.size()), DistanceStrategy.BIT_PARALLEL, 0, new TopK(10)), 1e-9);
+    }
+
+    // The early cut-off drops exactly the items the full score puts at or below the floor
+    @Test
+    void cutOffAgreesWithTheFullScore() {
+        String[] item = values("Phone", "Samsung", "black", "Library", "01-03-2024", "cracked screen");
+        String[][] reports = {
+            values("Phone", "Samsung", "black", "Library", "01-03-2024", "cracked screen"),
+            values("Phone", "Apple", "white", "Gym", "20-03-2024", "scratched back"),
+            values("Laptop", "Dell", "silver", "Library", "02-03-2024", ""),
+            values("Phne", "Samsng", "gray", "Librar", "03-03-2024", "crackd screen"),
+        };
+        for (String[] report : reports) {
+            double full = score(item, report);
+            for (double minScore : new double[] {0, 0.3, 0.5, 0.7, 0.9}) {
+                double cut = ELECTRONICS.score(item, report, DistanceStrategy.BIT_PARALLEL, minScore, new TopK(10));
+                assertEquals(full > minScore ? full : -1, cut, 1e-9, String.join("|", report) + " above " + minScore);
+            }
+        }
+    }
+
+    // Weights from -Dlostfound.weights.<category>, read when the category's profile is first built
+    @Test
+    void customWeights() {
+        System.setProperty("lostfound.weights.umbrellas", "date:0,color:3,nosuchfield:1");
+        try {
+            ItemFields umbrellas = ItemFields.of("Umbrellas");      // name 3, color 3, location 1, date 0, description 1.5
+            String[] item = ItemFields.normalize(new String[] {"Umbrella", "red", "Gym", "01-03-2024", ""}, umbrellas.size());
+            String[] report = ItemFields.normalize(new String[] {"Umbrella", "rrr", "Gym", "01-01-2020", ""}, umbrellas.size());
+            assertEquals((3 + 3 * (1 - 2 / 3.0) + 1) / 7, umbrellas.score(item, report, DistanceStrategy.BIT_PARALLEL, 0, new TopK(10)), 1e-9);
+        } finally {
+            System.clearProperty("lostfound.weights.umbrellas");
+        }
+    }
+
+    // A registered item's categorical values are one shared copy; its name and description are its own
+    @Test
+    void onlyRegisteredCategoricalValuesAreShared() {
+        Item a = new Item(1, "Electronics", "phone", ItemFields.encode(values("Phone", "Samsung", "Black", "Library", "01-03-2024", "cracked screen")));
+        Item b = new Item(2, "Electronics", "phone", ItemFields.encode(values("Phone", "Samsung", "Black", "Library", "01-03-2024", "cracked screen")));
+        for (int i = 1; i <= 4; i++) assertSame(a.fields[i], b.fields[i], "field " + i);
+        assertNotSame(a.fields[0], b.fields[0]);
+        assertNotSame(a.fields[5], b.fields[5]);
+        String[] query = values("Phone", "Samsung", "Black", "Library", "01-03-2024", "cracked screen");
+        assertNotSame(a.fields[1], query[1]);
+    }
+
+    private static String[] values(String... raw) {
+        return ItemFields.normalize(raw, ELECTRONICS.size());
+    }
+
+    private static double score(String[] item, String[] report) {
+        return ELECTRONICS.score(item, report, DistanceStrategy.BIT_PARALLEL, 0, new TopK(10));
+    }
+}
@@ -0,0 +1,189 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// MappedItemStore: header, records and text where the layout says they are, a record or a text
+// that doesn't fit a segment in the next one, and a reopened store that is the one that was closed
+class MappedItemStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsAndTextAtTheirPlaces() throws IOException {
+        Path base = dir.resolve("lostfound");
+        Item plain = item("Books", "novel", "Blue novel, torn cover");
+        Item phone = item("Electronics", "phone", ItemFields.encode(new String[] {"Phone", "Samsung", "Black", "Library", "01-03-2024", ""}));
+        try (MappedItemStore store = new MappedItemStore(base)) {
+            assertEquals(1, store.add(plain));
+            assertEquals(2, store.add(phone));
+            assertEquals(2, phone.id);
+            assertTrue(store.remove(1));
+        }
+        ByteBuffer items = read(base, ".items"), text = read(base, ".text");
+        assertEquals(0x4C464D31, items.getInt(0));
+        assertEquals(3, items.getInt(8));                   // nextId
+        assertEquals(1, items.getInt(24));                  // live
+        assertEquals(2, items.getInt(28));                  // categories, then their names
+        assertEquals("Books", chars(items, 34, items.getShort(32)));
+
+        int r = MappedItemStore.HEADER + 2 * MappedItemStore.RECORD;
+        assertEquals(1, items.get(r));                      // live
+        assertEquals(1, items.get(r + 1));                  // category code: Electronics
+        int nameChars = items.getInt(r + 4), descChars = items.getInt(r + 8), fieldChars = items.getInt(r + 12);
+        long at = items.getLong(r + 16);
+        assertEquals(2L * ("novel".length() + plain.combinedDescription.length()), at);     // right after item 1
+        assertEquals("phone", chars(text, (int) at, nameChars));
+        assertEquals("phone samsung black library 01 03 2024", chars(text, (int) at + 2 * nameChars, descChars));
+        assertEquals(ItemFields.encode(phone.fields), chars(text, (int) at + 2 * (nameChars + descChars), fieldChars));
+
+        r = MappedItemStore.HEADER + MappedItemStore.RECORD;
+        assertEquals(0, items.get(r));                      // claimed
+        assertEquals(0, items.getInt(r + 12));              // plain text: no fields
+    }
+
+    // An item's text is never split: one that doesn't fit what is left of a segment starts the next
+    @Test
+    void textThatDoesNotFitStartsTheNextSegment() throws IOException {
+        Path base = dir.resolve("lostfound");
+        int chars = MappedItemStore.SEGMENT / 2 / 5 * 3;        // 60% of a segment
+        String first = "a".repeat(chars), second = "b".repeat(chars);
+        try (MappedItemStore store = new MappedItemStore(base)) {
+            store.add(new Item(0, "Books", "x", first, null));
+            store.add(new Item(0, "Books", "y", second, null));
+            assertEquals(second, store.item(2).combinedDescription.toString());
+        }
+        ByteBuffer record = ByteBuffer.allocate(MappedItemStore.RECORD);
+        try (FileChannel items = FileChannel.open(sibling(base, ".items"))) {
+            items.read(record, MappedItemStore.HEADER + 2L * MappedItemStore.RECORD);
+        }
+        assertEquals(MappedItemStore.SEGMENT, record.getLong(16));
+        try (MappedItemStore store = new MappedItemStore(base)) {
+            assertEquals(first, store.item(1).combinedDescription.toString());
+            assertEquals(second, store.item(2).combinedDescription.toString());
+            assertEquals("y", store.item(2).name);
+        }
+    }
+
+    // Records past the first segment of the item file, across a close
+    @Test
+    void recordsInTheNextSegment() throws IOException {
+        Path base = dir.resolve("lostfound");
+        int last = (MappedItemStore.SEGMENT - MappedItemStore.HEADER) / MappedItemStore.RECORD + 10;    // the first segment ends 10 records before
+        try (MappedItemStore store = new MappedItemStore(base)) {
+            for (int id = 1; id <= last; id++) store.add(new Item(0, id % 2 == 0 ? "Books" : "Keys", "n", "item " + id, null));
+        }
+        try (MappedItemStore store = new MappedItemStore(base)) {
+            assertEquals(last + 1, store.nextId());
+            assertEquals(last, store.size());
+            for (int id = last - 20; id <= last; id++) {
+                Item item = store.item(id);
+                assertEquals("item " + id, item.combinedDescription.toString());
+                assertEquals(id % 2 == 0 ? "Books" : "Keys", item.category);
+            }
+            assertTrue(store.remove(last));
+            assertEquals((last - 1) / 2, store.count("Books"));
+            assertEquals(last - 1, store.idAt(null, last - 2));
+        }
+    }
+
+    @Test
+    void reopenedStoreIsTheOneThatWasClosed() throws IOException {
+        Path base = dir.resolve("lostfound");
+        Random rnd = new Random(3);
+        String[] categories = {"Books", "Electronics", "Keys"};
+        Map<Integer, String> live = new TreeMap<>();
+        try (MappedItemStore store = new MappedItemStore(base)) {
+            for (int i = 0; i < 5_000; i++) {
+                if (!live.isEmpty() && rnd.nextInt(4) == 0) {
+                    int id = 1 + rnd.nextInt(store.nextId() - 1);
+                    assertEquals(live.remove(id) != null, store.remove(id));
+                } else {
+                    String category = categories[rnd.nextInt(categories.length)];
+                    String text = category.equals("Electronics")
+                        ? ItemFields.encode(new String[] {"Phone", "Model " + i, "Black", "Gym", "", "cracked"})
+                        : CategoryIndexTest.words(rnd, 4);
+                    Item item = item(category, "item " + i, text);
+                    store.add(item);
+                    live.put(item.id, describe(item));
+                }
+            }
+        }
+        try (MappedItemStore store = new MappedItemStore(base)) {
+            Map<Integer, String> reopened = new TreeMap<>();
+            for (Item item : store.items()) reopened.put(item.id, describe(item));
+            assertEquals(live, reopened);
+            assertEquals(live.size(), store.size());
+            assertEquals(List.of("Books", "Electronics", "Keys"), new ArrayList<>(new TreeSet<>(store.categories())));
+            int firstKey = live.keySet().iterator().next();
+            assertEquals(0, store.countBefore(null, firstKey));
+            Item next = item("Keys", "key", "brass key on a red ring");
+            int nextId = store.nextId();
+            assertEquals(nextId, store.add(next));
+            TopK best = new TopK(1);
+            store.search("Keys", "brass key on a red ring", DistanceStrategy.BIT_PARALLEL, 0.3, best);
+            assertEquals(nextId, best.drain().get(0).getKey().id);
+        }
+    }
+
+    // The database over the store: ID cards are found by U-Number and holder after a reopen, and
+    // a claimed card is gone from the index as well as from the files
+    @Test
+    void idCardsThroughTheMappedDatabase() throws IOException {
+        Path base = dir.resolve("lostfound");
+        LostFoundDatabase db = new LostFoundDatabase(new MappedItemStore(base));
+        int alice = db.registerFound(IdCardIndex.CATEGORY, new String[] {"Alice Smith", "Law", "U2023456", "", "Library", "01-03-2024"});
+        db.registerFound(IdCardIndex.CATEGORY, new String[] {"Bob Jones", "Law", "U2029999", "", "Gym", ""});
+        db.close();
+
+        db = new LostFoundDatabase(new MappedItemStore(base));
+        try {
+            Item card = db.getItem(alice);
+            assertEquals("u2023456", card.fields[2]);
+            assertEquals(alice, db.searchFields(IdCardIndex.CATEGORY, new String[] {"", "", "u-2023456", "", "", ""}, 5).get(0).getKey().id);
+            List<Map.Entry<Item, Double>> found = db.searchItems(IdCardIndex.CATEGORY, "card of Alice Smith", 5);
+            assertEquals(List.of(alice), List.of(found.get(0).getKey().id));
+            assertEquals(1.0, found.get(0).getValue());
+
+            assertTrue(db.claimItem(alice));
+            for (Map.Entry<Item, Double> e : db.searchItems(IdCardIndex.CATEGORY, "Lost my card U-2023456", 5)) assertNotEquals(alice, e.getKey().id);
+            for (Map.Entry<Item, Double> e : db.searchFields(IdCardIndex.CATEGORY, new String[] {"Alice Smith", "", "", "", "", ""}, 5)) assertNotEquals(alice, e.getKey().id);
+        } finally {
+            db.close();
+        }
+    }
+
+    private static Item item(String category, String name, String text) {
+        return new Item(0, category, name, text);
+    }
+
+    private static String describe(Item item) {
+        return item.category + "|" + item.name + "|" + item.stored();
+    }
+
+    private static Path sibling(Path base, String suffix) {
+        return base.resolveSibling(base.getFileName() + suffix);
+    }
+
+    // The start of a store file (its first segment), as the store wrote it
+    private static ByteBuffer read(Path base, String suffix) throws IOException {
+        try (FileChannel file = FileChannel.open(sibling(base, suffix))) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            file.read(buffer, 0);
+            return buffer.flip();
+        }
+    }
+
+    private static String chars(ByteBuffer buffer, int at, int length) {
+        char[] out = new char[length];
+        for (int i = 0; i < length; i++) out[i] = buffer.getChar(at + 2 * i);
+        return new String(out);
+    }
+}
@@ -0,0 +1,92 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+// Searches above TrigramIndex.PARALLEL_THRESHOLD run in chunks on the pool they are called from.
+// Whatever its size, the merged result has to be the one a single thread gets, ties included
+class ParallelSearchTest {
+    private static final int[] THREADS = {1, 2, 3, 4, 8};
+
+    @Test
+    void topKMergeDoesNotDependOnTheSplit() {
+        Random rnd = new Random(1);
+        List<Item> items = new ArrayList<>();
+        double[] scores = new double[5_000];
+        for (int id = 1; id <= scores.length; id++) {
+            items.add(new Item(id, "Electronics", "x", "x"));
+            scores[id - 1] = rnd.nextInt(20) / 20.0;        // few distinct scores: ties everywhere
+        }
+        Collections.shuffle(items, rnd);
+        TopK whole = new TopK(50);
+        for (Item item : items) whole.offer(item, scores[item.id - 1]);
+        List<Map.Entry<Item, Double>> expected = whole.drain();
+        for (int i = 1; i < expected.size(); i++) {
+            Map.Entry<Item, Double> a = expected.get(i - 1), b = expected.get(i);
+            assertTrue(a.getValue() > b.getValue() || (a.getValue().equals(b.getValue()) && a.getKey().id < b.getKey().id));
+        }
+        for (int parts : new int[] {2, 3, 7, 16}) {
+            TopK best = new TopK(50);
+            for (int p = 0; p < parts; p++) {
+                TopK local = best.fork(best.k());
+                for (int i = p; i < items.size(); i += parts) local.offer(items.get(i), scores[items.get(i).id - 1]);
+                best.addAll(local);
+            }
+            assertEquals(expected, best.drain(), parts + " parts");
+        }
+    }
+
+    @Test
+    void searchIsTheSameOnAnyNumberOfThreads() throws Exception {
+        Random rnd = new Random(2);
+        List<Item> items = CategoryIndexTest.items(rnd, 2 * TrigramIndex.PARALLEL_THRESHOLD + 123);
+        CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+        index.addAll(items);
+        List<String> queries = CategoryIndexTest.queries(rnd, items, 12);
+        queries.add("blak phnoe chargr");                   // no indexed word: the trigram search over all of it
+        for (String query : queries) {
+            List<Map.Entry<Item, Double>> expected = onThreads(1, () -> index.search(query, 0.3, 20));
+            List<Item> candidates = onThreads(1, () -> index.rerankCandidates(query));
+            for (int threads : THREADS) {
+                assertEquals(expected, onThreads(threads, () -> index.search(query, 0.3, 20)), threads + " threads '" + query + "'");
+                assertEquals(candidates, onThreads(threads, () -> index.rerankCandidates(query)), threads + " threads '" + query + "'");
+            }
+        }
+    }
+
+    @Test
+    void searchFieldsIsTheSameOnAnyNumberOfThreads() throws Exception {
+        Random rnd = new Random(3);
+        ItemFields profile = ItemFields.of("Electronics");
+        List<Item> items = CategoryIndexTest.fieldItems(rnd, TrigramIndex.PARALLEL_THRESHOLD + 5_000);
+        CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+        index.addAll(items);
+        for (int q = 0; q < 6; q++) {
+            String[] query = ItemFields.normalize(items.get(rnd.nextInt(items.size())).fields, profile.size());
+            query[0] = "zzqx";                                  // name nobody has: few good candidates, the scan runs
+            List<Map.Entry<Item, Double>> expected = onThreads(1, () -> searchFields(index, profile, query));
+            for (int threads : THREADS) {
+                assertEquals(expected, onThreads(threads, () -> searchFields(index, profile, query)), threads + " threads");
+            }
+        }
+    }
+
+    private static List<Map.Entry<Item, Double>> searchFields(CategoryIndex index, ItemFields profile, String[] query) {
+        TopK best = new TopK(20);
+        index.searchFields(profile, query, 0.3, best);
+        return best.drain();
+    }
+
+    private static <T> T onThreads(int threads, Callable<T> search) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(search).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// RegistryStore recovery: whatever was logged before a close (or a crash at any point of a
+// snapshot) comes back as the same registry, from the snapshot, <log>.1 and <log> together
+class RegistryStoreTest {
+    @TempDir
+    Path dir;
+
+    // Rotation, changes logged between the rotation and the copy, the snapshot, then more changes
+    @Test
+    void snapshotAndLogReplayToTheSameRegistry() throws Exception {
+        Path log = dir.resolve("lostfound.wal");
+        Random rnd = new Random(1);
+        Registry live = new Registry();
+        int nextId, copiedNextId;
+        try (RegistryStore store = new RegistryStore(log, new Registry())) {
+            nextId = change(store, live, rnd, 1, RegistryStore.SNAPSHOT_EVERY);
+            assertTrue(store.snapshotDue());
+            assertTrue(store.rotate());
+            assertFalse(store.rotate());
+            assertTrue(Files.exists(sibling(log, ".1")));
+            nextId = change(store, live, rnd, nextId, 2_000);       // in the new log and in the copy
+            Registry copy = live.copy();
+            copiedNextId = nextId;
+            store.snapshot(copy::items, () -> copiedNextId).get();
+            assertTrue(Files.exists(sibling(log, ".snap")));
+            assertFalse(Files.exists(sibling(log, ".1")));
+            nextId = change(store, live, rnd, nextId, 3_000);
+        }
+        Registry recovered = new Registry();
+        try (RegistryStore store = new RegistryStore(log, recovered)) {
+            assertEquals(live.items, recovered.items);
+            assertEquals(copiedNextId, store.recoveredNextId());
+        }
+    }
+
+    // A snapshot that never finished: its records are still in <log>.1, in front of <log>
+    @Test
+    void unfinishedSnapshotReplaysTheRotatedLog() throws IOException {
+        Path log = dir.resolve("lostfound.wal");
+        Random rnd = new Random(2);
+        Registry live = new Registry();
+        int nextId = 1;
+        try (WriteAheadLog old = new WriteAheadLog(sibling(log, ".1"), 1024, 0)) {
+            nextId = change(old, live, rnd, nextId, 5_000);
+        }
+        try (WriteAheadLog current = new WriteAheadLog(log, 1024, 0)) {
+            nextId = change(current, live, rnd, nextId, 5_000);
+        }
+        Registry recovered = new Registry();
+        new RegistryStore(log, recovered).close();
+        assertEquals(live.items, recovered.items);
+    }
+
+    // The next rotation finds <log>.1 still there and appends the log to it instead of replacing it
+    @Test
+    void rotationKeepsAnUnfinishedRotatedLog() throws IOException {
+        Path log = dir.resolve("lostfound.wal");
+        Random rnd = new Random(3);
+        Registry live = new Registry();
+        int nextId;
+        try (WriteAheadLog old = new WriteAheadLog(sibling(log, ".1"), 1024, 0)) {
+            nextId = change(old, live, rnd, 1, 5_000);
+        }
+        try (RegistryStore store = new RegistryStore(log, new Registry())) {
+            nextId = change(store, live, rnd, nextId, RegistryStore.SNAPSHOT_EVERY);
+            assertTrue(store.rotate());
+            nextId = change(store, live, rnd, nextId, 1_000);
+        }
+        Registry recovered = new Registry();
+        new RegistryStore(log, recovered).close();
+        assertEquals(live.items, recovered.items);
+    }
+
+    // Crash mid-append after a snapshot: snapshot and log up to the torn record come back
+    @Test
+    void tornLastRecordAfterASnapshotLosesOnlyThatRecord() throws IOException, InterruptedException, ExecutionException {
+        Path log = dir.resolve("lostfound.wal");
+        Random rnd = new Random(4);
+        Registry live = new Registry();
+        try (RegistryStore store = new RegistryStore(log, new Registry())) {
+            int nextId = change(store, live, rnd, 1, RegistryStore.SNAPSHOT_EVERY);
+            assertTrue(store.rotate());
+            Registry copy = live.copy();
+            int copiedNextId = nextId;
+            store.snapshot(copy::items, () -> copiedNextId).get();
+            change(store, live, rnd, nextId, 50);
+            store.logRegister(1_000_000, "Books", "last", "torn away");
+        }
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 3);
+        }
+        Registry recovered = new Registry();
+        new RegistryStore(log, recovered).close();
+        assertEquals(live.items, recovered.items);
+    }
+
+    // The database on top of the store: items, claims and the next id survive a restart past a snapshot
+    @Test
+    void databaseReopensWithTheSameItems() throws IOException {
+        Path log = dir.resolve("lostfound.wal");
+        Random rnd = new Random(5);
+        String[] categories = {"Electronics", "Books", "Clothing", "Jewelry"};
+        Map<Integer, String> expected = new TreeMap<>();
+        int last = 0, logged = 0;
+        LostFoundDatabase db = new LostFoundDatabase(log);
+        for (int i = 0; logged < RegistryStore.SNAPSHOT_EVERY + 5_000; i++, logged++) {
+            if (i % 4 == 3 && !expected.isEmpty()) {
+                int id = 1 + rnd.nextInt(last);
+                if (expected.remove(id) != null) assertTrue(db.claimItem(id));
+                else logged--;
+            } else {
+                String category = categories[rnd.nextInt(categories.length)];
+                last = db.registerFound(category, "item " + i, CategoryIndexTest.words(rnd, 4));
+                expected.put(last, describe(db.getItem(last)));
+            }
+        }
+        db.close();
+        assertTrue(Files.exists(sibling(log, ".snap")));
+
+        LostFoundDatabase reopened = new LostFoundDatabase(log);
+        try {
+            for (int id = 1; id <= last; id++) {
+                Item item = reopened.getItem(id);
+                assertEquals(expected.get(id), item == null ? null : describe(item), "id " + id);
+            }
+            assertEquals(last + 1, reopened.registerFound("Books", "after", "restart"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    // A claim is logged before the item is taken off the registry: one that can't be logged (here
+    // the log is closed) leaves the item claimable, now and after a restart
+    @Test
+    void claimThatCannotBeLoggedLeavesTheItem() throws IOException {
+        Path log = dir.resolve("lostfound.wal");
+        LostFoundDatabase db = new LostFoundDatabase(log, WriteAheadLog.SyncPolicy.ALWAYS);
+        int id = db.registerFound("Books", "novel", "blue cover torn spine");
+        db.close();
+        assertThrows(UncheckedIOException.class, () -> db.claimItem(id));
+        assertNotNull(db.getItem(id));
+        assertEquals(1, db.searchItems("Books", "blue cover torn spine", 10).size());
+
+        LostFoundDatabase reopened = new LostFoundDatabase(log);
+        try {
+            assertNotNull(reopened.getItem(id));
+            assertTrue(reopened.claimItem(id));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    // `count` random registrations and claims into the log and into `live`; returns the next free id
+    private static int change(RegistryStore store, Registry live, Random rnd, int nextId, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            Integer claimed = live.pick(rnd);
+            if (claimed != null) {
+                store.logClaim(claimed, live.items.get(claimed).split("\\|")[0]);
+                live.claimed(claimed, null);
+            } else {
+                Item item = item(rnd, nextId++);
+                store.logRegister(item.id, item.category, item.name, item.stored());
+                live.registered(item.id, item.category, item.name, item.stored());
+            }
+        }
+        return nextId;
+    }
+
+    private static int change(WriteAheadLog log, Registry live, Random rnd, int nextId, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            Integer claimed = live.pick(rnd);
+            if (claimed != null) {
+                log.logClaim(claimed, live.items.get(claimed).split("\\|")[0]);
+                live.claimed(claimed, null);
+            } else {
+                Item item = item(rnd, nextId++);
+                log.logRegister(item.id, item.category, item.name, item.stored());
+                live.registered(item.id, item.category, item.name, item.stored());
+            }
+        }
+        return nextId;
+    }
+
+    private static Item item(Random rnd, int id) {
+        String category = rnd.nextBoolean() ? "Electronics" : "Books";
+        return new Item(id, category, "item " + id, CategoryIndexTest.words(rnd, 3));
+    }
+
+    private static String describe(Item item) {
+        return item.category + "|" + item.name + "|" + item.stored();
+    }
+
+    private static Path sibling(Path log, String suffix) {
+        return log.resolveSibling(log.getFileName() + suffix);
+    }
+
+    // The registry as LostFoundDatabase's listener keeps it: a known id is already applied
+    private static final class Registry implements WriteAheadLog.Listener {
+        final TreeMap<Integer, String> items = new TreeMap<>();
+
+        public void registered(int id, String category, String name, String combined) {
+            items.putIfAbsent(id, category + "|" + name + "|" + combined);
+        }
+
+        public void claimed(int id, String category) {
+            items.remove(id);
+        }
+
+        // An id to claim about one time in five, null for a registration
+        Integer pick(Random rnd) {
+            if (items.isEmpty() || rnd.nextInt(5) != 0) return null;
+            Integer id = items.ceilingKey(1 + rnd.nextInt(items.lastKey()));
+            return id != null ? id : items.firstKey();
+        }
+
+        Registry copy() {
+            Registry copy = new Registry();
+            copy.items.putAll(items);
+            return copy;
+        }
+
+        Item[] items() {
+            List<Item> out = new ArrayList<>(items.size());
+            for (Map.Entry<Integer, String> e : items.entrySet()) {
+                String[] parts = e.getValue().split("\\|", 3);
+                out.add(new Item(e.getKey(), parts[0], parts[1], parts[2]));
+            }
+            return out.toArray(new Item[0]);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+// searchAll runs one search per category at the same time and merges them; the answer has to be the
+// one a loop over the categories on one thread gives, each category into its own best k and those
+// merged, ties across categories included
+class SearchAllTest {
+    private static final String[] CATEGORIES = {"Electronics", "Daily Use", "Stationary", "Accessories", "Miscellaneous", "Books"};
+
+    @Test
+    void concurrentSearchIsTheSequentialLoop() {
+        Random rnd = new Random(11);
+        Map<String, List<Item>> byCategory = items(rnd, 900);
+        List<CategoryIndex> indexes = new ArrayList<>();
+        for (List<Item> items : byCategory.values()) {
+            CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+            index.addAll(items);
+            indexes.add(index);
+        }
+        List<Item> all = new ArrayList<>();
+        byCategory.values().forEach(all::addAll);
+        for (String query : CategoryIndexTest.queries(rnd, all, 45)) {
+            for (int k : new int[] {1, 10, 40}) {
+                TopK sequential = new TopK(k);
+                for (CategoryIndex index : indexes) {
+                    TopK one = new TopK(k);
+                    index.search(query, 0.3, one);
+                    sequential.addAll(one);
+                }
+                TopK concurrent = new TopK(k);
+                CategoryIndex.searchAll(indexes, query, 0.3, concurrent);
+                assertEquals(sequential.drain(), concurrent.drain(), "'" + query + "' k=" + k);
+            }
+        }
+    }
+
+    // Through the database: the best k of every category's own best k
+    @Test
+    void databaseSearchAllMergesTheCategories() {
+        Random rnd = new Random(12);
+        LostFoundDatabase db = new LostFoundDatabase();
+        Map<String, List<Item>> byCategory = items(rnd, 400);
+        for (List<Item> items : byCategory.values()) {
+            for (Item item : items) db.registerFound(item.category, item.name, item.combinedDescription.toString());
+        }
+        for (String query : CategoryIndexTest.queries(rnd, db.getAllItems(), 30)) {
+            List<Map.Entry<Item, Double>> each = new ArrayList<>();
+            for (String category : CATEGORIES) each.addAll(db.searchItems(category, query, 10));
+            assertEquals(ids(CategoryIndexTest.top(each, 10)), ids(db.searchAll(query, 10)), "'" + query + "'");
+        }
+    }
+
+    // The same descriptions in every category, so equal scores across categories are common
+    private static Map<String, List<Item>> items(Random rnd, int perCategory) {
+        List<String> descriptions = new ArrayList<>();
+        for (int i = 0; i < perCategory; i++) descriptions.add(CategoryIndexTest.words(rnd, 3 + rnd.nextInt(5)));
+        Map<String, List<Item>> byCategory = new LinkedHashMap<>();
+        int id = 1;
+        for (int i = 0; i < perCategory; i++) {
+            for (String category : CATEGORIES) {
+                String description = rnd.nextInt(3) == 0 ? descriptions.get(rnd.nextInt(descriptions.size())) : CategoryIndexTest.words(rnd, 3 + rnd.nextInt(5));
+                byCategory.computeIfAbsent(category, c -> new ArrayList<>()).add(new Item(id++, category, CategoryIndexTest.word(rnd), description));
+            }
+        }
+        return byCategory;
+    }
+
+    private static List<Map.Entry<Integer, Double>> ids(List<Map.Entry<Item, Double>> found) {
+        List<Map.Entry<Integer, Double>> out = new ArrayList<>();
+        for (Map.Entry<Item, Double> e : found) out.add(Map.entry(e.getKey().id, e.getValue()));
+        return out;
+    }
+}
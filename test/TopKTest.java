@@ -0,0 +1,99 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+// TopK against sorting everything: the best k, best first, equal scores by lower id whatever order
+// they were offered in; merged worker collectors give the same answer; and a cancelled collector
+// (or a fork of it) stops a search before it scores anything
+class TopKTest {
+    @Test
+    void bestKBestFirstTiesByLowerId() {
+        Random rnd = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int n = rnd.nextInt(300);
+            List<Map.Entry<Item, Double>> all = new ArrayList<>();
+            for (int id = 1; id <= n; id++) all.add(Map.entry(item(id), rnd.nextInt(8) / 8.0));     // few distinct scores: many ties
+            Collections.shuffle(all, rnd);
+            for (int k : new int[] {0, 1, 3, 10, n, n + 5}) {
+                TopK best = new TopK(k);
+                for (Map.Entry<Item, Double> e : all) best.offer(e.getKey(), e.getValue());
+                List<Map.Entry<Item, Double>> expected = CategoryIndexTest.top(new ArrayList<>(all), k);
+                assertEquals(expected.size(), best.size());
+                if (best.isFull() && k > 0) assertEquals(expected.get(k - 1).getValue(), best.floor());
+                assertEquals(expected, best.drain(), "n=" + n + " k=" + k);
+                assertEquals(0, best.size());
+            }
+        }
+    }
+
+    @Test
+    void acceptsWhatWouldGetIn() {
+        TopK best = new TopK(2);
+        assertTrue(best.offer(item(5), 0.5));
+        assertTrue(best.offer(item(9), 0.7));
+        assertTrue(best.isFull());
+        assertEquals(0.5, best.floor());
+        assertFalse(best.accepts(0.4, 1));
+        assertFalse(best.accepts(0.5, 6));          // a tie goes to the lower id
+        assertFalse(best.offer(item(6), 0.5));
+        assertTrue(best.accepts(0.5, 4));
+        assertTrue(best.offer(item(4), 0.5));
+        assertEquals(List.of(Map.entry(item(9).id, 0.7), Map.entry(4, 0.5)), ids(best.drain()));
+        assertFalse(new TopK(0).offer(item(1), 1.0));
+    }
+
+    // Workers each keep their own best k; merged, that is the best k of everything
+    @Test
+    void mergedWorkersGiveTheSameAnswer() {
+        Random rnd = new Random(8);
+        List<Map.Entry<Item, Double>> all = new ArrayList<>();
+        for (int id = 1; id <= 1_000; id++) all.add(Map.entry(item(id), rnd.nextInt(20) / 20.0));
+        TopK merged = new TopK(10);
+        for (int worker = 0; worker < 4; worker++) {
+            TopK mine = merged.fork(10);
+            for (int i = worker; i < all.size(); i += 4) mine.offer(all.get(i).getKey(), all.get(i).getValue());
+            mine.scored(5);
+            merged.addAll(mine);
+        }
+        assertEquals(CategoryIndexTest.top(new ArrayList<>(all), 10), merged.drain());
+        assertEquals(4, merged.scoredCount());
+        assertEquals(20, merged.cellCount());
+    }
+
+    @Test
+    void cancelledSearchScoresNothing() {
+        Random rnd = new Random(9);
+        for (int size : new int[] {CategoryIndex.RERANK_CANDIDATES, 2_000}) {         // exact search, then BM25 candidates first
+            List<Item> items = CategoryIndexTest.items(rnd, size);
+            CategoryIndex index = new CategoryIndex(DistanceStrategy.BIT_PARALLEL);
+            index.addAll(items);
+            String query = items.get(0).combinedDescription.toString();
+
+            TopK best = new TopK(10);
+            TopK worker = best.fork(10);
+            worker.cancel();                        // a fork shares the flag, either way round
+            assertTrue(best.isCancelled());
+            index.search(query, 0.3, best);
+            assertEquals(0, best.scoredCount(), "size " + size);
+            assertEquals(0, best.size());
+
+            TopK fresh = new TopK(10);
+            index.search(query, 0.3, fresh);
+            assertFalse(fresh.isCancelled());
+            assertEquals(items.get(0).id, fresh.drain().get(0).getKey().id);
+        }
+    }
+
+    private static Item item(int id) {
+        return new Item(id, "Books", "book " + id, "book " + id);
+    }
+
+    private static List<Map.Entry<Integer, Double>> ids(List<Map.Entry<Item, Double>> found) {
+        List<Map.Entry<Integer, Double>> out = new ArrayList<>();
+        for (Map.Entry<Item, Double> e : found) out.add(Map.entry(e.getKey().id, e.getValue()));
+        return out;
+    }
+}
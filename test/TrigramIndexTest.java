@@ -0,0 +1,116 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+// TrigramIndex's count filter against scoring every item: at floors where the q-gram bound rejects
+// most of the category (high minScore, a full top k) not a single result may be lost or reordered
+class TrigramIndexTest {
+    private static final String[] BASES = {
+        "black samsung galaxy phone cracked screen",
+        "silver dell laptop sticker on the lid",
+        "blue water bottle steel dented",
+        "sony headphones left near the gym",
+        "usb c charger cable white",
+        "red umbrella with wooden handle",
+    };
+
+    @Test
+    void countFilterLosesNothing() {
+        Random rnd = new Random(1);
+        for (DistanceStrategy metric : new DistanceStrategy[] {DistanceStrategy.DP, DistanceStrategy.BIT_PARALLEL}) {
+            List<Item> items = variants(rnd, 3_000);
+            ItemColumns columns = new ItemColumns();
+            TrigramIndex grams = new TrigramIndex(columns);
+            for (Item item : items) grams.add(columns.add(item), item.combinedDescription);
+            for (int q = 0; q < 30; q++) {
+                String query = typos(rnd, items.get(rnd.nextInt(items.size())).combinedDescription.toString(), rnd.nextInt(6));
+                for (double minScore : new double[] {0.3, 0.6, 0.8, 0.9}) {
+                    for (int k : new int[] {1, 10, 200}) {
+                        TopK best = new TopK(k);
+                        grams.search(query, metric, minScore, best, null);
+                        assertEquals(linear(items, query, minScore, k), best.drain(), metric + " '" + query + "' " + minScore + " k=" + k);
+                    }
+                }
+            }
+        }
+    }
+
+    // Claimed slots and the caller's skip list are left out, everything else is still exact
+    @Test
+    void claimedAndSkippedSlotsAreLeftOut() {
+        Random rnd = new Random(2);
+        List<Item> items = variants(rnd, 2_000);
+        ItemColumns columns = new ItemColumns();
+        TrigramIndex grams = new TrigramIndex(columns);
+        for (Item item : items) grams.add(columns.add(item), item.combinedDescription);
+        List<Item> live = new ArrayList<>(items);
+        for (int i = 0; i < 500; i++) columns.remove(live.remove(rnd.nextInt(live.size())));
+        for (int q = 0; q < 30; q++) {
+            String query = typos(rnd, live.get(rnd.nextInt(live.size())).combinedDescription.toString(), rnd.nextInt(4));
+            List<Item> skipped = new ArrayList<>();
+            for (int i = 0; i < 50; i++) skipped.add(live.get(rnd.nextInt(live.size())));
+            int[] skip = skipped.stream().mapToInt(item -> columns.slot(item.id)).sorted().distinct().toArray();
+            List<Item> rest = new ArrayList<>(live);
+            rest.removeAll(skipped);
+            TopK best = new TopK(10);
+            grams.search(query, DistanceStrategy.BIT_PARALLEL, 0.5, best, skip);
+            assertEquals(linear(rest, query, 0.5, 10), best.drain(), query);
+        }
+    }
+
+    // Queries and descriptions shorter than a trigram share none; they are still scored
+    @Test
+    void shortTextsAreScored() {
+        List<Item> items = List.of(new Item(1, "Daily Use", "key", "ke"), new Item(2, "Daily Use", "key", "key"),
+            new Item(3, "Daily Use", "pen", "a pen"), new Item(4, "Daily Use", "cap", ""));
+        ItemColumns columns = new ItemColumns();
+        TrigramIndex grams = new TrigramIndex(columns);
+        for (Item item : items) grams.add(columns.add(item), item.combinedDescription);
+        for (String query : new String[] {"k", "ke", "key", "pen", ""}) {
+            TopK best = new TopK(4);
+            grams.search(query, DistanceStrategy.BIT_PARALLEL, 0.3, best, null);
+            assertEquals(linear(items, query, 0.3, 4), best.drain(), "'" + query + "'");
+        }
+    }
+
+    // Typo'd variants of a few descriptions, so many items sit just above or below a high floor;
+    // some repeated outright for ties on the score
+    private static List<Item> variants(Random rnd, int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            String description = id > 10 && rnd.nextInt(8) == 0
+                ? items.get(rnd.nextInt(items.size())).combinedDescription.toString()
+                : typos(rnd, BASES[rnd.nextInt(BASES.length)] + " " + CategoryIndexTest.words(rnd, rnd.nextInt(4)), rnd.nextInt(10));
+            items.add(new Item(id, "Electronics", "item", description));
+        }
+        return items;
+    }
+
+    private static String typos(Random rnd, String text, int count) {
+        StringBuilder sb = new StringBuilder(text);
+        for (int i = 0; i < count && sb.length() > 0; i++) {
+            int at = rnd.nextInt(sb.length());
+            char c = (char) ('a' + rnd.nextInt(26));
+            switch (rnd.nextInt(3)) {
+                case 0 -> sb.setCharAt(at, c);
+                case 1 -> sb.insert(at, c);
+                default -> sb.deleteCharAt(at);
+            }
+        }
+        return TextNormalizer.normalize(sb.toString());
+    }
+
+    private static List<Map.Entry<Item, Double>> linear(List<Item> items, String query, double minScore, int k) {
+        List<Map.Entry<Item, Double>> all = new ArrayList<>();
+        for (Item item : items) {
+            String description = item.combinedDescription.toString();
+            int maxLength = Math.max(query.length(), description.length());
+            double score = maxLength == 0 ? 1.0 : 1.0 - ((double) EditDistance.distance(query, description) / maxLength);
+            if (score > minScore) all.add(Map.entry(item, score));
+        }
+        return CategoryIndexTest.top(all, k);
+    }
+}
@@ -0,0 +1,164 @@
+package lost_and_found_system;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// WriteAheadLog replay: every record written comes back in order, and a torn or corrupt record
+// (and everything behind it) is cut off, so the next appends follow the last good record
+class WriteAheadLogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayReturnsEveryRecordInOrder() throws IOException {
+        for (int syncEvery : new int[] {1, 7, 1024}) {
+            Path file = dir.resolve("log-" + syncEvery);
+            List<String> written = write(file, new Random(syncEvery), 500, syncEvery);
+            assertEquals(written, replay(file), "syncEveryRecords " + syncEvery);
+        }
+    }
+
+    // Cut anywhere inside the last record: the ones before it replay, the file is cut back to them
+    @Test
+    void truncatedLastRecordIsDropped() throws IOException {
+        Path file = dir.resolve("log");
+        List<String> written = write(file, new Random(1), 20, 1);
+        long full = Files.size(file);
+        long lastStart = full - recordLength(file, 19);
+        for (long cut = lastStart; cut < full; cut++) {
+            Path torn = dir.resolve("torn-" + cut);
+            Files.copy(file, torn);
+            try (FileChannel ch = FileChannel.open(torn, StandardOpenOption.WRITE)) {
+                ch.truncate(cut);
+            }
+            assertEquals(written.subList(0, 19), replay(torn), "cut at " + cut);
+            assertEquals(lastStart, Files.size(torn), "cut at " + cut);
+        }
+    }
+
+    @Test
+    void corruptRecordEndsReplay() throws IOException {
+        Path file = dir.resolve("log");
+        List<String> written = write(file, new Random(2), 20, 1);
+        long start = 0;
+        for (int i = 0; i < 10; i++) start += recordLength(file, i);
+        long at = start + 8 + 3;                    // inside the payload of record 10
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            ch.read(b, at);
+            b.put(0, (byte) (b.get(0) ^ 0x40)).rewind();
+            ch.write(b, at);
+        }
+        assertEquals(written.subList(0, 10), replay(file));
+        assertEquals(start, Files.size(file));
+    }
+
+    @Test
+    void appendsAfterARepairedTailReplay() throws IOException {
+        Path file = dir.resolve("log");
+        List<String> written = new ArrayList<>(write(file, new Random(3), 5, 1));
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 2);
+        }
+        written.remove(4);
+        assertEquals(written, replay(file));
+        try (WriteAheadLog log = new WriteAheadLog(file, 1, 0)) {
+            log.logClaim(2, "Electronics");
+        }
+        written.add("claim 2 Electronics");
+        assertEquals(written, replay(file));
+    }
+
+    @Test
+    void oversizedFieldIsRejectedWithoutAPartialRecord() throws IOException {
+        Path file = dir.resolve("log");
+        try (WriteAheadLog log = new WriteAheadLog(file, 1, 0)) {
+            log.logRegister(1, "Books", "novel", "blue cover");
+            assertThrows(IllegalArgumentException.class, () -> log.logRegister(2, "Books", "x".repeat(70_000), "long name"));
+            log.logClaim(1, "Books");
+        }
+        assertEquals(List.of("register 1 Books novel blue cover", "claim 1 Books"), replay(file));
+    }
+
+    @Test
+    void syncPolicies() throws IOException {
+        assertSame(WriteAheadLog.SyncPolicy.ALWAYS, WriteAheadLog.SyncPolicy.parse("always"));
+        assertSame(WriteAheadLog.SyncPolicy.GROUP, WriteAheadLog.SyncPolicy.parse(" group "));
+        WriteAheadLog.SyncPolicy custom = WriteAheadLog.SyncPolicy.parse("64/5");
+        assertEquals(64, custom.records);
+        assertEquals(5, custom.millis);
+        for (String bad : new String[] {"fast", "0/5", "5", "8/-1", ""}) {
+            assertThrows(IllegalArgumentException.class, () -> WriteAheadLog.SyncPolicy.parse(bad), bad);
+        }
+        // always: on disk before logRegister returns; batched without a timer: not until the batch fills
+        Path always = dir.resolve("always"), batched = dir.resolve("batched");
+        try (WriteAheadLog a = new WriteAheadLog(always, WriteAheadLog.SyncPolicy.ALWAYS);
+             WriteAheadLog b = new WriteAheadLog(batched, WriteAheadLog.SyncPolicy.parse("2/0"))) {
+            a.logRegister(1, "Books", "novel", "blue cover");
+            b.logRegister(1, "Books", "novel", "blue cover");
+            assertEquals(List.of("register 1 Books novel blue cover"), replay(always));
+            assertEquals(0, Files.size(batched));
+            b.logClaim(1, "Books");
+            assertEquals(List.of("register 1 Books novel blue cover", "claim 1 Books"), replay(batched));
+        }
+    }
+
+    // Random registrations and claims, non-ASCII text and descriptions past the buffer size among them
+    static List<String> write(Path file, Random rnd, int records, int syncEvery) throws IOException {
+        String[] categories = {"Electronics", "ID Cards", "Books", "Clothing", "Bücher"};
+        List<String> written = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(file, syncEvery, 0)) {
+            for (int id = 1; id <= records; id++) {
+                String category = categories[rnd.nextInt(categories.length)];
+                if (id > 1 && rnd.nextInt(4) == 0) {
+                    int claimed = 1 + rnd.nextInt(id - 1);
+                    log.logClaim(claimed, category);
+                    written.add("claim " + claimed + " " + category);
+                } else {
+                    String name = "item " + id + (rnd.nextBoolean() ? " é€" : "");
+                    String description = id % 97 == 0 ? "long ".repeat(20_000) : "black phone near the desk " + rnd.nextInt(1000);
+                    log.logRegister(id, category, name, description);
+                    written.add("register " + id + " " + category + " " + name + " " + description);
+                }
+            }
+        }
+        return written;
+    }
+
+    static List<String> replay(Path file) throws IOException {
+        List<String> replayed = new ArrayList<>();
+        int records = WriteAheadLog.replay(file, new WriteAheadLog.Listener() {
+            public void registered(int id, String category, String name, String combined) {
+                replayed.add("register " + id + " " + category + " " + name + " " + combined);
+            }
+
+            public void claimed(int id, String category) {
+                replayed.add("claim " + id + " " + category);
+            }
+        });
+        assertEquals(replayed.size(), records);
+        return replayed;
+    }
+
+    // Header plus payload of the record-th record (0-based)
+    private static long recordLength(Path file, int record) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            long at = 0;
+            for (int i = 0; ; i++) {
+                header.clear();
+                ch.read(header, at);
+                long length = 8 + header.getInt(0);
+                if (i == record) return length;
+                at += length;
+            }
+        }
+    }
+}